@@ -0,0 +1,81 @@
+package dev.satyrn.deepcavespiders.benchmark;
+
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.util.SpawnDistribution;
+import org.bukkit.Difficulty;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures spawn chance lookups for each distribution function.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnChanceBenchmark {
+    /**
+     * The spawn distribution under test.
+     */
+    @Param({"CONSTANT", "HYPERBOLIC", "LINEAR", "LOGARITHMIC"})
+    public SpawnDistribution distribution;
+
+    private SpawnRules rules;
+    private int y;
+
+    /**
+     * Compiles the spawn rules for the distribution under test.
+     */
+    @Setup
+    public void setup() {
+        final YamlConfiguration config = BenchmarkFixtures.defaultConfig();
+        config.set("spawnOptions.distribution", this.distribution.name().toLowerCase(Locale.ROOT));
+        this.rules = BenchmarkFixtures.rules(config);
+    }
+
+    /**
+     * Looks up the spawn chance in the precomputed table, as the listener does.
+     *
+     * @return The spawn chance.
+     */
+    @Benchmark
+    public double tableLookup() {
+        return this.rules.getSpawnChance(Difficulty.HARD, this.nextY());
+    }
+
+    /**
+     * Evaluates the distribution function directly, as the listener did before the tables were introduced.
+     *
+     * @return The spawn chance.
+     */
+    @Benchmark
+    public double closedForm() {
+        final int y = this.nextY();
+        return this.rules.isInRange(y) ? this.rules.computeSpawnChance(Difficulty.HARD, y) : 0D;
+    }
+
+    // Walks the whole spawn range so that every table entry is exercised.
+    private int nextY() {
+        final int y = this.y;
+        this.y = y >= SpawnRules.TABLE_MAX_Y ? SpawnRules.TABLE_MIN_Y : y + 1;
+        return y;
+    }
+}
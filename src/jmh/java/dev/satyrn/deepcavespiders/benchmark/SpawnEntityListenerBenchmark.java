@@ -0,0 +1,158 @@
+package dev.satyrn.deepcavespiders.benchmark;
+
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.listeners.SpawnEntityListener;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.util.DebugLogBuffer;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the spawn listener against pre-built streams of spawn events.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnEntityListenerBenchmark {
+    // The number of events in each pre-built stream. Must be a power of two.
+    private static final int EVENTS = 4096;
+
+    /**
+     * The spawn distribution function.
+     */
+    @Param({"CONSTANT", "LOGARITHMIC"})
+    public String distribution;
+
+    /**
+     * The number of biomes in the biome list.
+     */
+    @Param({"1", "23", "60"})
+    public int biomeCount;
+
+    /**
+     * The number of entity types in the replaceable entity list.
+     */
+    @Param({"1", "5"})
+    public int replaceEntityCount;
+
+    /**
+     * Whether spawn statistics are collected.
+     */
+    @Param({"true", "false"})
+    public boolean statistics;
+
+    private SpawnEntityListener listener;
+    // Natural spawns of every kind, as seen on a busy server.
+    private CreatureSpawnEvent[] mixed;
+    // Natural spider spawns inside the spawn range, which exercise the replacement path.
+    private CreatureSpawnEvent[] spiders;
+    // Natural cave spider spawns, which exercise the jockey path.
+    private CreatureSpawnEvent[] caveSpiders;
+    private int index;
+
+    /**
+     * Builds the listener and the event streams.
+     */
+    @Setup
+    public void setup() {
+        final Biome[] biomes = Biome.values();
+        final EntityType[] replaceable = {EntityType.SPIDER, EntityType.SKELETON, EntityType.CREEPER, EntityType.STRAY, EntityType.SILVERFISH};
+        final YamlConfiguration config = BenchmarkFixtures.defaultConfig();
+        config.set("spawnOptions.distribution", this.distribution.toLowerCase(Locale.ROOT));
+        config.set("biomes", names(biomes, Math.min(this.biomeCount, biomes.length)));
+        config.set("replaceEntities", names(replaceable, Math.min(this.replaceEntityCount, replaceable.length)));
+        config.set("statistics.enabled", this.statistics);
+        config.set("debug", false);
+        final SpawnRules rules = BenchmarkFixtures.rules(config);
+        this.listener = new SpawnEntityListener(BenchmarkFixtures.plugin(config), rules, new DebugLogBuffer(java.util.logging.Logger.getLogger("DeepCaveSpiders"), 1024), new SpawnStatistics(), BenchmarkFixtures.scheduler());
+
+        final World world = BenchmarkFixtures.world(Difficulty.HARD, World.Environment.NORMAL);
+        final SplittableRandom random = new SplittableRandom(42L);
+        final EntityType[] mixedTypes = {EntityType.ZOMBIE, EntityType.SKELETON, EntityType.CREEPER, EntityType.SPIDER, EntityType.CAVE_SPIDER, EntityType.SALMON};
+        this.mixed = new CreatureSpawnEvent[EVENTS];
+        this.spiders = new CreatureSpawnEvent[EVENTS];
+        this.caveSpiders = new CreatureSpawnEvent[EVENTS];
+        for (int i = 0; i < EVENTS; ++i) {
+            final Biome biome = biomes[random.nextInt(biomes.length)];
+            this.mixed[i] = BenchmarkFixtures.spawnEvent(world, mixedTypes[random.nextInt(mixedTypes.length)], CreatureSpawnEvent.SpawnReason.NATURAL, biome, random.nextInt(-64, 321));
+            this.spiders[i] = BenchmarkFixtures.spawnEvent(world, EntityType.SPIDER, CreatureSpawnEvent.SpawnReason.NATURAL, biome, random.nextInt(rules.getMinY(), rules.getMaxY() + 1));
+            this.caveSpiders[i] = BenchmarkFixtures.spawnEvent(world, EntityType.CAVE_SPIDER, CreatureSpawnEvent.SpawnReason.NATURAL, biome, random.nextInt(rules.getMinY(), rules.getMaxY() + 1));
+        }
+    }
+
+    /**
+     * Dispatches a mix of natural spawns of several entity types.
+     */
+    @Benchmark
+    public void mixedSpawns() {
+        this.listener.onCreatureSpawn(this.mixed[this.next()]);
+    }
+
+    /**
+     * Dispatches natural spider spawns through the replacement path.
+     */
+    @Benchmark
+    public void spiderSpawns() {
+        this.listener.onCreatureSpawn(this.spiders[this.next()]);
+    }
+
+    /**
+     * Dispatches natural cave spider spawns through the jockey path.
+     */
+    @Benchmark
+    public void caveSpiderSpawns() {
+        this.listener.onCreatureSpawn(this.caveSpiders[this.next()]);
+    }
+
+    /**
+     * Gets the spawn chance through the listener, as the about command does.
+     *
+     * @return The spawn chance.
+     */
+    @Benchmark
+    public double spawnChance() {
+        return this.listener.getSpawnChance(Difficulty.HARD, (this.next() & 63) - 64);
+    }
+
+    private int next() {
+        final int index = this.index;
+        this.index = (index + 1) & (EVENTS - 1);
+        return index;
+    }
+
+    // Gets the lower case names of the first count values.
+    private static List<String> names(final Enum<?>[] values, final int count) {
+        final List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            names.add(values[i].name().toLowerCase(Locale.ROOT));
+        }
+        return names;
+    }
+}
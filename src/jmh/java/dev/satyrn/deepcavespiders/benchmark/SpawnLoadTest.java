@@ -0,0 +1,306 @@
+package dev.satyrn.deepcavespiders.benchmark;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import dev.satyrn.deepcavespiders.culling.SpawnedEntityTracker;
+import dev.satyrn.deepcavespiders.listeners.SpawnEntityListener;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.util.AliasTable;
+import dev.satyrn.deepcavespiders.util.DebugLogBuffer;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.logging.Logger;
+
+/**
+ * Drives the spawn listener with a synthetic spawn storm and checks the results against budgets.
+ * Each thread dispatches its own stream of spawn events, drawn from weighted spawn reasons and entity types, and from
+ * uniform heights and biomes, to a shared listener. The world stand-ins dispatch the spawn events of the entities the
+ * listener spawns back to the listener, as the server would, so replacements, riders and jockeys are measured with
+ * their nested events. Spawned entities are unloaded after each event, outside of the measurement.
+ * The harness reports handler latency percentiles, bytes allocated per event and entities created per event, and
+ * exits with status 1 if any exceeds its budget. Allocations include the stand-ins for spawned entities and their
+ * events, so the allocation budget guards against regressions rather than measuring the plugin alone.
+ * <p>
+ * Options are read from system properties, with the defaults in parentheses:
+ * <ul>
+ *     <li>{@code loadtest.config}: a configuration file (the bundled default configuration)</li>
+ *     <li>{@code loadtest.threads}: the number of threads (4)</li>
+ *     <li>{@code loadtest.events}: the number of measured events per thread (250000)</li>
+ *     <li>{@code loadtest.warmup}: the number of warm-up events per thread (50000)</li>
+ *     <li>{@code loadtest.reasons}: weighted spawn reasons (natural:85,chunk_gen:10,spawner:5)</li>
+ *     <li>{@code loadtest.types}: weighted entity types (spider:30,zombie:25,skeleton:20,creeper:15,cave_spider:10)</li>
+ *     <li>{@code loadtest.biomes}: biomes, or empty for every biome ()</li>
+ *     <li>{@code loadtest.minY}, {@code loadtest.maxY}: the height range (-64, 64)</li>
+ *     <li>{@code loadtest.difficulty}: the world difficulty (hard)</li>
+ *     <li>{@code loadtest.budget.p50}, {@code loadtest.budget.p99}, {@code loadtest.budget.p999}: latency budgets, in
+ *     microseconds</li>
+ *     <li>{@code loadtest.budget.allocations}: the allocation budget, in bytes per event</li>
+ *     <li>{@code loadtest.budget.entities}: the budget for entities created per event</li>
+ * </ul>
+ * Budgets of zero, the default, are not checked.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnLoadTest {
+    // The number of events in each thread's pre-built stream. Must be a power of two.
+    private static final int EVENTS = 65536;
+
+    private SpawnLoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Unused; options are read from system properties.
+     * @throws Exception Thrown if a worker thread fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        final int threads = Integer.getInteger("loadtest.threads", 4);
+        final int events = Integer.getInteger("loadtest.events", 250000);
+        final int warmup = Integer.getInteger("loadtest.warmup", 50000);
+        final String configPath = System.getProperty("loadtest.config", "");
+        final YamlConfiguration config = configPath.isEmpty() ? BenchmarkFixtures.defaultConfig() : YamlConfiguration.loadConfiguration(new File(configPath));
+        config.set("debug", false);
+        final Mix mix = new Mix(config);
+
+        final SpawnEntityListener listener = new SpawnEntityListener(BenchmarkFixtures.plugin(config), BenchmarkFixtures.rules(config), new DebugLogBuffer(Logger.getLogger("DeepCaveSpiders"), 1024), new SpawnStatistics(), BenchmarkFixtures.scheduler());
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        final Worker[] workers = new Worker[threads];
+        final Thread[] workerThreads = new Thread[threads];
+        final Throwable[] failure = new Throwable[1];
+        for (int i = 0; i < threads; ++i) {
+            workers[i] = new Worker(listener, mix, 42L + i, warmup, events, start);
+            workerThreads[i] = new Thread(workers[i], "Load test worker " + i);
+            workerThreads[i].setUncaughtExceptionHandler((thread, ex) -> failure[0] = ex);
+        }
+        for (final Thread thread : workerThreads) {
+            thread.start();
+        }
+        for (final Thread thread : workerThreads) {
+            thread.join();
+        }
+        if (failure[0] != null) {
+            throw new IllegalStateException("A load test worker failed", failure[0]);
+        }
+
+        final long[] latencies = new long[threads * events];
+        long allocated = 0L;
+        long entities = 0L;
+        long passengers = 0L;
+        long nestedEvents = 0L;
+        long elapsed = 0L;
+        for (int i = 0; i < threads; ++i) {
+            System.arraycopy(workers[i].latencies, 0, latencies, i * events, events);
+            allocated = allocated < 0L || workers[i].allocated < 0L ? -1L : allocated + workers[i].allocated;
+            entities += workers[i].entities;
+            passengers += workers[i].passengers;
+            nestedEvents += workers[i].nestedEvents;
+            elapsed = Math.max(elapsed, workers[i].elapsed);
+        }
+        Arrays.sort(latencies);
+        final double count = latencies.length;
+        final double p50 = percentile(latencies, 0.5D) / 1000D;
+        final double p99 = percentile(latencies, 0.99D) / 1000D;
+        final double p999 = percentile(latencies, 0.999D) / 1000D;
+        final double allocationsPerEvent = allocated < 0L ? Double.NaN : allocated / count;
+        final double entitiesPerEvent = entities / count;
+
+        final PrintStream out = System.out;
+        out.printf(Locale.ROOT, "Spawn load test: %d threads, %d events in %.1f ms (%.0f events per second)%n",
+                threads, latencies.length, elapsed / 1e6D, latencies.length * 1e9D / Math.max(1L, elapsed));
+        out.printf(Locale.ROOT, "Handler latency: p50 %.2f us, p99 %.2f us, p99.9 %.2f us, max %.2f us%n",
+                p50, p99, p999, latencies[latencies.length - 1] / 1000D);
+        out.printf(Locale.ROOT, "Allocations: %.1f bytes per event%n", allocationsPerEvent);
+        out.printf(Locale.ROOT, "Entities created: %.4f per event (%d entities, %d passengers mounted, %d nested spawn events)%n",
+                entitiesPerEvent, entities, passengers, nestedEvents);
+
+        final List<String> exceeded = new ArrayList<>();
+        checkBudget(exceeded, "p50 latency (us)", p50, "loadtest.budget.p50");
+        checkBudget(exceeded, "p99 latency (us)", p99, "loadtest.budget.p99");
+        checkBudget(exceeded, "p99.9 latency (us)", p999, "loadtest.budget.p999");
+        checkBudget(exceeded, "allocations per event (bytes)", allocationsPerEvent, "loadtest.budget.allocations");
+        checkBudget(exceeded, "entities per event", entitiesPerEvent, "loadtest.budget.entities");
+        if (!exceeded.isEmpty()) {
+            for (final String message : exceeded) {
+                System.err.println("Budget exceeded: " + message);
+            }
+            System.exit(1);
+        }
+    }
+
+    // Gets a percentile of sorted values.
+    private static long percentile(final long @NotNull [] sorted, final double percentile) {
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    // Adds a message to the list if a value exceeds the budget in a system property. Zero budgets aren't checked.
+    private static void checkBudget(final @NotNull List<String> exceeded, final @NotNull String name, final double value, final @NotNull String property) {
+        final double budget = Double.parseDouble(System.getProperty(property, "0"));
+        if (budget > 0D && !(value <= budget)) {
+            exceeded.add(String.format(Locale.ROOT, "%s is %.2f, over the budget of %.2f", name, value, budget));
+        }
+    }
+
+    // Gets the number of bytes the current thread has allocated, or -1 if the JVM doesn't count allocations.
+    private static long allocatedBytes() {
+        return ManagementFactory.getThreadMXBean() instanceof final com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()
+                ? threads.getCurrentThreadAllocatedBytes()
+                : -1L;
+    }
+
+    // The event mix, read from system properties.
+    private static final class Mix {
+        private final CreatureSpawnEvent.SpawnReason[] reasons;
+        private final AliasTable reasonWeights;
+        private final EntityType[] types;
+        private final AliasTable typeWeights;
+        private final Biome[] biomes;
+        private final int minY;
+        private final int maxY;
+        private final Difficulty difficulty;
+
+        private Mix(final @NotNull YamlConfiguration config) {
+            final List<String> reasons = new ArrayList<>();
+            this.reasonWeights = weights(System.getProperty("loadtest.reasons", "natural:85,chunk_gen:10,spawner:5"), reasons);
+            this.reasons = reasons.stream().map(name -> CreatureSpawnEvent.SpawnReason.valueOf(name.toUpperCase(Locale.ROOT))).toArray(CreatureSpawnEvent.SpawnReason[]::new);
+            final List<String> types = new ArrayList<>();
+            this.typeWeights = weights(System.getProperty("loadtest.types", "spider:30,zombie:25,skeleton:20,creeper:15,cave_spider:10"), types);
+            this.types = types.stream().map(name -> EntityType.valueOf(name.toUpperCase(Locale.ROOT))).toArray(EntityType[]::new);
+            final String biomes = System.getProperty("loadtest.biomes", "").trim();
+            this.biomes = biomes.isEmpty()
+                    ? Biome.values()
+                    : Arrays.stream(biomes.split(",")).map(name -> Biome.valueOf(name.trim().toUpperCase(Locale.ROOT))).toArray(Biome[]::new);
+            this.minY = Integer.getInteger("loadtest.minY", -64);
+            this.maxY = Math.max(this.minY, Integer.getInteger("loadtest.maxY", 64));
+            this.difficulty = Difficulty.valueOf(System.getProperty("loadtest.difficulty", "hard").toUpperCase(Locale.ROOT));
+        }
+
+        // Parses a list of name:weight pairs into an alias table, adding the names to a list.
+        private static @NotNull AliasTable weights(final @NotNull String value, final @NotNull List<String> names) {
+            final String[] entries = value.split(",");
+            final double[] weights = new double[entries.length];
+            for (int i = 0; i < entries.length; ++i) {
+                final String[] parts = entries[i].trim().split(":");
+                names.add(parts[0].trim());
+                weights[i] = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1D;
+            }
+            return new AliasTable(weights);
+        }
+    }
+
+    // Dispatches one thread's events, and counts what the listener spawns.
+    private static final class Worker implements Runnable, BenchmarkFixtures.SpawnHooks {
+        private final @NotNull SpawnEntityListener listener;
+        private final @NotNull SpawnedEntityTracker tracker;
+        private final @NotNull CreatureSpawnEvent[] events = new CreatureSpawnEvent[EVENTS];
+        private final int warmup;
+        private final @NotNull CyclicBarrier start;
+        // Entities spawned while handling the current event, unloaded once it has been handled.
+        private final @NotNull List<Entity> spawned = new ArrayList<>();
+        // Handler latencies of the measured events, in nanoseconds.
+        private final long[] latencies;
+        // Bytes allocated while handling the measured events, or -1 if allocations aren't counted.
+        private long allocated;
+        private long entities;
+        private long passengers;
+        private long nestedEvents;
+        // Time spent on the measured events, in nanoseconds.
+        private long elapsed;
+
+        private Worker(final @NotNull SpawnEntityListener listener, final @NotNull Mix mix, final long seed, final int warmup, final int events, final @NotNull CyclicBarrier start) {
+            this.listener = listener;
+            this.tracker = listener.getTracker();
+            this.warmup = warmup;
+            this.start = start;
+            this.latencies = new long[events];
+            final World world = BenchmarkFixtures.world(mix.difficulty, World.Environment.NORMAL, this);
+            final SplittableRandom random = new SplittableRandom(seed);
+            for (int i = 0; i < EVENTS; ++i) {
+                this.events[i] = BenchmarkFixtures.spawnEvent(world,
+                        mix.types[mix.typeWeights.pick(random.nextDouble())],
+                        mix.reasons[mix.reasonWeights.pick(random.nextDouble())],
+                        mix.biomes[random.nextInt(mix.biomes.length)],
+                        random.nextInt(mix.minY, mix.maxY + 1),
+                        this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < this.warmup; ++i) {
+                this.dispatch(this.events[i & (EVENTS - 1)]);
+                this.unload();
+            }
+            this.entities = 0L;
+            this.passengers = 0L;
+            this.nestedEvents = 0L;
+            try {
+                this.start.await();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            final long started = System.nanoTime();
+            for (int i = 0; i < this.latencies.length; ++i) {
+                final CreatureSpawnEvent event = this.events[i & (EVENTS - 1)];
+                event.setCancelled(false);
+                final long allocatedBefore = allocatedBytes();
+                final long eventStart = System.nanoTime();
+                this.listener.onCreatureSpawn(event);
+                this.latencies[i] = System.nanoTime() - eventStart;
+                final long allocatedAfter = allocatedBytes();
+                this.allocated = allocatedBefore < 0L || this.allocated < 0L ? -1L : this.allocated + allocatedAfter - allocatedBefore;
+                this.unload();
+            }
+            this.elapsed = System.nanoTime() - started;
+        }
+
+        // Dispatches an event to the listener, as the server would if it hadn't been cancelled.
+        private void dispatch(final @NotNull CreatureSpawnEvent event) {
+            event.setCancelled(false);
+            this.listener.onCreatureSpawn(event);
+        }
+
+        // Unloads the entities spawned by the last event.
+        private void unload() {
+            for (final Entity entity : this.spawned) {
+                this.tracker.onEntityRemoveFromWorld(new EntityRemoveFromWorldEvent(entity));
+            }
+            this.spawned.clear();
+        }
+
+        @Override
+        public void spawned(final @NotNull Entity entity, final @NotNull CreatureSpawnEvent.SpawnReason reason) {
+            ++this.nestedEvents;
+            final CreatureSpawnEvent event = new CreatureSpawnEvent((LivingEntity) entity, reason);
+            this.dispatch(event);
+            if (!event.isCancelled()) {
+                ++this.entities;
+                this.tracker.onEntityAddToWorld(new EntityAddToWorldEvent(entity));
+                this.spawned.add(entity);
+            }
+        }
+
+        @Override
+        public void mounted(final @NotNull Entity vehicle, final @NotNull Entity passenger) {
+            ++this.passengers;
+        }
+    }
+}
@@ -1,25 +1,67 @@
 package dev.satyrn.deepcavespiders;
 
+import dev.satyrn.deepcavespiders.api.RulesSpawnChanceService;
+import dev.satyrn.deepcavespiders.api.SpawnChanceService;
 import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.deepcavespiders.configuration.SpawnProfile;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.culling.SpawnedEntityTracker;
+import dev.satyrn.deepcavespiders.hud.DangerHud;
+import dev.satyrn.deepcavespiders.journal.SpawnJournal;
 import dev.satyrn.deepcavespiders.listeners.SpawnEntityListener;
+import dev.satyrn.deepcavespiders.listeners.WorldStateListener;
+import dev.satyrn.deepcavespiders.simulation.SimulationResult;
+import dev.satyrn.deepcavespiders.simulation.SpawnSimulator;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.statistics.StatisticsDumpTask;
+import dev.satyrn.deepcavespiders.util.BiomeCache;
+import dev.satyrn.deepcavespiders.util.ChanceFormatCache;
+import dev.satyrn.deepcavespiders.util.DebugLogBuffer;
+import dev.satyrn.deepcavespiders.util.DistributionCurve;
+import dev.satyrn.deepcavespiders.util.ExpressionCurve;
+import dev.satyrn.deepcavespiders.util.SpawnDistribution;
+import dev.satyrn.deepcavespiders.util.SpawnQueue;
+import dev.satyrn.deepcavespiders.util.SpawnThrottle;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
+import dev.satyrn.deepcavespiders.util.TickTimeFormatCache;
 import dev.satyrn.papermc.api.lang.v1.I18n;
 import org.bstats.bukkit.Metrics;
 import org.bstats.charts.AdvancedPie;
 import org.bstats.charts.SimplePie;
 import org.bukkit.Difficulty;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 /**
@@ -30,12 +72,41 @@ import java.util.logging.Level;
  */
 @SuppressWarnings("unused")
 public final class DeepCaveSpiders extends JavaPlugin {
+    // The number of heights at which the curve command samples the spawn chance.
+    private static final int CURVE_SAMPLES = 16;
+    // The largest number of spawns the simulate command will simulate.
+    private static final long MAX_SIMULATION_SAMPLES = 100_000_000L;
+
     // Event listener for entity spawn events.
     private SpawnEntityListener spawnEntityListener;
+    // Whether the spawn listener is currently registered.
+    private boolean spawnEntityListenerRegistered;
+    // Buffer for debug messages produced while handling events.
+    private DebugLogBuffer debugLog;
+    // Spawn statistics.
+    private final SpawnStatistics statistics = new SpawnStatistics();
+    // Task which periodically writes the spawn statistics to disk.
+    private TaskScheduler.Task statisticsDumpTask;
+    // Schedules tasks on the main thread, or on the owning region of region-threaded servers.
+    private TaskScheduler scheduler;
     // Internationalization instance.
     private I18n i18n;
     // The configuration instance.
-    private Configuration configuration;
+    private volatile Configuration configuration;
+    // Lock which serializes configuration reloads.
+    private final Object reloadLock = new Object();
+    // Whether a spawn simulation is running.
+    private final AtomicBoolean simulationRunning = new AtomicBoolean();
+    // Formats spawn chances for the about command and the HUD.
+    private final ChanceFormatCache chanceFormat = new ChanceFormatCache();
+    // Formats average tick times for the about and stats commands.
+    private final TickTimeFormatCache msptFormat = new TickTimeFormatCache();
+    // Formats simulated rates, which are finer than the chance format cache keeps. Only used on the global thread.
+    private final DecimalFormat rateFormat = new DecimalFormat("0.0###");
+    // The spider danger HUD.
+    private DangerHud dangerHud;
+    // The about message, and the rules it was built from.
+    private volatile AboutMessage aboutMessage;
 
     /**
      * Called when the plugin is enabled.
@@ -53,17 +124,38 @@ public final class DeepCaveSpiders extends JavaPlugin {
         this.i18n.setLocale(configuration.locale.value());
         i18n.enable();
 
-        this.registerEvents(this.configuration);
+        this.scheduler = TaskScheduler.create(this);
+        final SpawnRules rules = SpawnRules.compile(this.configuration);
+        this.registerEvents(rules);
+        this.spawnEntityListener.getLimiter().configure(rules);
+        this.scheduleStatisticsDump(this.configuration);
+        this.configureHud(this.configuration);
+        this.configureJournal(this.configuration);
+        this.spawnEntityListener.getThrottle().configure(this.configuration.throttle);
+        this.spawnEntityListener.getTracker().configure(this.configuration.culling);
 
         this.registerCommands();
 
         if (configuration.metrics.value()) {
             final Metrics metrics = new Metrics(this, 14026);
-            metrics.addCustomChart(new SimplePie("distribution_method", () -> configuration.spawnOptions.distribution.value().toString().toLowerCase(Locale.ROOT)));
-            metrics.addCustomChart(new SimplePie("locale", configuration.locale::value));
+            metrics.addCustomChart(new SimplePie("distribution_method", () -> {
+                // Report custom curves by kind, since their sources are user input.
+                final DistributionCurve curve = this.spawnEntityListener.getRules().getDistribution();
+                if (curve instanceof final SpawnDistribution preset) {
+                    return preset.name().toLowerCase(Locale.ROOT);
+                }
+                return curve instanceof ExpressionCurve ? "expression" : "piecewise";
+            }));
+            // Every chart reads the configuration published with the live rules, so reloads are reported.
+            metrics.addCustomChart(new SimplePie("locale", () -> this.configuration.locale.value()));
+            metrics.addCustomChart(new SimplePie("spawn_rate_multiplier", () -> {
+                final SpawnThrottle throttle = this.spawnEntityListener.getThrottle();
+                // Reported in steps of ten percent, so that the chart has a handful of slices.
+                return throttle.isEnabled() ? (int) (Math.floor(throttle.getMultiplier() * 10D) * 10D) + "%" : "disabled";
+            }));
             metrics.addCustomChart(new AdvancedPie("biomes", () -> {
                 final Map<String, Integer> values = new HashMap<>();
-                for (final Biome biome : configuration.biomes.value()) {
+                for (final Biome biome : this.configuration.biomes.value()) {
                     final @NotNull String biomeName = biome.toString().toLowerCase(Locale.ROOT);
                     if (!values.containsKey(biomeName)) {
                         values.put(biomeName, 1);
@@ -73,7 +165,7 @@ public final class DeepCaveSpiders extends JavaPlugin {
             }));
             metrics.addCustomChart(new AdvancedPie("environments", () -> {
                 final Map<String, Integer> values = new HashMap<>();
-                for (final World.Environment environment : configuration.environments.value()) {
+                for (final World.Environment environment : this.configuration.environments.value()) {
                     final @NotNull String environmentName = environment.toString().toLowerCase(Locale.ROOT);
                     if (!values.containsKey(environmentName)) {
                         values.put(environmentName, 1);
@@ -83,7 +175,7 @@ public final class DeepCaveSpiders extends JavaPlugin {
             }));
             metrics.addCustomChart(new AdvancedPie("replaced_entities", () -> {
                 final Map<String, Integer> values = new HashMap<>();
-                for (final EntityType replacedEntity : configuration.replaceEntities.value()) {
+                for (final EntityType replacedEntity : this.configuration.replaceEntities.value()) {
                     final @NotNull String entityName = replacedEntity.toString().toLowerCase(Locale.ROOT);
                     if (!values.containsKey(entityName)) {
                         values.put(entityName, 1);
@@ -96,6 +188,24 @@ public final class DeepCaveSpiders extends JavaPlugin {
         this.getLogger().info("DeepCaveSpiders has been successfully enabled!");
     }
 
+    /**
+     * Called when the plugin is disabled.
+     *
+     * @since 1.4.0
+     */
+    @Override
+    public void onDisable() {
+        if (this.dangerHud != null) {
+            this.dangerHud.close();
+        }
+        if (this.spawnEntityListener != null) {
+            this.configureJournal(null);
+            this.spawnEntityListener.getQueue().clear();
+            this.spawnEntityListener.getThrottle().close();
+            this.spawnEntityListener.getTracker().close();
+        }
+    }
+
     /**
      * Called when the plugin is loaded.
      *
@@ -124,6 +234,30 @@ public final class DeepCaveSpiders extends JavaPlugin {
             if (args.length == 1) {
                 if (sender.hasPermission("deepcavespiders.admin")) {
                     completionOptions.add("reload");
+                    completionOptions.add("stats");
+                    completionOptions.add("simulate");
+                }
+                completionOptions.add("curve");
+                if (sender instanceof Player && sender.hasPermission("deepcavespiders.hud")) {
+                    completionOptions.add("hud");
+                }
+            } else if (args.length == 2 && "stats".equalsIgnoreCase(args[0])) {
+                if (sender.hasPermission("deepcavespiders.admin")) {
+                    completionOptions.add("reset");
+                }
+            } else if (args.length == 3 && "simulate".equalsIgnoreCase(args[0])) {
+                if (sender.hasPermission("deepcavespiders.admin")) {
+                    for (final World world : this.getServer().getWorlds()) {
+                        completionOptions.add(world.getName());
+                    }
+                }
+            } else if (args.length == 2 && "curve".equalsIgnoreCase(args[0])) {
+                for (final World world : this.getServer().getWorlds()) {
+                    completionOptions.add(world.getName());
+                }
+            } else if (args.length == 3 && "curve".equalsIgnoreCase(args[0])) {
+                for (final Biome biome : Biome.values()) {
+                    completionOptions.add(biome.name().toLowerCase(Locale.ROOT));
                 }
             }
         }
@@ -145,36 +279,53 @@ public final class DeepCaveSpiders extends JavaPlugin {
         if ("deepcavespiders".equalsIgnoreCase(command.getName())) {
             if (args.length >= 1 && "reload".equalsIgnoreCase(args[0])) {
                 if (sender.hasPermission("deepcavespiders.admin")) {
-                    this.reloadConfig();
-                    final Configuration configuration = new Configuration(this);
-                    sender.sendMessage(I18n.tr("command.reload"));
+                    this.reload(sender);
                 } else {
                     sender.sendMessage(I18n.tr("command.reload.deny"));
                 }
+            } else if (args.length >= 1 && "stats".equalsIgnoreCase(args[0])) {
+                if (sender.hasPermission("deepcavespiders.admin")) {
+                    this.sendStatistics(sender, args.length >= 2 && "reset".equalsIgnoreCase(args[1]));
+                } else {
+                    sender.sendMessage(I18n.tr("command.stats.deny"));
+                }
+            } else if (args.length >= 1 && "simulate".equalsIgnoreCase(args[0])) {
+                if (sender.hasPermission("deepcavespiders.admin")) {
+                    this.simulate(sender, args);
+                } else {
+                    sender.sendMessage(I18n.tr("command.simulate.deny"));
+                }
+            } else if (args.length >= 1 && "curve".equalsIgnoreCase(args[0])) {
+                this.sendCurve(sender, args.length >= 2 ? args[1] : null, args.length >= 3 ? args[2] : null);
+            } else if (args.length >= 1 && "hud".equalsIgnoreCase(args[0])) {
+                if (!(sender instanceof final Player player)) {
+                    sender.sendMessage(I18n.tr("command.hud.playersOnly"));
+                } else if (!sender.hasPermission("deepcavespiders.hud")) {
+                    sender.sendMessage(I18n.tr("command.hud.deny"));
+                } else if (!this.dangerHud.isEnabled()) {
+                    sender.sendMessage(I18n.tr("command.hud.disabled"));
+                } else if (this.scheduler.isOwnedByCurrentThread(player)) {
+                    this.toggleHud(player);
+                } else {
+                    this.scheduler.runFor(player, () -> this.toggleHud(player), () -> {
+                    });
+                }
             } else {
-                final int minY = this.configuration.spawnOptions.range.minY.value();
-                final int maxY = this.configuration.spawnOptions.range.maxY.value();
-                final boolean allowSpawnsBelowMinY = this.configuration.spawnOptions.range.allowSpawnsBelowMinY.value();
-                sender.sendMessage(I18n.tr("command.about",
-                        this.getDescription().getName(),
-                        this.getDescription().getVersion(),
-                        String.join(", ", this.getDescription().getAuthors()),
-                        maxY,
-                        (allowSpawnsBelowMinY ? "<" : "") + minY,
-                        this.configuration.spawnOptions.chances.value(Difficulty.EASY),
-                        this.configuration.spawnOptions.chances.value(Difficulty.NORMAL),
-                        this.configuration.spawnOptions.chances.value(Difficulty.HARD),
-                        this.configuration.spawnOptions.distribution.value().toString().toLowerCase(Locale.ROOT)));
+                // Read the rules once so that a concurrent reload can't produce a mixed report.
+                final SpawnRules rules = this.spawnEntityListener.getRules();
+                sender.sendMessage(this.getAboutMessage(rules));
+                final SpawnThrottle throttle = this.spawnEntityListener.getThrottle();
+                if (throttle.isEnabled()) {
+                    sender.sendMessage(I18n.tr("command.about.throttle", this.chanceFormat.format(throttle.getMultiplier()), this.msptFormat.format(throttle.getLastMspt())));
+                }
                 if (sender instanceof final Player player) {
-                    double y = player.getLocation().getY();
-                    double spawnChance = this.spawnEntityListener.getSpawnChance(player.getWorld().getDifficulty(), y) * 100;
-                    if (y > maxY) spawnChance = 0;
-                    if (y < minY && !allowSpawnsBelowMinY) spawnChance = 0;
-                    final DecimalFormat decimalFormat = new DecimalFormat("0.0#");
-
-                    sender.sendMessage(I18n.tr("command.about.spawnChanceAtCurrentY",
-                            decimalFormat.format(player.getLocation().getY()),
-                            decimalFormat.format(spawnChance) + "%"));
+                    // The player's location may only be read on the thread which owns the player.
+                    if (this.scheduler.isOwnedByCurrentThread(player)) {
+                        this.sendSpawnChanceAtCurrentY(player, rules);
+                    } else {
+                        this.scheduler.runFor(player, () -> this.sendSpawnChanceAtCurrentY(player, rules), () -> {
+                        });
+                    }
                 }
             }
             return true;
@@ -182,17 +333,422 @@ public final class DeepCaveSpiders extends JavaPlugin {
         return false;
     }
 
+    /**
+     * Gets the about message for a rules snapshot, building it only when the rules have changed.
+     *
+     * @param rules The spawn rules.
+     * @return The about message.
+     * @since 1.4.0
+     */
+    private @NotNull String getAboutMessage(final @NotNull SpawnRules rules) {
+        final AboutMessage cached = this.aboutMessage;
+        if (cached != null && cached.rules == rules) {
+            return cached.text;
+        }
+        final String text = I18n.tr("command.about",
+                this.getDescription().getName(),
+                this.getDescription().getVersion(),
+                String.join(", ", this.getDescription().getAuthors()),
+                rules.getMaxY(),
+                (rules.allowSpawnsBelowMinY() ? "<" : "") + rules.getMinY(),
+                rules.getBaseSpawnChance(Difficulty.EASY),
+                rules.getBaseSpawnChance(Difficulty.NORMAL),
+                rules.getBaseSpawnChance(Difficulty.HARD),
+                describeCurve(rules.getDistribution()));
+        this.aboutMessage = new AboutMessage(rules, text);
+        return text;
+    }
+
+    /**
+     * Sends the spawn chance at a player's current Y location to the player.
+     * Must be called from the thread which owns the player.
+     *
+     * @param player The player.
+     * @param rules  The spawn rules.
+     * @since 1.4.0
+     */
+    private void sendSpawnChanceAtCurrentY(final @NotNull Player player, final @NotNull SpawnRules rules) {
+        final Location location = player.getLocation();
+        final World world = location.getWorld();
+        final Biome biome = this.spawnEntityListener.getBiomeCache().getBiome(location, rules.getBiomeCacheSections());
+        final double spawnChance = rules.getProfile(world, biome).getSpawnChance(world.getDifficulty(), location.getBlockY())
+                * this.spawnEntityListener.getThrottle().getMultiplier();
+        player.sendMessage(I18n.tr("command.about.spawnChanceAtCurrentY", location.getBlockY(), this.chanceFormat.format(spawnChance)));
+    }
+
+    /**
+     * Toggles the spider danger HUD for a player.
+     * Must be called from the thread which owns the player.
+     *
+     * @param player The player.
+     * @since 1.4.0
+     */
+    private void toggleHud(final @NotNull Player player) {
+        player.sendMessage(I18n.tr(this.dangerHud.toggle(player) ? "command.hud.on" : "command.hud.off"));
+    }
+
+    /**
+     * Sends the effective spawn chance curve to a command sender, sampled at evenly spaced heights.
+     *
+     * @param sender    The command sender.
+     * @param worldName The world name, or {@code null} for the global curve.
+     * @param biomeName The biome name, or {@code null} for the world's curve before biome overrides apply.
+     * @since 1.4.0
+     */
+    private void sendCurve(final @NotNull CommandSender sender, final @Nullable String worldName, final @Nullable String biomeName) {
+        Biome biome = null;
+        if (biomeName != null) {
+            try {
+                biome = Biome.valueOf(biomeName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                sender.sendMessage(I18n.tr("command.curve.unknownBiome", biomeName));
+                return;
+            }
+        }
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final SpawnProfile profile = worldName == null ? rules.getDefaultProfile() : rules.getProfile(worldName, biome);
+        final String scope = worldName == null ? "*" : biome == null ? worldName : worldName + "/" + biome.name().toLowerCase(Locale.ROOT);
+        if (!profile.isEnabled()) {
+            sender.sendMessage(I18n.tr("command.curve.disabled", scope));
+            return;
+        }
+        final int maxY = profile.getMaxY();
+        final int minY = profile.allowSpawnsBelowMinY() ? SpawnRules.TABLE_MIN_Y : profile.getMinY();
+        sender.sendMessage(I18n.tr("command.curve", scope, describeCurve(profile.getDistribution()), minY, maxY));
+        final int step = Math.max(1, (maxY - minY + CURVE_SAMPLES - 2) / (CURVE_SAMPLES - 1));
+        for (int y = maxY; y > minY - step; y -= step) {
+            // Always finish on the lowest height, even if the range doesn't divide evenly.
+            final int sampleY = Math.max(y, minY);
+            sender.sendMessage(I18n.tr("command.curve.row", sampleY,
+                    this.chanceFormat.format(profile.getSpawnChance(Difficulty.EASY, sampleY)),
+                    this.chanceFormat.format(profile.getSpawnChance(Difficulty.NORMAL, sampleY)),
+                    this.chanceFormat.format(profile.getSpawnChance(Difficulty.HARD, sampleY))));
+        }
+    }
+
+    /**
+     * Describes a distribution curve for display. Preset names are lowercased; custom curves are shown as configured.
+     *
+     * @param curve The distribution curve.
+     * @return The description.
+     * @since 1.4.0
+     */
+    private static @NotNull String describeCurve(final @NotNull DistributionCurve curve) {
+        return curve instanceof final SpawnDistribution preset ? preset.name().toLowerCase(Locale.ROOT) : curve.toString();
+    }
+
+    /**
+     * Simulates spawns against the current rules off the main thread, and writes the expected replacement and jockey
+     * rates to a CSV file in the plugin data folder.
+     *
+     * @param sender The command sender.
+     * @param args   The command arguments: {@code simulate <samples> [world]}.
+     * @since 1.4.0
+     */
+    private void simulate(final @NotNull CommandSender sender, final @NotNull String[] args) {
+        final long samples;
+        try {
+            samples = args.length >= 2 ? Long.parseLong(args[1]) : 0L;
+        } catch (NumberFormatException ex) {
+            sender.sendMessage(I18n.tr("command.simulate.usage", MAX_SIMULATION_SAMPLES));
+            return;
+        }
+        if (samples < 1L || samples > MAX_SIMULATION_SAMPLES) {
+            sender.sendMessage(I18n.tr("command.simulate.usage", MAX_SIMULATION_SAMPLES));
+            return;
+        }
+        final String worldName;
+        if (args.length >= 3) {
+            worldName = args[2];
+        } else if (sender instanceof final Player player) {
+            worldName = player.getWorld().getName();
+        } else {
+            worldName = this.getServer().getWorlds().get(0).getName();
+        }
+        final World world = this.getServer().getWorld(worldName);
+        final World.Environment environment = world == null ? World.Environment.NORMAL : world.getEnvironment();
+        if (!this.simulationRunning.compareAndSet(false, true)) {
+            sender.sendMessage(I18n.tr("command.simulate.running"));
+            return;
+        }
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final double multiplier = this.spawnEntityListener.getThrottle().getMultiplier();
+        sender.sendMessage(I18n.tr("command.simulate.started", samples, worldName));
+        this.scheduler.runAsync(() -> {
+            try {
+                final SimulationResult result = new SpawnSimulator(rules, worldName, environment, multiplier).run(samples, System.nanoTime(), ForkJoinPool.commonPool());
+                final File folder = new File(this.getDataFolder(), "simulations");
+                final File file = new File(folder, "simulation-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date()) + ".csv");
+                try {
+                    Files.createDirectories(folder.toPath());
+                    try (final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                        result.writeCsv(writer);
+                    }
+                } catch (IOException ex) {
+                    this.getLogger().log(Level.WARNING, "Unable to write the simulation report to " + file, ex);
+                    this.scheduler.runGlobal(() -> sender.sendMessage(I18n.tr("command.simulate.failed")));
+                    return;
+                }
+                final double total = Math.max(1L, result.getSamples());
+                this.scheduler.runGlobal(() -> sender.sendMessage(I18n.tr("command.simulate",
+                        result.getSamples(),
+                        result.getReplacements(),
+                        this.rateFormat.format(result.getReplacements() * 100D / total) + "%",
+                        result.getJockeys(),
+                        this.rateFormat.format(result.getJockeys() * 100D / total) + "%",
+                        "simulations/" + file.getName())));
+            } finally {
+                this.simulationRunning.set(false);
+            }
+        });
+    }
+
+    /**
+     * Sends the spawn statistics to a command sender.
+     *
+     * @param sender The command sender.
+     * @param reset  Whether to reset the statistics after sending them.
+     * @since 1.4.0
+     */
+    private void sendStatistics(final @NotNull CommandSender sender, final boolean reset) {
+        if (!this.spawnEntityListener.getRules().isStatisticsEnabled()) {
+            sender.sendMessage(I18n.tr("command.stats.disabled"));
+            return;
+        }
+        final SpawnStatistics statistics = this.statistics;
+        sender.sendMessage(I18n.tr("command.stats",
+                new Date(statistics.getSince()),
+                statistics.getEvents(),
+                statistics.getCandidates(),
+                statistics.getReplacements(),
+                statistics.getJockeys(),
+                statistics.getLatencyPercentile(0.5D),
+                statistics.getLatencyPercentile(0.99D)));
+        for (final SpawnStatistics.Guard guard : SpawnStatistics.Guard.values()) {
+            final long filtered = statistics.getFiltered(guard);
+            final long evaluated = statistics.getEvaluated(guard);
+            if (evaluated > 0L) {
+                sender.sendMessage(I18n.tr("command.stats.stage", guard.key(), filtered, evaluated));
+            } else if (filtered > 0L) {
+                sender.sendMessage(I18n.tr("command.stats.filtered", guard.key(), filtered));
+            }
+        }
+        final SpawnQueue queue = this.spawnEntityListener.getQueue();
+        if (this.spawnEntityListener.getRules().isDeferredSpawns() || queue.getPeakSize() > 0) {
+            sender.sendMessage(I18n.tr("command.stats.queue", queue.size(), queue.getPeakSize(), statistics.getSpilled(), statistics.getDropped()));
+        }
+        final SpawnThrottle throttle = this.spawnEntityListener.getThrottle();
+        if (throttle.isEnabled()) {
+            sender.sendMessage(I18n.tr("command.stats.throttle",
+                    this.chanceFormat.format(throttle.getMultiplier()),
+                    this.msptFormat.format(throttle.getLastMspt()),
+                    throttle.getLastPopulation() < 0 ? "-" : throttle.getLastPopulation()));
+        }
+        final SpawnedEntityTracker tracker = this.spawnEntityListener.getTracker();
+        if (tracker.isEnabled() || tracker.getTracked() > 0) {
+            sender.sendMessage(I18n.tr("command.stats.culling", tracker.getTracked(), tracker.getCulledByDistance(), tracker.getCulledByLimit()));
+        }
+        final BiomeCache biomeCache = this.spawnEntityListener.getBiomeCache();
+        final long lookups = biomeCache.getHits() + biomeCache.getMisses();
+        if (lookups > 0L) {
+            sender.sendMessage(I18n.tr("command.stats.biomeCache",
+                    biomeCache.getHits(),
+                    biomeCache.getMisses(),
+                    this.chanceFormat.format(biomeCache.getHits() / (double) lookups),
+                    biomeCache.size()));
+        }
+        if (reset) {
+            statistics.reset();
+            queue.resetPeakSize();
+            biomeCache.resetCounters();
+            tracker.resetCounters();
+            sender.sendMessage(I18n.tr("command.stats.reset"));
+        }
+    }
+
+    /**
+     * Schedules the periodic statistics dump, replacing any previously scheduled dump.
+     *
+     * @param configuration The configuration instance.
+     * @since 1.4.0
+     */
+    private void scheduleStatisticsDump(final @NotNull Configuration configuration) {
+        if (this.statisticsDumpTask != null) {
+            this.statisticsDumpTask.cancel();
+            this.statisticsDumpTask = null;
+        }
+        final long interval = configuration.statistics.dumpInterval.value() * 60L * 20L;
+        if (configuration.statistics.enabled.value() && interval > 0L) {
+            this.statisticsDumpTask = this.scheduler.runAsyncTimer(
+                    new StatisticsDumpTask(this, this.statistics, configuration.statistics.dumpFormat.value(), configuration.statistics.maxDumps.value()), interval, interval);
+        }
+    }
+
+    /**
+     * Reloads the configuration file off the main thread, then publishes the configuration and the compiled spawn
+     * rules together on the global thread. Events handled while the reload is in progress keep using the previous
+     * rules, and the plugin's own configuration is never swapped off the main thread.
+     *
+     * @param sender The command sender which requested the reload.
+     * @since 1.4.0
+     */
+    private void reload(final @NotNull CommandSender sender) {
+        this.scheduler.runAsync(() -> {
+            synchronized (this.reloadLock) {
+                final Configuration configuration;
+                final SpawnRules rules;
+                try {
+                    configuration = new Configuration(this.withConfig(this.loadConfigFile()));
+                    rules = SpawnRules.compile(configuration);
+                } catch (IOException | InvalidConfigurationException | RuntimeException ex) {
+                    this.getLogger().log(Level.SEVERE, "Failed to reload the configuration; the previous configuration remains active.", ex);
+                    this.scheduler.runGlobal(() -> sender.sendMessage(I18n.tr("command.reload.failed")));
+                    return;
+                }
+                this.configureJournal(configuration);
+                // Scheduled under the lock, so that reloads are published in the order they were read.
+                this.scheduler.runGlobal(() -> {
+                    this.configuration = configuration;
+                    this.spawnEntityListener.setRules(rules);
+                    this.getLogger().setLevel(rules.isDebug() ? Level.ALL : null);
+                    this.spawnEntityListener.getLimiter().configure(rules);
+                    this.spawnEntityListener.getBiomeCache().clear();
+                    this.updateListenerRegistration(rules);
+                    if (!rules.isDeferredSpawns()) {
+                        // Spawns deferred under the previous rules would otherwise keep running, or never be released.
+                        this.spawnEntityListener.getQueue().clear();
+                    }
+                    this.scheduleStatisticsDump(configuration);
+                    this.configureHud(configuration);
+                    this.spawnEntityListener.getThrottle().configure(configuration.throttle);
+                    this.spawnEntityListener.getTracker().configure(configuration.culling);
+                    sender.sendMessage(I18n.tr("command.reload"));
+                });
+            }
+        });
+    }
+
+    /**
+     * Reads the configuration file into a standalone configuration, with the bundled configuration as its defaults.
+     *
+     * @return The configuration.
+     * @throws IOException                   Thrown if the file can't be read.
+     * @throws InvalidConfigurationException Thrown if the file isn't valid YAML.
+     * @since 1.4.0
+     */
+    private @NotNull YamlConfiguration loadConfigFile() throws IOException, InvalidConfigurationException {
+        final YamlConfiguration config = new YamlConfiguration();
+        config.load(new File(this.getDataFolder(), "config.yml"));
+        final InputStream defaults = this.getResource("config.yml");
+        if (defaults != null) {
+            try (final Reader reader = new InputStreamReader(defaults, StandardCharsets.UTF_8)) {
+                config.setDefaults(YamlConfiguration.loadConfiguration(reader));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Creates a view of this plugin which serves a standalone configuration, so that a reloaded configuration can be
+     * read without replacing the plugin's own.
+     *
+     * @param config The configuration.
+     * @return The plugin view.
+     * @since 1.4.0
+     */
+    private @NotNull Plugin withConfig(final @NotNull YamlConfiguration config) {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class}, (self, method, args) -> {
+            if ("getConfig".equals(method.getName()) && method.getParameterCount() == 0) {
+                return config;
+            }
+            try {
+                return method.invoke(this, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    /**
+     * Applies the spider danger HUD options.
+     *
+     * @param configuration The configuration instance.
+     * @since 1.4.0
+     */
+    private void configureHud(final @NotNull Configuration configuration) {
+        this.dangerHud.configure(configuration.hud.enabled.value(), configuration.hud.display.value(), configuration.hud.interval.value());
+    }
+
+    /**
+     * Closes the current spawn journal, and opens a new one if the configuration enables it. Every call starts a new
+     * journal segment.
+     *
+     * @param configuration The configuration instance, or {@code null} to stop recording.
+     * @since 1.4.0
+     */
+    private void configureJournal(final @Nullable Configuration configuration) {
+        final SpawnJournal previous = this.spawnEntityListener.getJournal();
+        SpawnJournal journal = null;
+        if (configuration != null && configuration.journal.enabled.value()) {
+            try {
+                journal = SpawnJournal.open(new File(this.getDataFolder(), "journal").toPath(),
+                        configuration.journal.segmentSize.value() * 1024L * 1024L,
+                        configuration.journal.maxSegments.value(),
+                        this.getLogger(),
+                        this.scheduler);
+            } catch (IOException ex) {
+                this.getLogger().log(Level.WARNING, "Failed to open the spawn journal; replacement decisions will not be recorded.", ex);
+            }
+        }
+        this.spawnEntityListener.setJournal(journal);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
     /**
      * Registers event listeners.
      *
      * @since 1.0-SNAPSHOT
-     * @param configuration The configuration instance.
+     * @param rules The compiled spawn rules.
      */
-    private void registerEvents(Configuration configuration) {
+    private void registerEvents(SpawnRules rules) {
         if (this.spawnEntityListener == null) {
-            this.spawnEntityListener = new SpawnEntityListener(this, configuration);
+            this.debugLog = new DebugLogBuffer(this.getLogger(), 1024);
+            this.scheduler.runAsyncTimer(this.debugLog::drain, 20L, 20L);
+            this.spawnEntityListener = new SpawnEntityListener(this, rules, this.debugLog, this.statistics, this.scheduler);
+            // Deferred spawns are drained every tick; the task does nothing while the queue is empty. Region-threaded
+            // servers run deferred spawns on their own regions instead.
+            if (!this.scheduler.isRegionThreaded()) {
+                this.scheduler.runGlobalTimer(this.spawnEntityListener::drainQueue, 1L, 1L);
+            }
+            this.updateListenerRegistration(rules);
+            // Unload events are handled apart from the spawn listener, which may be unregistered.
+            this.getServer().getPluginManager().registerEvents(new WorldStateListener(this.spawnEntityListener.getLimiter(), this.spawnEntityListener.getBiomeCache()), this);
+            this.dangerHud = new DangerHud(this, this.spawnEntityListener, this.scheduler, this.chanceFormat);
+            this.getServer().getPluginManager().registerEvents(this.dangerHud, this);
+            this.getServer().getPluginManager().registerEvents(this.spawnEntityListener.getTracker(), this);
+            this.getServer().getServicesManager().register(SpawnChanceService.class, new RulesSpawnChanceService(this.spawnEntityListener), this, ServicePriority.Normal);
+        }
+    }
+
+    /**
+     * Registers the spawn listener if the rules allow either replacements or jockeys, and unregisters it otherwise, so
+     * that the server doesn't call into the plugin for spawns it can never affect.
+     *
+     * @param rules The compiled spawn rules.
+     * @since 1.4.0
+     */
+    private void updateListenerRegistration(final @NotNull SpawnRules rules) {
+        final boolean required = rules.isReplacementEnabled() || rules.isJockeyEnabled();
+        if (required && !this.spawnEntityListenerRegistered) {
             final PluginManager pluginManager = this.getServer().getPluginManager();
             pluginManager.registerEvents(this.spawnEntityListener, this);
+            this.spawnEntityListenerRegistered = true;
+        } else if (!required && this.spawnEntityListenerRegistered) {
+            HandlerList.unregisterAll(this.spawnEntityListener);
+            this.spawnEntityListenerRegistered = false;
+            this.getLogger().info("Neither spawn replacement nor jockeys are possible with the current configuration; the spawn listener has been disabled.");
         }
     }
 
@@ -208,4 +764,15 @@ public final class DeepCaveSpiders extends JavaPlugin {
             deepCaveSpiders.setTabCompleter(this);
         }
     }
+
+    // The about message built from a rules snapshot.
+    private static final class AboutMessage {
+        private final @NotNull SpawnRules rules;
+        private final @NotNull String text;
+
+        private AboutMessage(final @NotNull SpawnRules rules, final @NotNull String text) {
+            this.rules = rules;
+            this.text = text;
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package dev.satyrn.deepcavespiders.api;
+
+import dev.satyrn.deepcavespiders.configuration.ReplacementRule;
+import dev.satyrn.deepcavespiders.configuration.SpawnProfile;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.listeners.SpawnEntityListener;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Answers spawn chance queries from the spawn listener's current rules.
+ * The rules are immutable and read through a volatile reference, so queries need no locking. Each query resolves the
+ * default rule and the world's profiles once, and then reads one table entry per element.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class RulesSpawnChanceService implements SpawnChanceService {
+    // The spawn listener, which holds the current rules.
+    private final @NotNull SpawnEntityListener spawnEntityListener;
+
+    /**
+     * Creates a new spawn chance service.
+     *
+     * @param spawnEntityListener The spawn listener.
+     */
+    public RulesSpawnChanceService(final @NotNull SpawnEntityListener spawnEntityListener) {
+        this.spawnEntityListener = spawnEntityListener;
+    }
+
+    @Override
+    public double getSpawnRateMultiplier() {
+        return this.spawnEntityListener.getThrottle().getMultiplier();
+    }
+
+    @Override
+    public double getSpawnChance(final @NotNull World world, final @NotNull Biome biome, final int y) {
+        return this.getSpawnChance(world, biome, world.getDifficulty(), y);
+    }
+
+    @Override
+    public double getSpawnChance(final @NotNull World world, final @NotNull Biome biome, final @NotNull Difficulty difficulty, final int y) {
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final ReplacementRule rule = getRule(rules, world);
+        return rule == null || !rule.isAllowedBiome(biome) ? 0D : rules.getProfile(world, biome).getSpawnChance(difficulty, y);
+    }
+
+    @Override
+    public void getSpawnChances(final @NotNull World[] worlds, final @NotNull Biome[] biomes, final int[] ys, final double[] out) throws IllegalArgumentException {
+        checkLength(worlds.length, biomes.length, out.length);
+        checkLength(worlds.length, ys.length, out.length);
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        // Positions usually come grouped by world, so the world's rule and profiles are only resolved when it changes.
+        World world = null;
+        ReplacementRule rule = null;
+        SpawnProfile[] profiles = null;
+        Difficulty difficulty = null;
+        for (int i = 0; i < out.length; ++i) {
+            if (worlds[i] != world) {
+                world = worlds[i];
+                rule = getRule(rules, world);
+                profiles = rule == null ? null : rules.getProfiles(world);
+                difficulty = world.getDifficulty();
+            }
+            final Biome biome = biomes[i];
+            out[i] = rule == null || !rule.isAllowedBiome(biome) ? 0D : profiles[biome.ordinal()].getSpawnChance(difficulty, ys[i]);
+        }
+    }
+
+    @Override
+    public void getSpawnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final int[] ys, final int offset, final int length, final double[] out, final int outOffset) throws IndexOutOfBoundsException {
+        Objects.checkFromIndexSize(offset, length, biomes.length);
+        Objects.checkFromIndexSize(offset, length, ys.length);
+        Objects.checkFromIndexSize(outOffset, length, out.length);
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final ReplacementRule rule = getRule(rules, world);
+        if (rule == null) {
+            Arrays.fill(out, outOffset, outOffset + length, 0D);
+            return;
+        }
+        final SpawnProfile[] profiles = rules.getProfiles(world);
+        for (int i = 0; i < length; ++i) {
+            final Biome biome = biomes[offset + i];
+            out[outOffset + i] = rule.isAllowedBiome(biome) ? profiles[biome.ordinal()].getSpawnChance(difficulty, ys[offset + i]) : 0D;
+        }
+    }
+
+    @Override
+    public void getLayerChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final int y, final double[] out) throws IllegalArgumentException {
+        checkLength(biomes.length, out.length, out.length);
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final ReplacementRule rule = getRule(rules, world);
+        if (rule == null) {
+            Arrays.fill(out, 0D);
+            return;
+        }
+        final SpawnProfile[] profiles = rules.getProfiles(world);
+        for (int i = 0; i < out.length; ++i) {
+            final Biome biome = biomes[i];
+            out[i] = rule.isAllowedBiome(biome) ? profiles[biome.ordinal()].getSpawnChance(difficulty, y) : 0D;
+        }
+    }
+
+    @Override
+    public void getColumnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome biome, final int minY, final double[] out) {
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final ReplacementRule rule = getRule(rules, world);
+        if (rule == null || !rule.isAllowedBiome(biome)) {
+            Arrays.fill(out, 0D);
+            return;
+        }
+        final SpawnProfile profile = rules.getProfile(world, biome);
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = profile.getSpawnChance(difficulty, minY + i);
+        }
+    }
+
+    @Override
+    public void getMaxSpawnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final double[] out) throws IllegalArgumentException {
+        checkLength(biomes.length, out.length, out.length);
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        final ReplacementRule rule = getRule(rules, world);
+        if (rule == null) {
+            Arrays.fill(out, 0D);
+            return;
+        }
+        final SpawnProfile[] profiles = rules.getProfiles(world);
+        for (int i = 0; i < out.length; ++i) {
+            final Biome biome = biomes[i];
+            out[i] = rule.isAllowedBiome(biome) ? profiles[biome.ordinal()].getMaxSpawnChance(difficulty) : 0D;
+        }
+    }
+
+    /**
+     * Gets the default rule, if it applies in a world.
+     *
+     * @param rules The spawn rules.
+     * @param world The world.
+     * @return The default rule, or {@code null} if cave spider replacement is disabled or not allowed in the world's
+     * environment.
+     */
+    private static @Nullable ReplacementRule getRule(final @NotNull SpawnRules rules, final @NotNull World world) {
+        final ReplacementRule rule = rules.getDefaultRule();
+        return rule != null && rule.isAllowedEnvironment(world.getEnvironment()) ? rule : null;
+    }
+
+    /**
+     * Checks that an input array and the output array have the same length.
+     *
+     * @param inputLength  The length of one input array.
+     * @param otherLength  The length of another input array.
+     * @param outputLength The length of the output array.
+     * @throws IllegalArgumentException Thrown if the lengths differ.
+     */
+    private static void checkLength(final int inputLength, final int otherLength, final int outputLength) throws IllegalArgumentException {
+        if (inputLength != outputLength || otherLength != outputLength) {
+            throw new IllegalArgumentException("Expected arrays of length " + outputLength + ", but got " + inputLength + " and " + otherLength);
+        }
+    }
+}
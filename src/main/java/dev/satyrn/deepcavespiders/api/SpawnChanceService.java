@@ -0,0 +1,120 @@
+package dev.satyrn.deepcavespiders.api;
+
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Answers spawn chance queries for other plugins, such as map renderers which draw a cave spider danger overlay.
+ * Obtain it from the services manager:
+ * <pre>
+ * SpawnChanceService service = Bukkit.getServicesManager().load(SpawnChanceService.class);
+ * </pre>
+ * A spawn chance is the chance that a natural spawn of a replaceable mob at a position is replaced with a cave spider
+ * by the default rule. It is zero where the environment or biome isn't allowed, outside the spawn range, and when
+ * cave spider replacement is disabled. World and biome overrides apply. Chances are as configured, before the spawn
+ * throttle scales them; multiply by {@link #getSpawnRateMultiplier()} for the chance in effect right now.
+ * <p>
+ * Every method is safe to call from any thread. Each call reads the rules in effect when it starts, so a batch is
+ * never split across a configuration reload. Batch methods read precomputed tables and allocate nothing per element.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public interface SpawnChanceService {
+    /**
+     * Gets the multiplier which the spawn throttle currently applies to spawn chances.
+     *
+     * @return The multiplier, between zero and one. Always one while the throttle is disabled.
+     */
+    double getSpawnRateMultiplier();
+
+    /**
+     * Gets the spawn chance at a position, at the world's current difficulty.
+     *
+     * @param world The world.
+     * @param biome The biome.
+     * @param y     The block Y value.
+     * @return The spawn chance, between zero and one.
+     */
+    double getSpawnChance(final @NotNull World world, final @NotNull Biome biome, final int y);
+
+    /**
+     * Gets the spawn chance at a position.
+     *
+     * @param world      The world.
+     * @param biome      The biome.
+     * @param difficulty The difficulty.
+     * @param y          The block Y value.
+     * @return The spawn chance, between zero and one.
+     */
+    double getSpawnChance(final @NotNull World world, final @NotNull Biome biome, final @NotNull Difficulty difficulty, final int y);
+
+    /**
+     * Gets the spawn chances at many positions across worlds, each at its world's current difficulty.
+     * Sets {@code out[i]} to the chance for {@code worlds[i]}, {@code biomes[i]} and {@code ys[i]}.
+     *
+     * @param worlds The world of each position.
+     * @param biomes The biome of each position.
+     * @param ys     The block Y value of each position.
+     * @param out    Receives the spawn chances.
+     * @throws IllegalArgumentException Thrown if the arrays differ in length.
+     */
+    void getSpawnChances(final @NotNull World[] worlds, final @NotNull Biome[] biomes, final int[] ys, final double[] out) throws IllegalArgumentException;
+
+    /**
+     * Gets the spawn chances at many positions in one world.
+     * Sets {@code out[outOffset + i]} to the chance for {@code biomes[offset + i]} and {@code ys[offset + i]}, for
+     * each {@code i} below {@code length}.
+     *
+     * @param world      The world.
+     * @param difficulty The difficulty.
+     * @param biomes     The biome of each position.
+     * @param ys         The block Y value of each position.
+     * @param offset     The index of the first position.
+     * @param length     The number of positions.
+     * @param out        Receives the spawn chances.
+     * @param outOffset  The index in {@code out} of the first chance.
+     * @throws IndexOutOfBoundsException Thrown if a range falls outside its array.
+     */
+    void getSpawnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final int[] ys, final int offset, final int length, final double[] out, final int outOffset) throws IndexOutOfBoundsException;
+
+    /**
+     * Gets the spawn chances across a horizontal layer, such as one map tile at a fixed height.
+     * Sets {@code out[i]} to the chance for {@code biomes[i]} at the given height.
+     *
+     * @param world      The world.
+     * @param difficulty The difficulty.
+     * @param biomes     The biome of each column.
+     * @param y          The block Y value of the layer.
+     * @param out        Receives the spawn chances.
+     * @throws IllegalArgumentException Thrown if the arrays differ in length.
+     */
+    void getLayerChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final int y, final double[] out) throws IllegalArgumentException;
+
+    /**
+     * Gets the spawn chances down a column, from a height upwards.
+     * Sets {@code out[i]} to the chance at block Y value {@code minY + i}.
+     *
+     * @param world      The world.
+     * @param difficulty The difficulty.
+     * @param biome      The biome.
+     * @param minY       The block Y value of the first height.
+     * @param out        Receives the spawn chances.
+     */
+    void getColumnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome biome, final int minY, final double[] out);
+
+    /**
+     * Gets the highest spawn chance at any height, for each of many columns. This is the usual value for a danger
+     * overlay which doesn't follow a single height.
+     * Sets {@code out[i]} to the highest chance for {@code biomes[i]}.
+     *
+     * @param world      The world.
+     * @param difficulty The difficulty.
+     * @param biomes     The biome of each column.
+     * @param out        Receives the spawn chances.
+     * @throws IllegalArgumentException Thrown if the arrays differ in length.
+     */
+    void getMaxSpawnChances(final @NotNull World world, final @NotNull Difficulty difficulty, final @NotNull Biome[] biomes, final double[] out) throws IllegalArgumentException;
+}
@@ -1,18 +1,30 @@
 package dev.satyrn.deepcavespiders.configuration;
 
 import dev.satyrn.deepcavespiders.DeepCaveSpiders;
+import dev.satyrn.deepcavespiders.hud.HudDisplay;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.statistics.StatisticsFormat;
+import dev.satyrn.deepcavespiders.util.DistributionCurve;
+import dev.satyrn.deepcavespiders.util.ExpressionCurve;
+import dev.satyrn.deepcavespiders.util.PiecewiseCurve;
 import dev.satyrn.deepcavespiders.util.SpawnDistribution;
 import dev.satyrn.papermc.api.configuration.v1.*;
 import dev.satyrn.papermc.api.configuration.v2.EnumListNode;
 import org.bukkit.Difficulty;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.EntityType;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -32,6 +44,16 @@ public final class Configuration extends ConfigurationContainer {
      */
     public final transient SpawnOptionsContainer spawnOptions = new SpawnOptionsContainer(this);
 
+    /**
+     * Per-world and per-biome overrides of the spawn range, distribution and chances.
+     */
+    public final transient OverridesContainer overrides = new OverridesContainer(this);
+
+    /**
+     * Additional replacement rules.
+     */
+    public final transient ReplacementsContainer replacements = new ReplacementsContainer(this);
+
     /**
      * List of biomes in which cave spiders should be allowed to spawn.
      */
@@ -63,6 +85,36 @@ public final class Configuration extends ConfigurationContainer {
         }
     };
 
+    /**
+     * The spawn statistics options.
+     */
+    public final transient StatisticsContainer statistics = new StatisticsContainer(this);
+
+    /**
+     * The spider danger HUD options.
+     */
+    public final transient HudContainer hud = new HudContainer(this);
+
+    /**
+     * The spawn journal options.
+     */
+    public final transient JournalContainer journal = new JournalContainer(this);
+
+    /**
+     * The spawn throttle options.
+     */
+    public final transient ThrottleContainer throttle = new ThrottleContainer(this);
+
+    /**
+     * The spawned mob culling options.
+     */
+    public final transient CullingContainer culling = new CullingContainer(this);
+
+    /**
+     * Whether spawn rolls should be derived from the world seed, position and time, so that they can be reproduced.
+     */
+    public final @NotNull BooleanNode deterministicRandom = new BooleanNode(this, "deterministicRandom");
+
     /**
      * Whether to enable debug logging.
      */
@@ -84,93 +136,1015 @@ public final class Configuration extends ConfigurationContainer {
     }
 
     /**
-     * Container with spawning options.
+     * Container with spawn statistics options.
      *
      * @author Isabel Maskrey
-     * @since 1.0-SNAPSHOT
+     * @since 1.4.0
      */
-    public static class SpawnOptionsContainer extends ConfigurationContainer {
+    public static class StatisticsContainer extends ConfigurationContainer {
         /**
-         * Spawn range configuration options.
+         * Whether spawn statistics are collected.
          */
-        public final transient SpawnRangeContainer range = new SpawnRangeContainer(this);
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled") {
+            @Override
+            public @NotNull Boolean defaultValue() {
+                return true;
+            }
+        };
 
         /**
-         * Controls the function which determines the percentage of spiders spawning at a given depth.
+         * How often the statistics are written to the plugin data folder, in minutes. Zero disables the dumps.
          */
-        public final transient EnumNode<SpawnDistribution> distribution = new EnumNode<>(this, "distribution") {
+        public final transient IntegerNode dumpInterval = new IntegerNode(this, "dumpInterval", 0, 10080) {
             @Override
-            protected @NotNull SpawnDistribution parse(@NotNull String value) throws IllegalArgumentException {
-                return SpawnDistribution.valueOf(value.toUpperCase());
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * The file format of the statistics dumps.
+         */
+        public final transient EnumNode<StatisticsFormat> dumpFormat = new EnumNode<>(this, "dumpFormat") {
+            @Override
+            protected @NotNull StatisticsFormat parse(@NotNull String value) throws IllegalArgumentException {
+                return StatisticsFormat.valueOf(value.toUpperCase(Locale.ROOT));
             }
 
             @Override
-            protected @NotNull SpawnDistribution getDefault() {
-                return SpawnDistribution.CONSTANT;
+            protected @NotNull StatisticsFormat getDefault() {
+                return StatisticsFormat.CSV;
             }
         };
 
         /**
-         * Spawn chances configuration options.
+         * How many statistics files to keep. The oldest files are deleted after each dump.
          */
-        public final transient SpawnChancesContainer chances = new SpawnChancesContainer(this);
+        public final transient IntegerNode maxDumps = new IntegerNode(this, "maxDumps", 1, 10000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 24;
+            }
+        };
 
         /**
-         * Chance that a cave spider will spawn a jockey.
+         * Creates a new statistics container.
+         *
+         * @param parent The container's parent.
          */
-        public final transient DoubleNode jockeyChance = new DoubleNode(this, "jockeyChance", 0D, 1D);
+        StatisticsContainer(ConfigurationContainer parent) {
+            super(parent, "statistics");
+        }
+    }
 
+    /**
+     * Container with spider danger HUD options.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class HudContainer extends ConfigurationContainer {
         /**
-         * Creates a new instance of the spawn options container.
+         * Whether players may turn on the spider danger HUD.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled") {
+            @Override
+            public @NotNull Boolean defaultValue() {
+                return true;
+            }
+        };
+
+        /**
+         * Where the spider danger indicator is shown.
+         */
+        public final transient EnumNode<HudDisplay> display = new EnumNode<>(this, "display") {
+            @Override
+            protected @NotNull HudDisplay parse(@NotNull String value) throws IllegalArgumentException {
+                return HudDisplay.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+
+            @Override
+            protected @NotNull HudDisplay getDefault() {
+                return HudDisplay.ACTION_BAR;
+            }
+        };
+
+        /**
+         * How often the indicator is refreshed, in ticks.
+         */
+        public final transient IntegerNode interval = new IntegerNode(this, "interval", 5, 200) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 20;
+            }
+        };
+
+        /**
+         * Creates a new HUD container.
          *
-         * @param parent The parent configuration container.
+         * @param parent The container's parent.
          */
-        SpawnOptionsContainer(final ConfigurationContainer parent) {
-            super(parent, "spawnOptions");
+        HudContainer(ConfigurationContainer parent) {
+            super(parent, "hud");
         }
     }
 
     /**
-     * Container with spawning height range options.
+     * Container with spawn journal options.
      *
      * @author Isabel Maskrey
-     * @since 1.0-SNAPSHOT
+     * @since 1.4.0
      */
-    public static class SpawnRangeContainer extends ConfigurationContainer {
+    public static class JournalContainer extends ConfigurationContainer {
         /**
-         * The minimum Y value to spawn at.
+         * Whether replacement decisions are written to the spawn journal.
          */
-        public final transient IntegerNode minY = new IntegerNode(this, "minY", -64, 320) {
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled");
+
+        /**
+         * The size of each journal segment file, in megabytes.
+         */
+        public final transient IntegerNode segmentSize = new IntegerNode(this, "segmentSize", 1, 1024) {
             @Override
             public @NotNull Integer defaultValue() {
-                return -64;
+                return 64;
             }
         };
 
         /**
-         * The maximum Y value to spawn at.
+         * The number of journal segment files to keep before the oldest is deleted.
          */
-        public final transient IntegerNode maxY = new IntegerNode(this, "maxY", -64, 320) {
+        public final transient IntegerNode maxSegments = new IntegerNode(this, "maxSegments", 1, 10000) {
             @Override
             public @NotNull Integer defaultValue() {
-                return -8;
+                return 30;
             }
         };
 
         /**
-         * Allows spiders to spawn below the minimum Y value.
-         * This is useful for customizing the ramp function; spawns below the minimum Y value will always use the
-         * maximum spawn chance set in the configuration file.
+         * Creates a new journal container.
+         *
+         * @param parent The container's parent.
          */
-        public final transient BooleanNode allowSpawnsBelowMinY = new BooleanNode(this, "allowSpawnsBelowMinY");
+        JournalContainer(ConfigurationContainer parent) {
+            super(parent, "journal");
+        }
+    }
+
+    /**
+     * Container with spawn throttle options.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class ThrottleContainer extends ConfigurationContainer {
+        /**
+         * Whether replacement and jockey chances are scaled down while the server is under load.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled");
 
         /**
-         * Creates a new spawn range configuration container.
+         * How often the server is sampled, in ticks.
+         */
+        public final transient IntegerNode interval = new IntegerNode(this, "interval", 20, 6000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 100;
+            }
+        };
+
+        /**
+         * The average tick time above which chances are scaled down, in milliseconds.
+         */
+        public final transient DoubleNode msptThreshold = new DoubleNode(this, "msptThreshold", 1D, 1000D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 40D;
+            }
+        };
+
+        /**
+         * The average tick time at which chances reach the minimum multiplier, in milliseconds.
+         */
+        public final transient DoubleNode msptLimit = new DoubleNode(this, "msptLimit", 1D, 1000D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 50D;
+            }
+        };
+
+        /**
+         * The number of cave spiders above which chances are scaled down.
+         */
+        public final transient IntegerNode populationThreshold = new IntegerNode(this, "populationThreshold", 0, 1000000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * The number of cave spiders at which chances reach the minimum multiplier. Zero disables the population check.
+         */
+        public final transient IntegerNode populationLimit = new IntegerNode(this, "populationLimit", 0, 1000000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * The lowest multiplier applied to replacement and jockey chances.
+         */
+        public final transient DoubleNode minMultiplier = new DoubleNode(this, "minMultiplier", 0D, 1D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 0.25D;
+            }
+        };
+
+        /**
+         * How far the multiplier moves towards its target on each sample.
+         */
+        public final transient DoubleNode smoothing = new DoubleNode(this, "smoothing", 0.01D, 1D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 0.3D;
+            }
+        };
+
+        /**
+         * Creates a new throttle container.
          *
          * @param parent The container's parent.
          */
-        SpawnRangeContainer(ConfigurationContainer parent) {
-            super(parent, "range");
+        ThrottleContainer(ConfigurationContainer parent) {
+            super(parent, "throttle");
+        }
+    }
+
+    /**
+     * Container with spawned mob culling options.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class CullingContainer extends ConfigurationContainer {
+        /**
+         * Whether mobs spawned by the plugin are culled.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled");
+
+        /**
+         * How often tracked mobs are swept, in ticks.
+         */
+        public final transient IntegerNode interval = new IntegerNode(this, "interval", 20, 6000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 200;
+            }
+        };
+
+        /**
+         * The time budget for each sweep, in microseconds.
+         */
+        public final transient IntegerNode sweepBudget = new IntegerNode(this, "sweepBudget", 50, 50000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 1000;
+            }
+        };
+
+        /**
+         * The distance to the nearest player beyond which tracked mobs are culled, in blocks. Zero disables the check.
+         */
+        public final transient IntegerNode despawnDistance = new IntegerNode(this, "despawnDistance", 0, 512) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 64;
+            }
+        };
+
+        /**
+         * The number of tracked mobs a chunk may hold before the rest are culled. Zero disables the limit.
+         */
+        public final transient IntegerNode maxPerChunk = new IntegerNode(this, "maxPerChunk", 0, 1000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * Creates a new culling container.
+         *
+         * @param parent The container's parent.
+         */
+        CullingContainer(ConfigurationContainer parent) {
+            super(parent, "culling");
+        }
+    }
+
+    /**
+     * Container with spawning options.
+     *
+     * @author Isabel Maskrey
+     * @since 1.0-SNAPSHOT
+     */
+    public static class SpawnOptionsContainer extends ConfigurationContainer {
+        /**
+         * Spawn range configuration options.
+         */
+        public final transient SpawnRangeContainer range = new SpawnRangeContainer(this);
+
+        /**
+         * Controls the function which determines the percentage of spiders spawning at a given depth.
+         */
+        public final transient EnumNode<SpawnDistribution> distribution = new EnumNode<>(this, "distribution") {
+            @Override
+            protected @NotNull SpawnDistribution parse(@NotNull String value) throws IllegalArgumentException {
+                return SpawnDistribution.valueOf(value.toUpperCase());
+            }
+
+            @Override
+            protected @NotNull SpawnDistribution getDefault() {
+                return SpawnDistribution.CONSTANT;
+            }
+        };
+
+        /**
+         * Custom distribution curve options. Takes precedence over the distribution preset when set.
+         */
+        public final transient CurveContainer curve = new CurveContainer(this);
+
+        /**
+         * Spawn chances configuration options.
+         */
+        public final transient SpawnChancesContainer chances = new SpawnChancesContainer(this);
+
+        /**
+         * Chance that a cave spider will spawn a jockey.
+         */
+        public final transient DoubleNode jockeyChance = new DoubleNode(this, "jockeyChance", 0D, 1D);
+
+        /**
+         * The order in which the replacement checks are evaluated.
+         */
+        public final transient EnumListNode<SpawnStatistics.Guard> guardOrder = new EnumListNode<>(this, "guardOrder") {
+            @Override
+            protected @NotNull SpawnStatistics.Guard parse(@NotNull String value) throws IllegalArgumentException {
+                return SpawnStatistics.Guard.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+        };
+
+        /**
+         * Deferred spawning configuration options.
+         */
+        public final transient DeferredSpawnsContainer deferred = new DeferredSpawnsContainer(this);
+
+        /**
+         * Biome cache configuration options.
+         */
+        public final transient BiomeCacheContainer biomeCache = new BiomeCacheContainer(this);
+
+        /**
+         * Spawn limit configuration options.
+         */
+        public final transient SpawnLimitsContainer limits = new SpawnLimitsContainer(this);
+
+        /**
+         * Creates a new instance of the spawn options container.
+         *
+         * @param parent The parent configuration container.
+         */
+        SpawnOptionsContainer(final ConfigurationContainer parent) {
+            super(parent, "spawnOptions");
+        }
+    }
+
+    /**
+     * Container with the per-world and per-biome overrides.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class OverridesContainer extends ConfigurationContainer {
+        /**
+         * Creates a new overrides container.
+         *
+         * @param parent The container's parent.
+         */
+        OverridesContainer(ConfigurationContainer parent) {
+            super(parent, "overrides");
+        }
+
+        /**
+         * Gets the overrides for each world, keyed by world name.
+         *
+         * @return The world overrides.
+         */
+        public @NotNull Map<String, OverrideContainer> worlds() {
+            return children(this, this.getPlugin().getConfig().getConfigurationSection("overrides"), "worlds");
+        }
+
+        /**
+         * Gets the overrides for each biome, which apply in every world.
+         *
+         * @return The biome overrides.
+         */
+        public @NotNull Map<Biome, OverrideContainer> biomes() {
+            return biomeChildren(this, this.getPlugin().getConfig().getConfigurationSection("overrides"));
+        }
+    }
+
+    /**
+     * Container with a single world or biome override. Values which are not set are inherited.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class OverrideContainer extends ConfigurationContainer {
+        // The keys which can be overridden.
+        private static final String[] KEYS = {"enabled", "range.minY", "range.maxY", "range.allowSpawnsBelowMinY", "distribution", "curve.expression", "curve.points", "chances.easy", "chances.normal", "chances.hard"};
+
+        /**
+         * Whether cave spiders may replace spawns at all.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled") {
+            @Override
+            public @NotNull Boolean defaultValue() {
+                return true;
+            }
+        };
+
+        /**
+         * Spawn range overrides.
+         */
+        public final transient SpawnRangeContainer range = new SpawnRangeContainer(this);
+
+        /**
+         * Spawn distribution override.
+         */
+        public final transient EnumNode<SpawnDistribution> distribution = new EnumNode<>(this, "distribution") {
+            @Override
+            protected @NotNull SpawnDistribution parse(@NotNull String value) throws IllegalArgumentException {
+                return SpawnDistribution.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+
+            @Override
+            protected @NotNull SpawnDistribution getDefault() {
+                return SpawnDistribution.CONSTANT;
+            }
+        };
+
+        /**
+         * Custom distribution curve override.
+         */
+        public final transient CurveContainer curve = new CurveContainer(this);
+
+        /**
+         * Spawn chance overrides.
+         */
+        public final transient SpawnChancesContainer chances = new SpawnChancesContainer(this);
+
+        // The raw configuration section, used to tell set values from defaults.
+        private final transient @NotNull ConfigurationSection section;
+
+        /**
+         * Creates a new override container.
+         *
+         * @param parent  The container's parent.
+         * @param name    The world or biome name.
+         * @param section The raw configuration section.
+         */
+        OverrideContainer(ConfigurationContainer parent, String name, @NotNull ConfigurationSection section) {
+            super(parent, name);
+            this.section = section;
+        }
+
+        /**
+         * Checks whether a value is set by this override.
+         *
+         * @param path The path of the value, relative to the override.
+         * @return {@code true} if the value is set; otherwise, {@code false}.
+         */
+        public boolean isSet(final @NotNull String path) {
+            return this.section.isSet(path);
+        }
+
+        /**
+         * Checks whether this override leaves every value unset.
+         *
+         * @return {@code true} if nothing is overridden; otherwise, {@code false}.
+         */
+        public boolean isEmpty() {
+            for (final String key : KEYS) {
+                if (this.section.isSet(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the biome overrides nested in this override. Only meaningful for world overrides.
+         *
+         * @return The biome overrides.
+         */
+        public @NotNull Map<Biome, OverrideContainer> biomes() {
+            return biomeChildren(this, this.section);
+        }
+    }
+
+    /**
+     * Container with the additional replacement rules.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class ReplacementsContainer extends ConfigurationContainer {
+        /**
+         * Creates a new replacements container.
+         *
+         * @param parent The container's parent.
+         */
+        ReplacementsContainer(ConfigurationContainer parent) {
+            super(parent, "replacements");
+        }
+
+        /**
+         * Gets the replacement rules, keyed by rule name, in the order they are configured.
+         *
+         * @return The replacement rules.
+         */
+        public @NotNull Map<String, ReplacementContainer> rules() {
+            final ConfigurationSection section = this.getPlugin().getConfig().getConfigurationSection("replacements");
+            if (section == null) {
+                return Collections.emptyMap();
+            }
+            final Map<String, ReplacementContainer> rules = new LinkedHashMap<>();
+            for (final String key : section.getKeys(false)) {
+                final ConfigurationSection child = section.getConfigurationSection(key);
+                if (child != null) {
+                    rules.put(key, new ReplacementContainer(this, key, child));
+                }
+            }
+            return rules;
+        }
+    }
+
+    /**
+     * Container with a single replacement rule, which replaces natural spawns of its source types with one of its
+     * target types.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class ReplacementContainer extends ConfigurationContainer {
+        /**
+         * Whether the rule is applied.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled") {
+            @Override
+            public @NotNull Boolean defaultValue() {
+                return true;
+            }
+        };
+
+        /**
+         * The entity types whose natural spawns may be replaced.
+         */
+        public final transient EnumListNode<EntityType> sources = new EnumListNode<>(this, "sources") {
+            @Override
+            protected @NotNull EntityType parse(@NotNull String value) throws IllegalArgumentException {
+                return EntityType.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+        };
+
+        /**
+         * The biomes in which the rule applies. Applies in every biome if empty.
+         */
+        public final transient EnumListNode<Biome> biomes = new EnumListNode<>(this, "biomes") {
+            @Override
+            protected @NotNull Biome parse(@NotNull String value) throws IllegalArgumentException {
+                return Biome.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+        };
+
+        /**
+         * The environments in which the rule applies. Applies in every environment if empty.
+         */
+        public final transient EnumListNode<World.Environment> environments = new EnumListNode<>(this, "environments") {
+            @Override
+            protected @NotNull World.Environment parse(@NotNull String value) throws IllegalArgumentException {
+                return World.Environment.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+        };
+
+        /**
+         * The spawn range.
+         */
+        public final transient SpawnRangeContainer range = new SpawnRangeContainer(this);
+
+        /**
+         * The spawn distribution.
+         */
+        public final transient EnumNode<SpawnDistribution> distribution = new EnumNode<>(this, "distribution") {
+            @Override
+            protected @NotNull SpawnDistribution parse(@NotNull String value) throws IllegalArgumentException {
+                return SpawnDistribution.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+
+            @Override
+            protected @NotNull SpawnDistribution getDefault() {
+                return SpawnDistribution.CONSTANT;
+            }
+        };
+
+        /**
+         * A custom distribution curve, which takes precedence over the distribution.
+         */
+        public final transient CurveContainer curve = new CurveContainer(this);
+
+        /**
+         * The replacement chances.
+         */
+        public final transient SpawnChancesContainer chances = new SpawnChancesContainer(this);
+
+        /**
+         * The optional rider.
+         */
+        public final transient RiderContainer rider = new RiderContainer(this);
+
+        // The raw configuration section, used to read the target weights.
+        private final transient @NotNull ConfigurationSection section;
+
+        /**
+         * Creates a new replacement rule container.
+         *
+         * @param parent  The container's parent.
+         * @param name    The rule name.
+         * @param section The raw configuration section.
+         */
+        ReplacementContainer(ConfigurationContainer parent, String name, @NotNull ConfigurationSection section) {
+            super(parent, name);
+            this.section = section;
+        }
+
+        /**
+         * Gets the target entity types and their weights. Targets may be given as a map of types to weights, or as a
+         * list of types with equal weights. Unknown types are skipped.
+         *
+         * @return The target weights.
+         */
+        public @NotNull Map<EntityType, Double> targets() {
+            final Map<EntityType, Double> targets = new EnumMap<>(EntityType.class);
+            final ConfigurationSection weights = this.section.getConfigurationSection("targets");
+            if (weights != null) {
+                for (final String key : weights.getKeys(false)) {
+                    this.putTarget(targets, key, weights.getDouble(key));
+                }
+            } else {
+                for (final String key : this.section.getStringList("targets")) {
+                    this.putTarget(targets, key, 1D);
+                }
+            }
+            return targets;
+        }
+
+        // Adds a target, warning about unknown types.
+        private void putTarget(final @NotNull Map<EntityType, Double> targets, final @NotNull String key, final double weight) {
+            try {
+                targets.put(EntityType.valueOf(key.toUpperCase(Locale.ROOT)), weight);
+            } catch (IllegalArgumentException ex) {
+                this.getPlugin().getLogger().log(Level.WARNING, "Ignoring unknown target {0} in replacement rule {1}.", new Object[]{key, this.section.getName()});
+            }
+        }
+    }
+
+    /**
+     * Container with the rider which may be mounted on a replacement.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class RiderContainer extends ConfigurationContainer {
+        /**
+         * The rider entity type, or UNKNOWN for no rider.
+         */
+        public final transient EnumNode<EntityType> type = new EnumNode<>(this, "type") {
+            @Override
+            protected @NotNull EntityType parse(@NotNull String value) throws IllegalArgumentException {
+                return EntityType.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+
+            @Override
+            protected @NotNull EntityType getDefault() {
+                return EntityType.UNKNOWN;
+            }
+        };
+
+        /**
+         * The chance that a replacement gets a rider.
+         */
+        public final transient DoubleNode chance = new DoubleNode(this, "chance", 0D, 1D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 1D;
+            }
+        };
+
+        /**
+         * Whether the rider spawns as a baby, if it can.
+         */
+        public final transient BooleanNode baby = new BooleanNode(this, "baby");
+
+        /**
+         * Creates a new rider container.
+         *
+         * @param parent The container's parent.
+         */
+        RiderContainer(ConfigurationContainer parent) {
+            super(parent, "rider");
+        }
+    }
+
+    /**
+     * Container which groups overrides by world or biome.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    private static class OverrideGroupContainer extends ConfigurationContainer {
+        OverrideGroupContainer(ConfigurationContainer parent, String name) {
+            super(parent, name);
+        }
+    }
+
+    // Creates an override container for each subsection of a section.
+    private static @NotNull Map<String, OverrideContainer> children(final @NotNull ConfigurationContainer parent, final ConfigurationSection parentSection, final @NotNull String name) {
+        final ConfigurationSection section = parentSection == null ? null : parentSection.getConfigurationSection(name);
+        if (section == null) {
+            return Collections.emptyMap();
+        }
+        final ConfigurationContainer group = new OverrideGroupContainer(parent, name);
+        final Map<String, OverrideContainer> children = new LinkedHashMap<>();
+        for (final String key : section.getKeys(false)) {
+            final ConfigurationSection child = section.getConfigurationSection(key);
+            if (child != null) {
+                children.put(key, new OverrideContainer(group, key, child));
+            }
+        }
+        return children;
+    }
+
+    // Creates an override container for each biome subsection of a section, skipping unknown biomes.
+    private static @NotNull Map<Biome, OverrideContainer> biomeChildren(final @NotNull ConfigurationContainer parent, final ConfigurationSection parentSection) {
+        final Map<Biome, OverrideContainer> biomes = new EnumMap<>(Biome.class);
+        for (final Map.Entry<String, OverrideContainer> entry : children(parent, parentSection, "biomes").entrySet()) {
+            try {
+                biomes.put(Biome.valueOf(entry.getKey().toUpperCase(Locale.ROOT)), entry.getValue());
+            } catch (IllegalArgumentException ex) {
+                parent.getPlugin().getLogger().log(Level.WARNING, "Ignoring overrides for unknown biome {0}.", entry.getKey());
+            }
+        }
+        return biomes;
+    }
+
+    /**
+     * Container with a custom distribution curve, given either as an expression or as a list of points.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class CurveContainer extends ConfigurationContainer {
+        /**
+         * An expression over y, minY and maxY which gives the spawn chance factor at a height.
+         */
+        public final transient StringNode expression = new StringNode(this, "expression");
+
+        /**
+         * A list of y:factor points, separated by commas, between which the spawn chance factor is interpolated.
+         */
+        public final transient StringNode points = new StringNode(this, "points");
+
+        /**
+         * Creates a new curve container.
+         *
+         * @param parent The container's parent.
+         */
+        CurveContainer(ConfigurationContainer parent) {
+            super(parent, "curve");
+        }
+
+        /**
+         * Compiles the configured curve. An expression takes precedence over points.
+         *
+         * @return The compiled curve, or {@code null} if no curve is set or the curve is malformed.
+         */
+        public @Nullable DistributionCurve value() {
+            final String expression = this.expression.value();
+            final String points = this.points.value();
+            try {
+                if (expression != null && !expression.isBlank()) {
+                    return ExpressionCurve.parse(expression);
+                } else if (points != null && !points.isBlank()) {
+                    return PiecewiseCurve.parse(points);
+                }
+            } catch (IllegalArgumentException ex) {
+                this.getPlugin().getLogger().log(Level.WARNING, "Ignoring malformed distribution curve: {0}", ex.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Container with spawning height range options.
+     *
+     * @author Isabel Maskrey
+     * @since 1.0-SNAPSHOT
+     */
+    public static class SpawnRangeContainer extends ConfigurationContainer {
+        /**
+         * The minimum Y value to spawn at.
+         */
+        public final transient IntegerNode minY = new IntegerNode(this, "minY", -64, 320) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return -64;
+            }
+        };
+
+        /**
+         * The maximum Y value to spawn at.
+         */
+        public final transient IntegerNode maxY = new IntegerNode(this, "maxY", -64, 320) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return -8;
+            }
+        };
+
+        /**
+         * Allows spiders to spawn below the minimum Y value.
+         * This is useful for customizing the ramp function; spawns below the minimum Y value will always use the
+         * maximum spawn chance set in the configuration file.
+         */
+        public final transient BooleanNode allowSpawnsBelowMinY = new BooleanNode(this, "allowSpawnsBelowMinY");
+
+        /**
+         * Creates a new spawn range configuration container.
+         *
+         * @param parent The container's parent.
+         */
+        SpawnRangeContainer(ConfigurationContainer parent) {
+            super(parent, "range");
+        }
+    }
+
+    /**
+     * Container with optional limits on cave spider replacements.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class SpawnLimitsContainer extends ConfigurationContainer {
+        /**
+         * The maximum number of cave spiders in a chunk before spawns are no longer replaced. Zero disables the cap.
+         */
+        public final transient IntegerNode maxCaveSpidersPerChunk = new IntegerNode(this, "maxCaveSpidersPerChunk", 0, Integer.MAX_VALUE) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * The maximum number of cave spiders in a world before spawns are no longer replaced. Zero disables the cap.
+         */
+        public final transient IntegerNode maxCaveSpidersPerWorld = new IntegerNode(this, "maxCaveSpidersPerWorld", 0, Integer.MAX_VALUE) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 0;
+            }
+        };
+
+        /**
+         * The number of replacements allowed per chunk each second. Zero disables the rate limit.
+         */
+        public final transient DoubleNode replacementsPerChunkPerSecond = new DoubleNode(this, "replacementsPerChunkPerSecond", 0D, 1000D) {
+            @Override
+            public @NotNull Double defaultValue() {
+                return 0D;
+            }
+        };
+
+        /**
+         * The number of replacements a chunk may make in a burst before the rate limit applies.
+         */
+        public final transient IntegerNode replacementBurst = new IntegerNode(this, "replacementBurst", 1, 1000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 4;
+            }
+        };
+
+        /**
+         * Creates a new spawn limits container.
+         *
+         * @param parent The container's parent.
+         */
+        SpawnLimitsContainer(ConfigurationContainer parent) {
+            super(parent, "limits");
+        }
+    }
+
+    /**
+     * Container with options for deferring replacement and jockey spawns to a queue.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class DeferredSpawnsContainer extends ConfigurationContainer {
+        /**
+         * Whether replacement and jockey spawns are queued instead of spawned inside the event handler.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled");
+
+        /**
+         * The maximum number of queued spawns. Spawns which don't fit are not replaced.
+         */
+        public final transient IntegerNode queueCapacity = new IntegerNode(this, "queueCapacity", 1, 65536) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 1024;
+            }
+        };
+
+        /**
+         * The maximum number of queued spawns to run each tick.
+         */
+        public final transient IntegerNode batchSize = new IntegerNode(this, "batchSize", 1, 10000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 32;
+            }
+        };
+
+        /**
+         * The time budget for running queued spawns each tick, in microseconds.
+         */
+        public final transient IntegerNode tickBudget = new IntegerNode(this, "tickBudget", 50, 50000) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 1000;
+            }
+        };
+
+        /**
+         * Creates a new deferred spawns container.
+         *
+         * @param parent The container's parent.
+         */
+        DeferredSpawnsContainer(ConfigurationContainer parent) {
+            super(parent, "deferred");
+        }
+    }
+
+    /**
+     * Container with options for caching biome lookups per chunk section.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public static class BiomeCacheContainer extends ConfigurationContainer {
+        /**
+         * Whether biome lookups are cached.
+         */
+        public final transient BooleanNode enabled = new BooleanNode(this, "enabled") {
+            @Override
+            public @NotNull Boolean defaultValue() {
+                return true;
+            }
+        };
+
+        /**
+         * The maximum number of chunk sections cached per world.
+         */
+        public final transient IntegerNode sections = new IntegerNode(this, "sections", 16, 1048576) {
+            @Override
+            public @NotNull Integer defaultValue() {
+                return 2048;
+            }
+        };
+
+        /**
+         * Creates a new biome cache container.
+         *
+         * @param parent The container's parent.
+         */
+        BiomeCacheContainer(ConfigurationContainer parent) {
+            super(parent, "biomeCache");
         }
     }
 
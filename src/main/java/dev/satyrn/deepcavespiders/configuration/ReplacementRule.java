@@ -0,0 +1,361 @@
+package dev.satyrn.deepcavespiders.configuration;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import dev.satyrn.deepcavespiders.util.AliasTable;
+import dev.satyrn.deepcavespiders.util.DistributionCurve;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A compiled replacement rule: natural spawns of the source types are replaced with one of the target types, picked
+ * by weight, subject to the rule's own environments, biomes, spawn range and chances.
+ * The default rule is compiled from the spawn options and replaces spawns with cave spiders; it takes its profiles
+ * from the world and biome overrides. Every other rule has a single profile.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class ReplacementRule {
+    /**
+     * The random stream used for the default rule's chance roll.
+     */
+    public static final int DEFAULT_ROLL_STREAM = 0;
+    // The first random stream used for the other rules' chance rolls.
+    private static final int FIRST_ROLL_STREAM = 16;
+
+    // The rule name.
+    private final @NotNull String name;
+    // The entity types whose spawns may be replaced.
+    private final @NotNull EntityType[] sources;
+    // The target entity types.
+    private final @NotNull EntityType[] targets;
+    // Picks a target index by weight.
+    private final @NotNull AliasTable targetTable;
+    // Whether each environment is allowed, indexed by ordinal.
+    private final boolean[] environments;
+    // Whether each biome is allowed, indexed by ordinal.
+    private final boolean[] biomes;
+    // The profile for every biome, or null if the profiles come from the world and biome overrides.
+    private final @Nullable SpawnProfile[] profiles;
+    // The rider type, or null if replacements get no rider.
+    private final @Nullable EntityType riderType;
+    // The chance that a replacement gets a rider.
+    private final double riderChance;
+    // Whether the rider spawns as a baby.
+    private final boolean riderBaby;
+    // The random stream used for this rule's chance roll.
+    private final int rollStream;
+
+    private ReplacementRule(final @NotNull String name,
+                            final @NotNull Collection<EntityType> sources,
+                            final @NotNull Map<EntityType, Double> targets,
+                            final @NotNull Collection<World.Environment> environments,
+                            final @NotNull Collection<Biome> biomes,
+                            final @Nullable SpawnProfile profile,
+                            final @Nullable EntityType riderType,
+                            final double riderChance,
+                            final boolean riderBaby,
+                            final int rollStream) {
+        this.name = name;
+        this.sources = sources.toArray(new EntityType[0]);
+        this.targets = targets.keySet().toArray(new EntityType[0]);
+        final double[] weights = new double[this.targets.length];
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = targets.get(this.targets[i]);
+        }
+        this.targetTable = new AliasTable(weights);
+        this.environments = new boolean[World.Environment.values().length];
+        for (final World.Environment environment : environments) {
+            this.environments[environment.ordinal()] = true;
+        }
+        this.biomes = new boolean[Biome.values().length];
+        for (final Biome biome : biomes) {
+            this.biomes[biome.ordinal()] = true;
+        }
+        if (profile == null) {
+            this.profiles = null;
+        } else {
+            this.profiles = new SpawnProfile[Biome.values().length];
+            Arrays.fill(this.profiles, profile);
+        }
+        this.riderType = riderType;
+        this.riderChance = riderChance;
+        this.riderBaby = riderBaby;
+        this.rollStream = rollStream;
+    }
+
+    /**
+     * Creates the default rule, which replaces spawns with cave spiders.
+     *
+     * @param sources      The entity types whose spawns may be replaced.
+     * @param environments The allowed environments.
+     * @param biomes       The allowed biomes.
+     * @return The default rule.
+     */
+    static @NotNull ReplacementRule caveSpiders(final @NotNull Collection<EntityType> sources, final @NotNull Collection<World.Environment> environments, final @NotNull Collection<Biome> biomes) {
+        return new ReplacementRule("default", sources, Map.of(EntityType.CAVE_SPIDER, 1D), environments, biomes, null, null, 0D, false, DEFAULT_ROLL_STREAM);
+    }
+
+    /**
+     * Compiles a configured replacement rule.
+     *
+     * @param name      The rule name.
+     * @param container The rule configuration.
+     * @param index     The rule's position in the configuration, used to give it its own random stream.
+     * @param logger    Receives warnings about rules which can never replace a spawn.
+     * @return The compiled rule, or {@code null} if the rule is disabled or can never replace a spawn.
+     */
+    static @Nullable ReplacementRule compile(final @NotNull String name, final @NotNull Configuration.ReplacementContainer container, final int index, final @NotNull Logger logger) {
+        if (!container.enabled.value()) {
+            return null;
+        }
+        final Collection<EntityType> sources = container.sources.value();
+        final Map<EntityType, Double> targets = container.targets();
+        targets.values().removeIf(weight -> !(weight > 0D) || Double.isInfinite(weight));
+        targets.keySet().removeIf(target -> {
+            if (isSpawnableMob(target)) {
+                return false;
+            }
+            logger.log(Level.WARNING, "Ignoring target {0} in replacement rule {1}, which can't be spawned as a mob.", new Object[]{target, name});
+            return true;
+        });
+        if (sources.isEmpty() || targets.isEmpty()) {
+            logger.log(Level.WARNING, "Ignoring replacement rule {0}, which needs at least one source and one target with a positive weight.", name);
+            return null;
+        }
+        final double[] chances = new double[Difficulty.values().length];
+        for (final Difficulty difficulty : Difficulty.values()) {
+            chances[difficulty.ordinal()] = container.chances.value(difficulty);
+        }
+        DistributionCurve distribution = container.curve.value();
+        if (distribution == null) {
+            distribution = container.distribution.value();
+        }
+        final SpawnProfile profile = new SpawnProfile(true,
+                container.range.minY.value(),
+                container.range.maxY.value(),
+                container.range.allowSpawnsBelowMinY.value(),
+                distribution,
+                chances);
+        if (!profile.hasNonZeroChance()) {
+            logger.log(Level.WARNING, "Ignoring replacement rule {0}, whose spawn chance is zero everywhere.", name);
+            return null;
+        }
+        final Collection<World.Environment> environments = container.environments.value();
+        final Collection<Biome> biomes = container.biomes.value();
+        EntityType riderType = container.rider.type.value();
+        if (riderType != EntityType.UNKNOWN && !isSpawnableMob(riderType)) {
+            logger.log(Level.WARNING, "Ignoring rider {0} in replacement rule {1}, which can't be spawned as a mob.", new Object[]{riderType, name});
+            riderType = EntityType.UNKNOWN;
+        }
+        return new ReplacementRule(name,
+                sources,
+                targets,
+                environments.isEmpty() ? Arrays.asList(World.Environment.values()) : environments,
+                biomes.isEmpty() ? Arrays.asList(Biome.values()) : biomes,
+                profile,
+                riderType == EntityType.UNKNOWN || container.rider.chance.value() <= 0D ? null : riderType,
+                container.rider.chance.value(),
+                container.rider.baby.value(),
+                FIRST_ROLL_STREAM + index);
+    }
+
+    /**
+     * Checks whether an entity type can be spawned into a world as a mob, so that it can replace a spawn or ride one.
+     * Players, items, projectiles and other non-living or unspawnable types make {@code World.spawnEntity} throw.
+     *
+     * @param type The entity type.
+     * @return {@code true} if the type is a spawnable living entity; otherwise, {@code false}.
+     */
+    private static boolean isSpawnableMob(final @NotNull EntityType type) {
+        return type.isSpawnable() && type.isAlive();
+    }
+
+    /**
+     * Gets the rule name.
+     *
+     * @return The rule name.
+     */
+    public @NotNull String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets whether this is the default cave spider rule, whose profiles come from the world and biome overrides.
+     *
+     * @return {@code true} if this is the default rule; otherwise, {@code false}.
+     */
+    public boolean isDefault() {
+        return this.profiles == null;
+    }
+
+    /**
+     * Gets the entity types whose spawns may be replaced.
+     *
+     * @return The source types. The returned array is shared and must not be modified.
+     */
+    public @NotNull EntityType[] getSources() {
+        return this.sources;
+    }
+
+    /**
+     * Gets the profiles which apply to this rule in a world, indexed by biome ordinal.
+     * The returned array is shared and must not be modified.
+     *
+     * @param rules The spawn rules, which hold the default rule's profiles.
+     * @param world The world.
+     * @return The profiles.
+     */
+    public @NotNull SpawnProfile[] getProfiles(final @NotNull SpawnRules rules, final @NotNull World world) {
+        return this.profiles == null ? rules.getProfiles(world) : this.profiles;
+    }
+
+    /**
+     * Checks whether the profile may depend on the biome, and so needs the biome to be looked up.
+     *
+     * @param rules The spawn rules.
+     * @return {@code true} if the profile depends on the biome; otherwise, {@code false}.
+     */
+    public boolean isBiomeDependent(final @NotNull SpawnRules rules) {
+        return this.profiles == null && rules.isBiomeDependent();
+    }
+
+    /**
+     * Runs this rule's checks on a spawn, in the configured guard order.
+     * Cheap enum and table lookups run first by default; the biome and block lookups, which have to read chunk data,
+     * are only made when a check reaches them. The order only decides which guard is blamed for a rejection, never
+     * the outcome.
+     *
+     * @param rules      The spawn rules, which hold the guard order and the default rule's profiles.
+     * @param evaluation The spawn's inputs.
+     * @param statistics Counts the checks each guard makes, or {@code null} not to count them.
+     * @return The guard which rejected the replacement, or {@code null} if every check passed.
+     */
+    public @Nullable Guard evaluate(final @NotNull SpawnRules rules, final @NotNull SpawnEvaluation evaluation, final @Nullable SpawnStatistics statistics) {
+        // Unless biome overrides are configured, every biome shares one profile, so the biome lookup can wait for the
+        // biome check.
+        SpawnProfile profile = this.profiles != null ? this.profiles[0] : rules.isBiomeDependent() ? null : evaluation.getProfiles()[0];
+        final int y = evaluation.getY();
+        for (final Guard guard : rules.getReplacementGuards()) {
+            if (statistics != null) {
+                statistics.recordEvaluated(guard);
+            }
+            switch (guard) {
+                case ENVIRONMENT -> {
+                    if (!this.isAllowedEnvironment(evaluation.getEnvironment())) {
+                        return guard;
+                    }
+                }
+                case Y -> {
+                    if (profile == null) {
+                        profile = evaluation.getProfiles()[evaluation.getBiome().ordinal()];
+                    }
+                    if (!profile.isInRange(y)) {
+                        return guard;
+                    }
+                }
+                case CHANCE -> {
+                    if (profile == null) {
+                        profile = evaluation.getProfiles()[evaluation.getBiome().ordinal()];
+                    }
+                    // We'll never spawn if the spawn chance is zero.
+                    final double spawnChance = profile.getSpawnChance(evaluation.getDifficulty(), y) * evaluation.getMultiplier();
+                    evaluation.setSpawnChance(spawnChance);
+                    if (spawnChance <= 0D || evaluation.getRoll(this.rollStream) > spawnChance) {
+                        return guard;
+                    }
+                }
+                case BIOME -> {
+                    if (!this.isAllowedBiome(evaluation.getBiome())) {
+                        return guard;
+                    }
+                }
+                case LIQUID -> {
+                    if (evaluation.isLiquid()) {
+                        return guard;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the rule applies in an environment.
+     *
+     * @param environment The world environment.
+     * @return {@code true} if the environment is allowed; otherwise, {@code false}.
+     */
+    public boolean isAllowedEnvironment(final @NotNull World.Environment environment) {
+        return this.environments[environment.ordinal()];
+    }
+
+    /**
+     * Checks whether the rule applies in a biome.
+     *
+     * @param biome The biome.
+     * @return {@code true} if the biome is allowed; otherwise, {@code false}.
+     */
+    public boolean isAllowedBiome(final @NotNull Biome biome) {
+        return this.biomes[biome.ordinal()];
+    }
+
+    /**
+     * Picks a target type by weight.
+     *
+     * @param roll A uniform random number between 0 (inclusive) and 1 (exclusive).
+     * @return The target type.
+     */
+    public @NotNull EntityType pickTarget(final double roll) {
+        return this.targets[this.targetTable.pick(roll)];
+    }
+
+    /**
+     * Gets the rider type.
+     *
+     * @return The rider type, or {@code null} if replacements get no rider.
+     */
+    public @Nullable EntityType getRiderType() {
+        return this.riderType;
+    }
+
+    /**
+     * Gets the chance that a replacement gets a rider.
+     *
+     * @return The rider chance.
+     */
+    public double getRiderChance() {
+        return this.riderChance;
+    }
+
+    /**
+     * Gets whether the rider spawns as a baby, if it can.
+     *
+     * @return {@code true} if the rider is a baby; otherwise, {@code false}.
+     */
+    public boolean isRiderBaby() {
+        return this.riderBaby;
+    }
+
+    /**
+     * Gets the random stream used for this rule's chance roll, so that rules roll independently of each other.
+     *
+     * @return The random stream.
+     */
+    public int getRollStream() {
+        return this.rollStream;
+    }
+}
@@ -0,0 +1,249 @@
+package dev.satyrn.deepcavespiders.configuration;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The inputs of one spawn's replacement and jockey decisions, and what was learned while making them.
+ * The environment, difficulty, height and chance multiplier are known up front. The profiles, the biome, the liquid
+ * check and the rolls are looked up the first time a check needs them, so a decision only pays for the lookups its
+ * checks reach. The spawn listener looks them up in the world, the simulator draws them, and the journal replay reads
+ * them from a record; the decision itself is always made by {@link SpawnRules#evaluateReplacement} and
+ * {@link SpawnRules#evaluateJockey}. Evaluations are reusable, and are reset before each spawn.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public abstract class SpawnEvaluation {
+    // The world environment.
+    private World.Environment environment;
+    // The world difficulty.
+    private Difficulty difficulty;
+    // The block Y value of the spawn.
+    private int y;
+    // The multiplier applied to every chance.
+    private double multiplier;
+    // The default rule's profiles for the world, or null if they haven't been looked up.
+    private @Nullable SpawnProfile[] profiles;
+    // The biome, or null if it hasn't been looked up.
+    private @Nullable Biome biome;
+    // Whether the spawn block is liquid, or null if it hasn't been looked up.
+    private @Nullable Boolean liquid;
+    // The default rule's chance roll, or NaN if it hasn't been rolled.
+    private double defaultRoll;
+    // The chance of the last chance check, after the multiplier.
+    private double spawnChance;
+    // The rule whose checks all passed, or null if none did.
+    private @Nullable ReplacementRule matched;
+    // The guard which rejected the last rule, or null if a rule matched.
+    private @Nullable Guard rejectedBy;
+
+    /**
+     * Clears everything learned about the previous spawn, and sets the inputs which are known up front.
+     *
+     * @param environment The world environment.
+     * @param difficulty  The world difficulty.
+     * @param y           The block Y value of the spawn.
+     * @param multiplier  The multiplier applied to replacement and jockey chances, such as the spawn throttle's.
+     */
+    protected final void reset(final @NotNull World.Environment environment, final @NotNull Difficulty difficulty, final int y, final double multiplier) {
+        this.environment = environment;
+        this.difficulty = difficulty;
+        this.y = y;
+        this.multiplier = multiplier;
+        this.profiles = null;
+        this.biome = null;
+        this.liquid = null;
+        this.defaultRoll = Double.NaN;
+        this.spawnChance = 0D;
+        this.matched = null;
+        this.rejectedBy = Guard.TYPE;
+    }
+
+    /**
+     * Looks up the default rule's profiles for the spawn's world, indexed by biome ordinal.
+     *
+     * @return The profiles.
+     */
+    protected abstract @NotNull SpawnProfile[] lookupProfiles();
+
+    /**
+     * Looks up the biome at the spawn location.
+     *
+     * @return The biome.
+     */
+    protected abstract @NotNull Biome lookupBiome();
+
+    /**
+     * Looks up whether the spawn block is liquid.
+     *
+     * @return {@code true} if the spawn block is liquid; otherwise, {@code false}.
+     */
+    protected abstract boolean lookupLiquid();
+
+    /**
+     * Draws a roll from a random stream.
+     *
+     * @param stream The random stream.
+     * @return The roll, between 0 (inclusive) and 1 (exclusive).
+     */
+    protected abstract double roll(final int stream);
+
+    /**
+     * Gets the world environment.
+     *
+     * @return The environment.
+     */
+    public @NotNull World.Environment getEnvironment() {
+        return this.environment;
+    }
+
+    /**
+     * Gets the world difficulty.
+     *
+     * @return The difficulty.
+     */
+    public @NotNull Difficulty getDifficulty() {
+        return this.difficulty;
+    }
+
+    /**
+     * Gets the block Y value of the spawn.
+     *
+     * @return The Y value.
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * Gets the multiplier applied to replacement and jockey chances.
+     *
+     * @return The multiplier.
+     */
+    public double getMultiplier() {
+        return this.multiplier;
+    }
+
+    /**
+     * Gets the default rule's profiles for the spawn's world, looking them up if needed.
+     *
+     * @return The profiles, indexed by biome ordinal. The returned array is shared and must not be modified.
+     */
+    public @NotNull SpawnProfile[] getProfiles() {
+        SpawnProfile[] profiles = this.profiles;
+        if (profiles == null) {
+            profiles = this.profiles = this.lookupProfiles();
+        }
+        return profiles;
+    }
+
+    /**
+     * Gets the biome at the spawn location, looking it up if needed.
+     *
+     * @return The biome.
+     */
+    public @NotNull Biome getBiome() {
+        Biome biome = this.biome;
+        if (biome == null) {
+            biome = this.biome = this.lookupBiome();
+        }
+        return biome;
+    }
+
+    /**
+     * Gets whether the spawn block is liquid, looking it up if needed.
+     *
+     * @return {@code true} if the spawn block is liquid; otherwise, {@code false}.
+     */
+    public boolean isLiquid() {
+        Boolean liquid = this.liquid;
+        if (liquid == null) {
+            liquid = this.liquid = this.lookupLiquid();
+        }
+        return liquid;
+    }
+
+    /**
+     * Draws a roll from a random stream, remembering the default rule's roll.
+     *
+     * @param stream The random stream.
+     * @return The roll, between 0 (inclusive) and 1 (exclusive).
+     */
+    public double getRoll(final int stream) {
+        final double roll = this.roll(stream);
+        if (stream == ReplacementRule.DEFAULT_ROLL_STREAM) {
+            this.defaultRoll = roll;
+        }
+        return roll;
+    }
+
+    /**
+     * Gets the biome, if a check looked it up.
+     *
+     * @return The biome, or {@code null} if no check needed it.
+     */
+    public @Nullable Biome getResolvedBiome() {
+        return this.biome;
+    }
+
+    /**
+     * Gets whether the spawn block is liquid, if a check looked it up.
+     *
+     * @return Whether the spawn block is liquid, or {@code null} if no check needed it.
+     */
+    public @Nullable Boolean getResolvedLiquid() {
+        return this.liquid;
+    }
+
+    /**
+     * Gets the default rule's chance roll, if it was rolled.
+     *
+     * @return The roll, or NaN if the default rule's chance wasn't checked.
+     */
+    public double getDefaultRoll() {
+        return this.defaultRoll;
+    }
+
+    /**
+     * Gets the chance of the last chance check, which is the matched rule's chance if a rule matched.
+     *
+     * @return The spawn chance, after the multiplier.
+     */
+    public double getSpawnChance() {
+        return this.spawnChance;
+    }
+
+    /**
+     * Gets the rule whose checks all passed.
+     *
+     * @return The matched rule, or {@code null} if no rule matched.
+     */
+    public @Nullable ReplacementRule getMatched() {
+        return this.matched;
+    }
+
+    /**
+     * Gets the guard which rejected the replacement.
+     *
+     * @return The guard which rejected the last rule tried, or {@code null} if a rule matched.
+     */
+    public @Nullable Guard getRejectedBy() {
+        return this.rejectedBy;
+    }
+
+    // Records the chance of a chance check.
+    void setSpawnChance(final double spawnChance) {
+        this.spawnChance = spawnChance;
+    }
+
+    // Records the outcome of the replacement decision.
+    void setOutcome(final @Nullable ReplacementRule matched, final @Nullable Guard rejectedBy) {
+        this.matched = matched;
+        this.rejectedBy = rejectedBy;
+    }
+}
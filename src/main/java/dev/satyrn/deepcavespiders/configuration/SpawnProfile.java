@@ -0,0 +1,221 @@
+package dev.satyrn.deepcavespiders.configuration;
+
+import dev.satyrn.deepcavespiders.util.DistributionCurve;
+import dev.satyrn.papermc.api.util.v1.MathHelper;
+import org.bukkit.Difficulty;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+/**
+ * The spawn range, distribution and chances which apply in a world and biome, with a precomputed chance table.
+ * Profiles are immutable. The global options form the default profile, and each override produces a new profile which
+ * inherits every value the override leaves unset.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnProfile {
+    // Whether cave spiders may replace spawns under this profile.
+    private final boolean enabled;
+    // The minimum Y value of the spawn range.
+    private final int minY;
+    // The maximum Y value of the spawn range.
+    private final int maxY;
+    // Whether spawns may occur below the minimum Y value.
+    private final boolean allowSpawnsBelowMinY;
+    // The spawn distribution curve.
+    private final @NotNull DistributionCurve distribution;
+    // The spawn chances, indexed by difficulty ordinal.
+    private final double[] chances;
+    // Precomputed spawn chances, indexed by difficulty ordinal and then by Y offset from TABLE_MIN_Y.
+    private final double[][] chanceTable;
+    // The highest spawn chance at any height, indexed by difficulty ordinal.
+    private final double[] maxChances;
+
+    SpawnProfile(final boolean enabled,
+                 final int minY,
+                 final int maxY,
+                 final boolean allowSpawnsBelowMinY,
+                 final @NotNull DistributionCurve distribution,
+                 final double[] chances) {
+        this.enabled = enabled;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.allowSpawnsBelowMinY = allowSpawnsBelowMinY;
+        this.distribution = distribution;
+        this.chances = chances;
+
+        this.chanceTable = new double[chances.length][SpawnRules.TABLE_MAX_Y - SpawnRules.TABLE_MIN_Y + 1];
+        for (final Difficulty difficulty : Difficulty.values()) {
+            final double[] row = this.chanceTable[difficulty.ordinal()];
+            for (int y = SpawnRules.TABLE_MIN_Y; y <= SpawnRules.TABLE_MAX_Y; ++y) {
+                row[y - SpawnRules.TABLE_MIN_Y] = this.isInRange(y) ? this.computeSpawnChance(difficulty, y) : 0D;
+            }
+        }
+        this.maxChances = new double[chances.length];
+        for (int i = 0; i < this.maxChances.length; ++i) {
+            for (final double chance : this.chanceTable[i]) {
+                this.maxChances[i] = Math.max(this.maxChances[i], chance);
+            }
+        }
+    }
+
+    /**
+     * Creates a profile which applies an override on top of this profile.
+     *
+     * @param override The override.
+     * @return The new profile, or this profile if the override doesn't set anything.
+     */
+    @NotNull SpawnProfile override(final @NotNull Configuration.OverrideContainer override) {
+        if (override.isEmpty()) {
+            return this;
+        }
+        final double[] chances = this.chances.clone();
+        for (final Difficulty difficulty : Difficulty.values()) {
+            if (override.isSet("chances." + difficulty.name().toLowerCase(Locale.ROOT))) {
+                chances[difficulty.ordinal()] = override.chances.value(difficulty);
+            }
+        }
+        DistributionCurve distribution = override.curve.value();
+        if (distribution == null) {
+            distribution = override.isSet("distribution") ? override.distribution.value() : this.distribution;
+        }
+        return new SpawnProfile(override.isSet("enabled") ? override.enabled.value() : this.enabled,
+                override.isSet("range.minY") ? override.range.minY.value() : this.minY,
+                override.isSet("range.maxY") ? override.range.maxY.value() : this.maxY,
+                override.isSet("range.allowSpawnsBelowMinY") ? override.range.allowSpawnsBelowMinY.value() : this.allowSpawnsBelowMinY,
+                distribution,
+                chances);
+    }
+
+    /**
+     * Checks whether a Y value is within the spawn range.
+     * Always {@code false} if the profile is disabled.
+     *
+     * @param y The block Y value.
+     * @return {@code true} if the Y value is in range; otherwise, {@code false}.
+     */
+    public boolean isInRange(final int y) {
+        return this.enabled && y <= this.maxY && (y >= this.minY || this.allowSpawnsBelowMinY);
+    }
+
+    /**
+     * Gets the spawn chance for a specific difficulty from the precomputed table.
+     * Y values outside the spawn range always have a spawn chance of zero.
+     *
+     * @param difficulty The world difficulty.
+     * @param y          The block Y value of the spawn.
+     * @return The spawn chance for the given difficulty and height.
+     */
+    public double getSpawnChance(final @NotNull Difficulty difficulty, final int y) {
+        if (y > SpawnRules.TABLE_MAX_Y) {
+            return 0D;
+        }
+        final double[] row = this.chanceTable[difficulty.ordinal()];
+        if (y < SpawnRules.TABLE_MIN_Y) {
+            // Everything below the table is below the minimum Y value, where the chance no longer changes.
+            return this.allowSpawnsBelowMinY ? row[0] : 0D;
+        }
+        return row[y - SpawnRules.TABLE_MIN_Y];
+    }
+
+    /**
+     * Gets the highest spawn chance at any height for a specific difficulty.
+     *
+     * @param difficulty The world difficulty.
+     * @return The highest spawn chance in the precomputed table.
+     */
+    public double getMaxSpawnChance(final @NotNull Difficulty difficulty) {
+        return this.maxChances[difficulty.ordinal()];
+    }
+
+    /**
+     * Computes the spawn chance for a specific difficulty with the distribution function, ignoring the spawn range.
+     * This is used to build the spawn chance tables; prefer {@link #getSpawnChance(Difficulty, int)}.
+     *
+     * @param difficulty The world difficulty.
+     * @param y          The Y location of the spawn. Used if spawn distribution is not set to CONSTANT.
+     * @return The spawn chance for the given difficulty.
+     */
+    public double computeSpawnChance(final @NotNull Difficulty difficulty, final double y) {
+        final double defaultSpawnChance = this.chances[difficulty.ordinal()];
+        final double spawnChance = defaultSpawnChance * this.distribution.scale(y, this.minY, this.maxY);
+        if (Double.isNaN(spawnChance)) {
+            // Custom curves may be undefined at some heights, such as a logarithm of zero.
+            return 0D;
+        }
+        return MathHelper.clampd(spawnChance, 0D, Math.max(0D, defaultSpawnChance));
+    }
+
+    /**
+     * Checks whether any entry in the spawn chance tables is above zero.
+     *
+     * @return {@code true} if a spawn can be replaced under this profile; otherwise, {@code false}.
+     */
+    public boolean hasNonZeroChance() {
+        for (final double[] row : this.chanceTable) {
+            for (final double chance : row) {
+                if (chance > 0D) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether cave spiders may replace spawns under this profile.
+     *
+     * @return {@code true} if the profile is enabled; otherwise, {@code false}.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Gets the configured spawn chance for a difficulty, before the distribution function is applied.
+     *
+     * @param difficulty The world difficulty.
+     * @return The configured spawn chance.
+     */
+    public double getBaseSpawnChance(final @NotNull Difficulty difficulty) {
+        return this.chances[difficulty.ordinal()];
+    }
+
+    /**
+     * Gets the minimum Y value of the spawn range.
+     *
+     * @return The minimum Y value.
+     */
+    public int getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * Gets the maximum Y value of the spawn range.
+     *
+     * @return The maximum Y value.
+     */
+    public int getMaxY() {
+        return this.maxY;
+    }
+
+    /**
+     * Gets whether spawns may occur below the minimum Y value.
+     *
+     * @return {@code true} if spawns may occur below the minimum Y value; otherwise, {@code false}.
+     */
+    public boolean allowSpawnsBelowMinY() {
+        return this.allowSpawnsBelowMinY;
+    }
+
+    /**
+     * Gets the spawn distribution curve.
+     *
+     * @return The spawn distribution curve.
+     */
+    public @NotNull DistributionCurve getDistribution() {
+        return this.distribution;
+    }
+}
@@ -0,0 +1,739 @@
+package dev.satyrn.deepcavespiders.configuration;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import dev.satyrn.deepcavespiders.util.DeterministicRandomSource;
+import dev.satyrn.deepcavespiders.util.FastRandomSource;
+import dev.satyrn.deepcavespiders.util.RandomSource;
+import dev.satyrn.deepcavespiders.util.DistributionCurve;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable snapshot of the spawning rules, compiled from the configuration.
+ * Event handlers should read from a snapshot rather than querying the configuration nodes directly.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnRules {
+    /**
+     * The lowest Y value covered by the spawn chance tables.
+     */
+    public static final int TABLE_MIN_Y = -64;
+    /**
+     * The random stream used for jockey rolls.
+     */
+    public static final int JOCKEY_ROLL_STREAM = 1;
+    /**
+     * The highest Y value covered by the spawn chance tables.
+     */
+    public static final int TABLE_MAX_Y = 320;
+
+    // The guards which may be reordered in the replacement pipeline.
+    private static final Set<Guard> PIPELINE_STAGES = Collections.unmodifiableSet(EnumSet.of(Guard.ENVIRONMENT, Guard.Y, Guard.CHANCE, Guard.BIOME, Guard.LIQUID));
+    // The rules for entity types which no rule replaces.
+    private static final ReplacementRule[] NO_RULES = new ReplacementRule[0];
+    // Cave spider jockey types outside the nether, indexed by biome ordinal.
+    private static final EntityType[] JOCKEY_TYPES = new EntityType[Biome.values().length];
+
+    static {
+        Arrays.fill(JOCKEY_TYPES, EntityType.ZOMBIE);
+        JOCKEY_TYPES[Biome.DESERT.ordinal()] = EntityType.HUSK;
+        for (final Biome biome : EnumSet.of(Biome.DEEP_COLD_OCEAN, Biome.DEEP_FROZEN_OCEAN, Biome.DEEP_LUKEWARM_OCEAN, Biome.DEEP_OCEAN, Biome.COLD_OCEAN, Biome.FROZEN_OCEAN, Biome.LUKEWARM_OCEAN, Biome.OCEAN, Biome.WARM_OCEAN, Biome.RIVER, Biome.FROZEN_RIVER)) {
+            JOCKEY_TYPES[biome.ordinal()] = EntityType.DROWNED;
+        }
+    }
+
+    // Entity types which may be replaced by cave spiders.
+    private final @NotNull Set<EntityType> replaceEntities;
+    // Environments in which cave spiders may spawn.
+    private final @NotNull Set<World.Environment> environments;
+    // Biomes in which cave spiders may spawn.
+    private final @NotNull Set<Biome> biomes;
+    // The profile built from the global spawn options.
+    private final @NotNull SpawnProfile defaultProfile;
+    // Profiles for worlds without overrides, indexed by biome ordinal.
+    private final @NotNull SpawnProfile[] defaultProfiles;
+    // Profiles for worlds with overrides, before biome overrides apply, keyed by world name.
+    private final @NotNull Map<String, SpawnProfile> worldProfiles;
+    // Profiles for worlds with overrides, keyed by world name and indexed by biome ordinal.
+    private final @NotNull Map<String, SpawnProfile[]> worldBiomeProfiles;
+    // Profiles resolved for loaded worlds, keyed by world UID. Filled in as worlds are first seen.
+    private final @NotNull Map<UUID, SpawnProfile[]> resolvedProfiles = new ConcurrentHashMap<>();
+    // Whether any profile depends on the biome, rather than on the world alone.
+    private final boolean biomeDependent;
+    // The chance that a cave spider spawns with a jockey.
+    private final double jockeyChance;
+    // Whether debug logging is enabled.
+    private final boolean debug;
+    // The source of spawn rolls.
+    private final @NotNull RandomSource randomSource;
+    // The maximum number of cave spiders per chunk, or zero if uncapped.
+    private final int maxCaveSpidersPerChunk;
+    // The maximum number of cave spiders per world, or zero if uncapped.
+    private final int maxCaveSpidersPerWorld;
+    // The number of replacements per chunk per second, or zero if unlimited.
+    private final double replacementsPerChunkPerSecond;
+    // The number of replacements per chunk allowed in a burst.
+    private final int replacementBurst;
+    // Whether spawn statistics are collected.
+    private final boolean statisticsEnabled;
+    // The replacement pipeline stages, in evaluation order.
+    private final @NotNull Guard[] replacementGuards;
+    // Whether replacement and jockey spawns are queued.
+    private final boolean deferredSpawns;
+    // The maximum number of queued spawns.
+    private final int queueCapacity;
+    // The maximum number of queued spawns to run each tick.
+    private final int batchSize;
+    // The time budget for running queued spawns each tick, in nanoseconds.
+    private final long tickBudgetNanos;
+    // The maximum number of chunk sections to cache biomes for per world, or zero if biomes aren't cached.
+    private final int biomeCacheSections;
+    // Whether any spawn can be replaced under these rules.
+    private final boolean replacementEnabled;
+    // The default cave spider rule, or null if it can never replace a spawn.
+    private final @Nullable ReplacementRule defaultRule;
+    // The rules which may replace each entity type, indexed by entity type ordinal, in evaluation order.
+    private final @NotNull ReplacementRule[][] rulesBySource;
+
+    /**
+     * Compiles the current configuration values into a new spawn rules snapshot.
+     *
+     * @param configuration The configuration instance.
+     * @return The compiled spawn rules.
+     */
+    public static @NotNull SpawnRules compile(final @NotNull Configuration configuration) {
+        final double[] chances = new double[Difficulty.values().length];
+        for (final Difficulty difficulty : Difficulty.values()) {
+            chances[difficulty.ordinal()] = configuration.spawnOptions.chances.value(difficulty);
+        }
+        DistributionCurve distribution = configuration.spawnOptions.curve.value();
+        if (distribution == null) {
+            distribution = configuration.spawnOptions.distribution.value();
+        }
+        final SpawnProfile defaultProfile = new SpawnProfile(true,
+                configuration.spawnOptions.range.minY.value(),
+                configuration.spawnOptions.range.maxY.value(),
+                configuration.spawnOptions.range.allowSpawnsBelowMinY.value(),
+                distribution,
+                chances);
+        final Map<Biome, Configuration.OverrideContainer> biomeOverrides = configuration.overrides.biomes();
+        final SpawnProfile[] defaultProfiles = resolveBiomes(defaultProfile, biomeOverrides, defaultProfile, null, Collections.emptyMap());
+        boolean biomeDependent = !biomeOverrides.isEmpty();
+        final Map<String, SpawnProfile> worldProfiles = new HashMap<>();
+        final Map<String, SpawnProfile[]> worldBiomeProfiles = new HashMap<>();
+        for (final Map.Entry<String, Configuration.OverrideContainer> entry : configuration.overrides.worlds().entrySet()) {
+            final Map<Biome, Configuration.OverrideContainer> worldBiomeOverrides = entry.getValue().biomes();
+            biomeDependent |= !worldBiomeOverrides.isEmpty();
+            final SpawnProfile worldProfile = defaultProfile.override(entry.getValue());
+            worldProfiles.put(entry.getKey(), worldProfile);
+            worldBiomeProfiles.put(entry.getKey(), resolveBiomes(defaultProfile, biomeOverrides, worldProfile, entry.getValue(), worldBiomeOverrides));
+        }
+        final List<ReplacementRule> replacementRules = new ArrayList<>();
+        int index = 0;
+        for (final Map.Entry<String, Configuration.ReplacementContainer> entry : configuration.replacements.rules().entrySet()) {
+            final ReplacementRule rule = ReplacementRule.compile(entry.getKey(), entry.getValue(), index++, configuration.getPlugin().getLogger());
+            if (rule != null) {
+                replacementRules.add(rule);
+            }
+        }
+        return new SpawnRules(configuration.replaceEntities.value(),
+                configuration.environments.value(),
+                configuration.biomes.value(),
+                defaultProfile,
+                defaultProfiles,
+                worldProfiles,
+                worldBiomeProfiles,
+                biomeDependent,
+                configuration.spawnOptions.jockeyChance.value(),
+                configuration.debug.value(),
+                configuration.deterministicRandom.value() ? DeterministicRandomSource.INSTANCE : FastRandomSource.INSTANCE,
+                configuration.spawnOptions.limits.maxCaveSpidersPerChunk.value(),
+                configuration.spawnOptions.limits.maxCaveSpidersPerWorld.value(),
+                configuration.spawnOptions.limits.replacementsPerChunkPerSecond.value(),
+                configuration.spawnOptions.limits.replacementBurst.value(),
+                configuration.statistics.enabled.value(),
+                configuration.spawnOptions.guardOrder.value(),
+                configuration.spawnOptions.deferred.enabled.value(),
+                configuration.spawnOptions.deferred.queueCapacity.value(),
+                configuration.spawnOptions.deferred.batchSize.value(),
+                configuration.spawnOptions.deferred.tickBudget.value() * 1000L,
+                configuration.spawnOptions.biomeCache.enabled.value() ? configuration.spawnOptions.biomeCache.sections.value() : 0,
+                replacementRules);
+    }
+
+    // Builds the profile for each biome of a world. Overrides apply in order: global biome overrides, then the world
+    // override, then the world's own biome overrides. Biomes which no override touches share the world's profile.
+    private static @NotNull SpawnProfile[] resolveBiomes(final @NotNull SpawnProfile defaultProfile,
+                                                         final @NotNull Map<Biome, Configuration.OverrideContainer> biomeOverrides,
+                                                         final @NotNull SpawnProfile worldProfile,
+                                                         final @Nullable Configuration.OverrideContainer worldOverride,
+                                                         final @NotNull Map<Biome, Configuration.OverrideContainer> worldBiomeOverrides) {
+        final SpawnProfile[] profiles = new SpawnProfile[Biome.values().length];
+        for (final Biome biome : Biome.values()) {
+            final Configuration.OverrideContainer biomeOverride = biomeOverrides.get(biome);
+            final Configuration.OverrideContainer worldBiomeOverride = worldBiomeOverrides.get(biome);
+            if (biomeOverride == null && worldBiomeOverride == null) {
+                profiles[biome.ordinal()] = worldProfile;
+                continue;
+            }
+            SpawnProfile profile = biomeOverride == null ? defaultProfile : defaultProfile.override(biomeOverride);
+            if (worldOverride != null) {
+                profile = profile.override(worldOverride);
+            }
+            if (worldBiomeOverride != null) {
+                profile = profile.override(worldBiomeOverride);
+            }
+            profiles[biome.ordinal()] = profile;
+        }
+        return profiles;
+    }
+
+    private SpawnRules(final @NotNull Iterable<EntityType> replaceEntities,
+                       final @NotNull Iterable<World.Environment> environments,
+                       final @NotNull Iterable<Biome> biomes,
+                       final @NotNull SpawnProfile defaultProfile,
+                       final @NotNull SpawnProfile[] defaultProfiles,
+                       final @NotNull Map<String, SpawnProfile> worldProfiles,
+                       final @NotNull Map<String, SpawnProfile[]> worldBiomeProfiles,
+                       final boolean biomeDependent,
+                       final double jockeyChance,
+                       final boolean debug,
+                       final @NotNull RandomSource randomSource,
+                       final int maxCaveSpidersPerChunk,
+                       final int maxCaveSpidersPerWorld,
+                       final double replacementsPerChunkPerSecond,
+                       final int replacementBurst,
+                       final boolean statisticsEnabled,
+                       final @NotNull Iterable<Guard> guardOrder,
+                       final boolean deferredSpawns,
+                       final int queueCapacity,
+                       final int batchSize,
+                       final long tickBudgetNanos,
+                       final int biomeCacheSections,
+                       final @NotNull List<ReplacementRule> replacementRules) {
+        this.replaceEntities = toEnumSet(EntityType.class, replaceEntities);
+        this.environments = toEnumSet(World.Environment.class, environments);
+        this.biomes = toEnumSet(Biome.class, biomes);
+        this.defaultProfile = defaultProfile;
+        this.defaultProfiles = defaultProfiles;
+        this.worldProfiles = worldProfiles;
+        this.worldBiomeProfiles = worldBiomeProfiles;
+        this.biomeDependent = biomeDependent;
+        this.jockeyChance = jockeyChance;
+        this.debug = debug;
+        this.randomSource = randomSource;
+        this.maxCaveSpidersPerChunk = maxCaveSpidersPerChunk;
+        this.maxCaveSpidersPerWorld = maxCaveSpidersPerWorld;
+        this.replacementsPerChunkPerSecond = replacementsPerChunkPerSecond;
+        this.replacementBurst = replacementBurst;
+        this.statisticsEnabled = statisticsEnabled;
+        this.replacementGuards = toPipeline(guardOrder);
+        this.deferredSpawns = deferredSpawns;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.biomeCacheSections = biomeCacheSections;
+        this.defaultRule = !this.replaceEntities.isEmpty() && !this.environments.isEmpty() && !this.biomes.isEmpty() && this.hasNonZeroChance()
+                ? ReplacementRule.caveSpiders(this.replaceEntities, this.environments, this.biomes)
+                : null;
+        // Configured rules are more specific than the default rule, so they are tried first.
+        final List<ReplacementRule> ordered = new ArrayList<>(replacementRules);
+        if (this.defaultRule != null) {
+            ordered.add(this.defaultRule);
+        }
+        this.rulesBySource = toDispatchTable(ordered);
+        this.replacementEnabled = !ordered.isEmpty();
+    }
+
+    // Orders the replacement pipeline stages. Stages which are not listed are appended in their default order, and
+    // guards which are not pipeline stages are ignored.
+    private static @NotNull Guard[] toPipeline(final @NotNull Iterable<Guard> guardOrder) {
+        final Set<Guard> pipeline = new LinkedHashSet<>();
+        for (final Guard guard : guardOrder) {
+            if (PIPELINE_STAGES.contains(guard)) {
+                pipeline.add(guard);
+            }
+        }
+        pipeline.addAll(PIPELINE_STAGES);
+        return pipeline.toArray(new Guard[0]);
+    }
+
+    // Groups the rules by source type. Types which no rule replaces share an empty array.
+    private static @NotNull ReplacementRule[][] toDispatchTable(final @NotNull List<ReplacementRule> rules) {
+        final ReplacementRule[][] table = new ReplacementRule[EntityType.values().length][];
+        Arrays.fill(table, NO_RULES);
+        for (final ReplacementRule rule : rules) {
+            for (final EntityType source : rule.getSources()) {
+                final ReplacementRule[] current = table[source.ordinal()];
+                if (Arrays.asList(current).contains(rule)) {
+                    continue;
+                }
+                final ReplacementRule[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = rule;
+                table[source.ordinal()] = next;
+            }
+        }
+        return table;
+    }
+
+    // Checks whether any profile has a spawn chance above zero.
+    private boolean hasNonZeroChance() {
+        if (hasNonZeroChance(this.defaultProfiles)) {
+            return true;
+        }
+        for (final SpawnProfile[] profiles : this.worldBiomeProfiles.values()) {
+            if (hasNonZeroChance(profiles)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasNonZeroChance(final @NotNull SpawnProfile[] profiles) {
+        SpawnProfile previous = null;
+        for (final SpawnProfile profile : profiles) {
+            // Most biomes share a profile, so skip runs of the same one.
+            if (profile != previous && profile.hasNonZeroChance()) {
+                return true;
+            }
+            previous = profile;
+        }
+        return false;
+    }
+
+    // Copies values into a new enum set. EnumSet.copyOf cannot be used, as it rejects empty collections.
+    private static <E extends Enum<E>> @NotNull Set<E> toEnumSet(final @NotNull Class<E> type, final @NotNull Iterable<E> values) {
+        final EnumSet<E> set = EnumSet.noneOf(type);
+        for (final E value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    /**
+     * Checks whether any spawn can be replaced under these rules.
+     * This is {@code false} if the default rule has no entities, environments or biomes configured, or every spawn
+     * chance is zero, and no other replacement rule is configured.
+     *
+     * @return {@code true} if spawns may be replaced; otherwise, {@code false}.
+     */
+    public boolean isReplacementEnabled() {
+        return this.replacementEnabled;
+    }
+
+    /**
+     * Checks whether cave spiders can spawn with jockeys under these rules.
+     *
+     * @return {@code true} if the jockey chance is above zero; otherwise, {@code false}.
+     */
+    public boolean isJockeyEnabled() {
+        return this.jockeyChance > 0D;
+    }
+
+    /**
+     * Checks whether any replacement rule may replace an entity type.
+     *
+     * @param entityType The entity type.
+     * @return {@code true} if the entity type may be replaced; otherwise, {@code false}.
+     */
+    public boolean isReplaceable(final @NotNull EntityType entityType) {
+        return this.rulesBySource[entityType.ordinal()].length > 0;
+    }
+
+    /**
+     * Gets the replacement rules which may replace an entity type, in the order they are tried.
+     * The returned array is shared and must not be modified.
+     *
+     * @param entityType The entity type.
+     * @return The rules, or an empty array if no rule replaces the entity type.
+     */
+    public @NotNull ReplacementRule[] getReplacementRules(final @NotNull EntityType entityType) {
+        return this.rulesBySource[entityType.ordinal()];
+    }
+
+    /**
+     * Gets the default rule, which replaces spawns with cave spiders according to the spawn options and overrides.
+     *
+     * @return The default rule, or {@code null} if it can never replace a spawn.
+     */
+    public @Nullable ReplacementRule getDefaultRule() {
+        return this.defaultRule;
+    }
+
+    /**
+     * Checks whether cave spiders may spawn in an environment.
+     *
+     * @param environment The world environment.
+     * @return {@code true} if cave spiders may spawn in the environment; otherwise, {@code false}.
+     */
+    public boolean isAllowedEnvironment(final @NotNull World.Environment environment) {
+        return this.environments.contains(environment);
+    }
+
+    /**
+     * Checks whether cave spiders may spawn in a biome.
+     *
+     * @param biome The biome.
+     * @return {@code true} if cave spiders may spawn in the biome; otherwise, {@code false}.
+     */
+    public boolean isAllowedBiome(final @NotNull Biome biome) {
+        return this.biomes.contains(biome);
+    }
+
+    /**
+     * Gets the profiles which apply in a world, indexed by biome ordinal.
+     * The profiles are resolved from the world name the first time a world is seen, and looked up by UID afterwards.
+     * The returned array is shared and must not be modified.
+     *
+     * @param world The world.
+     * @return The profiles for each biome.
+     */
+    public @NotNull SpawnProfile[] getProfiles(final @NotNull World world) {
+        final SpawnProfile[] profiles = this.resolvedProfiles.get(world.getUID());
+        if (profiles != null) {
+            return profiles;
+        }
+        return this.resolvedProfiles.computeIfAbsent(world.getUID(), uid -> this.worldBiomeProfiles.getOrDefault(world.getName(), this.defaultProfiles));
+    }
+
+    /**
+     * Gets the profiles which apply in a world, by world name, indexed by biome ordinal. The world doesn't need to be
+     * loaded. The returned array is shared and must not be modified.
+     *
+     * @param worldName The world name.
+     * @return The profiles for each biome.
+     */
+    public @NotNull SpawnProfile[] getProfiles(final @NotNull String worldName) {
+        return this.worldBiomeProfiles.getOrDefault(worldName, this.defaultProfiles);
+    }
+
+    /**
+     * Gets the profile which applies in a world and biome.
+     *
+     * @param world The world.
+     * @param biome The biome.
+     * @return The profile.
+     */
+    public @NotNull SpawnProfile getProfile(final @NotNull World world, final @NotNull Biome biome) {
+        return this.getProfiles(world)[biome.ordinal()];
+    }
+
+    /**
+     * Gets the profile which applies in a world and biome, by world name. The world doesn't need to be loaded.
+     *
+     * @param worldName The world name.
+     * @param biome     The biome, or {@code null} for the world's profile before biome overrides apply.
+     * @return The profile.
+     */
+    public @NotNull SpawnProfile getProfile(final @NotNull String worldName, final @Nullable Biome biome) {
+        if (biome == null) {
+            return this.worldProfiles.getOrDefault(worldName, this.defaultProfile);
+        }
+        return this.worldBiomeProfiles.getOrDefault(worldName, this.defaultProfiles)[biome.ordinal()];
+    }
+
+    /**
+     * Gets whether profiles vary by biome. If not, every entry of a world's profile array is the same, and the biome
+     * doesn't need to be looked up to find the profile.
+     *
+     * @return {@code true} if any biome override is configured; otherwise, {@code false}.
+     */
+    public boolean isBiomeDependent() {
+        return this.biomeDependent;
+    }
+
+    /**
+     * Gets the profile built from the global spawn options, without overrides.
+     *
+     * @return The default profile.
+     */
+    public @NotNull SpawnProfile getDefaultProfile() {
+        return this.defaultProfile;
+    }
+
+    /**
+     * Checks whether a Y value is within the globally configured spawn range.
+     *
+     * @param y The block Y value.
+     * @return {@code true} if the Y value is in range; otherwise, {@code false}.
+     * @see SpawnProfile#isInRange(int)
+     */
+    public boolean isInRange(final int y) {
+        return this.defaultProfile.isInRange(y);
+    }
+
+    /**
+     * Gets the spawn chance for a specific difficulty from the global precomputed table.
+     *
+     * @param difficulty The world difficulty.
+     * @param y          The block Y value of the spawn.
+     * @return The spawn chance for the given difficulty and height.
+     * @see SpawnProfile#getSpawnChance(Difficulty, int)
+     */
+    public double getSpawnChance(final @NotNull Difficulty difficulty, final int y) {
+        return this.defaultProfile.getSpawnChance(difficulty, y);
+    }
+
+    /**
+     * Computes the global spawn chance for a specific difficulty with the distribution function.
+     *
+     * @param difficulty The world difficulty.
+     * @param y          The Y location of the spawn.
+     * @return The spawn chance for the given difficulty.
+     * @see SpawnProfile#computeSpawnChance(Difficulty, double)
+     */
+    public double computeSpawnChance(final @NotNull Difficulty difficulty, final double y) {
+        return this.defaultProfile.computeSpawnChance(difficulty, y);
+    }
+
+    /**
+     * Gets the globally configured spawn chance for a difficulty, before the distribution function is applied.
+     *
+     * @param difficulty The world difficulty.
+     * @return The configured spawn chance.
+     */
+    public double getBaseSpawnChance(final @NotNull Difficulty difficulty) {
+        return this.defaultProfile.getBaseSpawnChance(difficulty);
+    }
+
+    /**
+     * Gets the minimum Y value of the global spawn range.
+     *
+     * @return The minimum Y value.
+     */
+    public int getMinY() {
+        return this.defaultProfile.getMinY();
+    }
+
+    /**
+     * Gets the maximum Y value of the global spawn range.
+     *
+     * @return The maximum Y value.
+     */
+    public int getMaxY() {
+        return this.defaultProfile.getMaxY();
+    }
+
+    /**
+     * Gets whether spawns may occur below the global minimum Y value.
+     *
+     * @return {@code true} if spawns may occur below the minimum Y value; otherwise, {@code false}.
+     */
+    public boolean allowSpawnsBelowMinY() {
+        return this.defaultProfile.allowSpawnsBelowMinY();
+    }
+
+    /**
+     * Gets the global spawn distribution curve.
+     *
+     * @return The spawn distribution curve.
+     */
+    public @NotNull DistributionCurve getDistribution() {
+        return this.defaultProfile.getDistribution();
+    }
+
+    /**
+     * Decides whether a spawn is replaced, trying each rule which may replace the entity type in order until one
+     * rule's checks all pass. This is the only place the decision is made: the spawn listener, the simulator and the
+     * journal replay differ only in how the evaluation looks up its inputs.
+     * The outcome is also stored in the evaluation.
+     *
+     * @param entityType The type of the spawning entity.
+     * @param evaluation The spawn's inputs.
+     * @param statistics Counts the checks each guard makes, or {@code null} not to count them.
+     * @return The rule whose checks all passed, or {@code null} if the spawn isn't replaced.
+     */
+    public @Nullable ReplacementRule evaluateReplacement(final @NotNull EntityType entityType, final @NotNull SpawnEvaluation evaluation, final @Nullable SpawnStatistics statistics) {
+        Guard rejectedBy = Guard.TYPE;
+        for (final ReplacementRule rule : this.getReplacementRules(entityType)) {
+            rejectedBy = rule.evaluate(this, evaluation, statistics);
+            if (rejectedBy == null) {
+                evaluation.setOutcome(rule, null);
+                return rule;
+            }
+        }
+        evaluation.setOutcome(null, rejectedBy);
+        return null;
+    }
+
+    /**
+     * Decides whether a cave spider spawns with a jockey.
+     *
+     * @param evaluation The spawn's inputs.
+     * @return The guard which rejected the jockey, or {@code null} if a jockey spawns.
+     */
+    public @Nullable Guard evaluateJockey(final @NotNull SpawnEvaluation evaluation) {
+        if (evaluation.getDifficulty() != Difficulty.HARD) {
+            return Guard.DIFFICULTY;
+        }
+        final double jockeyChance = this.jockeyChance * evaluation.getMultiplier();
+        evaluation.setSpawnChance(jockeyChance);
+        return evaluation.getRoll(JOCKEY_ROLL_STREAM) > jockeyChance ? Guard.CHANCE : null;
+    }
+
+    /**
+     * Gets the jockey type for a cave spider spawned in an environment and biome.
+     *
+     * @param environment The world environment.
+     * @param biome       The biome.
+     * @return The jockey type.
+     */
+    public @NotNull EntityType getJockeyType(final @NotNull World.Environment environment, final @NotNull Biome biome) {
+        return environment == World.Environment.NETHER ? EntityType.ZOMBIFIED_PIGLIN : JOCKEY_TYPES[biome.ordinal()];
+    }
+
+    /**
+     * Gets the chance that a cave spider spawns with a jockey.
+     *
+     * @return The jockey chance.
+     */
+    public double getJockeyChance() {
+        return this.jockeyChance;
+    }
+
+    /**
+     * Gets whether debug logging is enabled.
+     *
+     * @return {@code true} if debug logging is enabled; otherwise, {@code false}.
+     */
+    public boolean isDebug() {
+        return this.debug;
+    }
+
+    /**
+     * Gets the source of spawn rolls.
+     *
+     * @return The random source.
+     */
+    public @NotNull RandomSource getRandomSource() {
+        return this.randomSource;
+    }
+
+    /**
+     * Checks whether any replacement cap or rate limit is enabled.
+     *
+     * @return {@code true} if replacements are limited; otherwise, {@code false}.
+     */
+    public boolean isLimited() {
+        return this.maxCaveSpidersPerChunk > 0 || this.maxCaveSpidersPerWorld > 0 || this.replacementsPerChunkPerSecond > 0D;
+    }
+
+    /**
+     * Gets the maximum number of cave spiders per chunk.
+     *
+     * @return The per-chunk cap, or zero if uncapped.
+     */
+    public int getMaxCaveSpidersPerChunk() {
+        return this.maxCaveSpidersPerChunk;
+    }
+
+    /**
+     * Gets the maximum number of cave spiders per world.
+     *
+     * @return The per-world cap, or zero if uncapped.
+     */
+    public int getMaxCaveSpidersPerWorld() {
+        return this.maxCaveSpidersPerWorld;
+    }
+
+    /**
+     * Gets the number of replacements allowed per chunk each second.
+     *
+     * @return The replacement rate, or zero if unlimited.
+     */
+    public double getReplacementsPerChunkPerSecond() {
+        return this.replacementsPerChunkPerSecond;
+    }
+
+    /**
+     * Gets the number of replacements per chunk allowed in a burst.
+     *
+     * @return The burst size.
+     */
+    public int getReplacementBurst() {
+        return this.replacementBurst;
+    }
+
+    /**
+     * Gets whether spawn statistics are collected.
+     *
+     * @return {@code true} if statistics are collected; otherwise, {@code false}.
+     */
+    public boolean isStatisticsEnabled() {
+        return this.statisticsEnabled;
+    }
+
+    /**
+     * Gets the replacement pipeline stages in evaluation order.
+     * The returned array is shared and must not be modified.
+     *
+     * @return The replacement pipeline stages.
+     */
+    public @NotNull Guard[] getReplacementGuards() {
+        return this.replacementGuards;
+    }
+
+    /**
+     * Gets whether replacement and jockey spawns are queued instead of spawned inside the event handler.
+     *
+     * @return {@code true} if spawns are deferred; otherwise, {@code false}.
+     */
+    public boolean isDeferredSpawns() {
+        return this.deferredSpawns;
+    }
+
+    /**
+     * Gets the maximum number of queued spawns.
+     *
+     * @return The queue capacity.
+     */
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * Gets the maximum number of queued spawns to run each tick.
+     *
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Gets the time budget for running queued spawns each tick.
+     *
+     * @return The time budget, in nanoseconds.
+     */
+    public long getTickBudgetNanos() {
+        return this.tickBudgetNanos;
+    }
+
+    /**
+     * Gets the maximum number of chunk sections to cache biomes for per world.
+     *
+     * @return The number of sections, or zero if biome lookups are not cached.
+     */
+    public int getBiomeCacheSections() {
+        return this.biomeCacheSections;
+    }
+}
@@ -0,0 +1,400 @@
+package dev.satyrn.deepcavespiders.culling;
+
+import dev.satyrn.deepcavespiders.util.SpawnLimiter;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the loaded entities which the plugin spawned, grouped by world and chunk.
+ * Each world's chunks are held in open-addressed tables keyed by chunk key and striped by 8x8 chunk area, and each
+ * chunk holds the unique IDs of its entities as pairs of longs, so tracking an entity allocates nothing once its
+ * chunk's array is large enough. Entities are filed under the chunk they were in when they were tracked; the sweeper
+ * moves them as it finds them elsewhere. The registry is safe to use from any thread.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnedEntityRegistry {
+    // The number of stripes per world. Must be a power of two.
+    private static final int STRIPES = 16;
+    // An empty array of entity IDs.
+    private static final long[] NO_ENTITIES = new long[0];
+
+    // Tracked chunks, by world ID.
+    private final @NotNull Map<UUID, ChunkTable[]> worlds = new ConcurrentHashMap<>();
+    // The number of tracked entities.
+    private final @NotNull AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Tracks an entity in the chunk it is in. Tracking an entity which is already tracked in that chunk does nothing.
+     *
+     * @param entity The entity.
+     */
+    public void track(final @NotNull Entity entity) {
+        final Location location = entity.getLocation();
+        final UUID id = entity.getUniqueId();
+        final int chunkX = location.getBlockX() >> 4;
+        final int chunkZ = location.getBlockZ() >> 4;
+        final ChunkTable table = this.stripe(location.getWorld(), chunkX, chunkZ);
+        synchronized (table) {
+            if (table.add(SpawnLimiter.chunkKey(chunkX, chunkZ), id.getMostSignificantBits(), id.getLeastSignificantBits())) {
+                this.size.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stops tracking an entity. The chunk the entity is in is checked first, and then every chunk in its world.
+     *
+     * @param entity The entity.
+     */
+    public void untrack(final @NotNull Entity entity) {
+        final ChunkTable[] stripes = this.worlds.get(entity.getWorld().getUID());
+        if (stripes == null) {
+            return;
+        }
+        final Location location = entity.getLocation();
+        final UUID id = entity.getUniqueId();
+        final long most = id.getMostSignificantBits();
+        final long least = id.getLeastSignificantBits();
+        final int chunkX = location.getBlockX() >> 4;
+        final int chunkZ = location.getBlockZ() >> 4;
+        final ChunkTable table = stripes[stripe(chunkX, chunkZ)];
+        synchronized (table) {
+            if (table.remove(SpawnLimiter.chunkKey(chunkX, chunkZ), most, least)) {
+                this.size.decrementAndGet();
+                return;
+            }
+        }
+        for (final ChunkTable other : stripes) {
+            synchronized (other) {
+                if (other.removeAnywhere(most, least)) {
+                    this.size.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops tracking an entity in a chunk.
+     *
+     * @param world    The world.
+     * @param chunkKey The chunk key.
+     * @param most     The most significant bits of the entity's unique ID.
+     * @param least    The least significant bits of the entity's unique ID.
+     */
+    public void remove(final @NotNull World world, final long chunkKey, final long most, final long least) {
+        final ChunkTable table = this.stripe(world, (int) chunkKey, (int) (chunkKey >> 32));
+        synchronized (table) {
+            if (table.remove(chunkKey, most, least)) {
+                this.size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Files a tracked entity under another chunk.
+     *
+     * @param world The world.
+     * @param from  The key of the chunk the entity is tracked in.
+     * @param to    The key of the chunk the entity is in now.
+     * @param most  The most significant bits of the entity's unique ID.
+     * @param least The least significant bits of the entity's unique ID.
+     */
+    public void move(final @NotNull World world, final long from, final long to, final long most, final long least) {
+        final ChunkTable source = this.stripe(world, (int) from, (int) (from >> 32));
+        synchronized (source) {
+            if (!source.remove(from, most, least)) {
+                return;
+            }
+        }
+        final ChunkTable target = this.stripe(world, (int) to, (int) (to >> 32));
+        synchronized (target) {
+            if (!target.add(to, most, least)) {
+                this.size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets the keys of the chunks in a world which hold tracked entities.
+     *
+     * @param world The world.
+     * @return A copy of the chunk keys.
+     */
+    public long @NotNull [] getChunks(final @NotNull World world) {
+        final ChunkTable[] stripes = this.worlds.get(world.getUID());
+        if (stripes == null) {
+            return NO_ENTITIES;
+        }
+        long[] chunks = new long[64];
+        int count = 0;
+        for (final ChunkTable table : stripes) {
+            synchronized (table) {
+                if (count + table.size > chunks.length) {
+                    chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, count + table.size));
+                }
+                count = table.keys(chunks, count);
+            }
+        }
+        return count == chunks.length ? chunks : Arrays.copyOf(chunks, count);
+    }
+
+    /**
+     * Gets the entities tracked in a chunk.
+     *
+     * @param world    The world.
+     * @param chunkKey The chunk key.
+     * @return A copy of the entities' unique IDs, as pairs of most and least significant bits.
+     */
+    public long @NotNull [] getEntities(final @NotNull World world, final long chunkKey) {
+        final ChunkTable[] stripes = this.worlds.get(world.getUID());
+        if (stripes == null) {
+            return NO_ENTITIES;
+        }
+        final ChunkTable table = stripes[stripe((int) chunkKey, (int) (chunkKey >> 32))];
+        synchronized (table) {
+            return table.entities(chunkKey);
+        }
+    }
+
+    /**
+     * Gets the number of tracked entities.
+     *
+     * @return The number of entities.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Stops tracking every entity in a world. Called when the world is unloaded.
+     *
+     * @param world The world.
+     */
+    public void clear(final @NotNull World world) {
+        final ChunkTable[] stripes = this.worlds.remove(world.getUID());
+        if (stripes != null) {
+            for (final ChunkTable table : stripes) {
+                synchronized (table) {
+                    this.size.addAndGet(-table.clear());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops tracking every entity.
+     */
+    public void clear() {
+        for (final ChunkTable[] stripes : this.worlds.values()) {
+            for (final ChunkTable table : stripes) {
+                synchronized (table) {
+                    this.size.addAndGet(-table.clear());
+                }
+            }
+        }
+        this.worlds.clear();
+    }
+
+    // Gets the stripe for a chunk, creating the world's stripes if needed.
+    private @NotNull ChunkTable stripe(final @NotNull World world, final int chunkX, final int chunkZ) {
+        final ChunkTable[] stripes = this.worlds.computeIfAbsent(world.getUID(), id -> {
+            final ChunkTable[] tables = new ChunkTable[STRIPES];
+            for (int i = 0; i < STRIPES; ++i) {
+                tables[i] = new ChunkTable();
+            }
+            return tables;
+        });
+        return stripes[stripe(chunkX, chunkZ)];
+    }
+
+    // Gets the stripe index for a chunk.
+    private static int stripe(final int chunkX, final int chunkZ) {
+        final int area = (chunkX >> 3) * 31 + (chunkZ >> 3);
+        return (area ^ (area >>> 16)) & (STRIPES - 1);
+    }
+
+    // Spreads a chunk key over the table.
+    private static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    // An open-addressed table of chunks and their tracked entities. Not thread safe; callers lock the table.
+    private static final class ChunkTable {
+        // Chunk keys, by position.
+        private long[] chunkKeys = new long[16];
+        // Entity IDs as most and least significant bit pairs, by position, or null for free positions.
+        private long[][] entities = new long[16][];
+        // The number of entities in each chunk, by position.
+        private int[] counts = new int[16];
+        // The number of chunks in the table.
+        private int size;
+
+        // Adds an entity to a chunk. Returns false if it is already there.
+        private boolean add(final long chunkKey, final long most, final long least) {
+            int position = this.find(chunkKey);
+            if (position < 0) {
+                if ((this.size + 1) * 4 > this.chunkKeys.length * 3) {
+                    this.grow();
+                }
+                position = this.free(chunkKey);
+                this.chunkKeys[position] = chunkKey;
+                this.entities[position] = new long[8];
+                ++this.size;
+            }
+            long[] ids = this.entities[position];
+            final int count = this.counts[position];
+            for (int i = 0; i < count * 2; i += 2) {
+                if (ids[i] == most && ids[i + 1] == least) {
+                    return false;
+                }
+            }
+            if (count * 2 == ids.length) {
+                ids = this.entities[position] = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[count * 2] = most;
+            ids[count * 2 + 1] = least;
+            this.counts[position] = count + 1;
+            return true;
+        }
+
+        // Removes an entity from a chunk. Returns false if it isn't there.
+        private boolean remove(final long chunkKey, final long most, final long least) {
+            final int position = this.find(chunkKey);
+            return position >= 0 && this.remove(position, most, least);
+        }
+
+        // Removes an entity from whichever chunk holds it. Returns false if no chunk does.
+        private boolean removeAnywhere(final long most, final long least) {
+            for (int position = 0; position < this.entities.length; ++position) {
+                if (this.entities[position] != null && this.remove(position, most, least)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Removes an entity from the chunk at a position, and the chunk itself once it is empty.
+        private boolean remove(final int position, final long most, final long least) {
+            final long[] ids = this.entities[position];
+            final int last = (this.counts[position] - 1) * 2;
+            for (int i = 0; i <= last; i += 2) {
+                if (ids[i] == most && ids[i + 1] == least) {
+                    ids[i] = ids[last];
+                    ids[i + 1] = ids[last + 1];
+                    if (last == 0) {
+                        this.delete(position);
+                    } else {
+                        this.counts[position] = last / 2;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Copies the entities in a chunk.
+        private long @NotNull [] entities(final long chunkKey) {
+            final int position = this.find(chunkKey);
+            return position < 0 ? NO_ENTITIES : Arrays.copyOf(this.entities[position], this.counts[position] * 2);
+        }
+
+        // Copies the chunk keys into an array, starting at an offset. Returns the offset after the last key.
+        private int keys(final long @NotNull [] out, int offset) {
+            for (int position = 0; position < this.entities.length; ++position) {
+                if (this.entities[position] != null) {
+                    out[offset++] = this.chunkKeys[position];
+                }
+            }
+            return offset;
+        }
+
+        // Empties the table. Returns the number of entities which were in it.
+        private int clear() {
+            int removed = 0;
+            for (final int count : this.counts) {
+                removed += count;
+            }
+            Arrays.fill(this.entities, null);
+            Arrays.fill(this.counts, 0);
+            this.size = 0;
+            return removed;
+        }
+
+        // Finds the position of a chunk, or -1 if the chunk isn't in the table.
+        private int find(final long chunkKey) {
+            final int mask = this.chunkKeys.length - 1;
+            int position = hash(chunkKey) & mask;
+            while (this.entities[position] != null) {
+                if (this.chunkKeys[position] == chunkKey) {
+                    return position;
+                }
+                position = (position + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Finds the free position at which a chunk would be inserted.
+        private int free(final long chunkKey) {
+            final int mask = this.chunkKeys.length - 1;
+            int position = hash(chunkKey) & mask;
+            while (this.entities[position] != null) {
+                position = (position + 1) & mask;
+            }
+            return position;
+        }
+
+        // Removes the chunk at a position, shifting later chunks of the same probe run back so that lookups still find them.
+        private void delete(int position) {
+            final int mask = this.chunkKeys.length - 1;
+            int next = position;
+            while (true) {
+                next = (next + 1) & mask;
+                if (this.entities[next] == null) {
+                    break;
+                }
+                final int home = hash(this.chunkKeys[next]) & mask;
+                // Move the chunk back unless its home position lies cyclically between the gap and itself.
+                final boolean between = position <= next ? position < home && home <= next : position < home || home <= next;
+                if (!between) {
+                    this.chunkKeys[position] = this.chunkKeys[next];
+                    this.entities[position] = this.entities[next];
+                    this.counts[position] = this.counts[next];
+                    position = next;
+                }
+            }
+            this.entities[position] = null;
+            this.counts[position] = 0;
+            --this.size;
+        }
+
+        // Doubles the table's capacity, reinserting every chunk.
+        private void grow() {
+            final long[] chunkKeys = this.chunkKeys;
+            final long[][] entities = this.entities;
+            final int[] counts = this.counts;
+            this.chunkKeys = new long[chunkKeys.length * 2];
+            this.entities = new long[chunkKeys.length * 2][];
+            this.counts = new int[chunkKeys.length * 2];
+            for (int i = 0; i < chunkKeys.length; ++i) {
+                if (entities[i] != null) {
+                    final int position = this.free(chunkKeys[i]);
+                    this.chunkKeys[position] = chunkKeys[i];
+                    this.entities[position] = entities[i];
+                    this.counts[position] = counts[i];
+                }
+            }
+        }
+    }
+}
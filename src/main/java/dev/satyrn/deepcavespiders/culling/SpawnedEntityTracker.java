@@ -0,0 +1,306 @@
+package dev.satyrn.deepcavespiders.culling;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.deepcavespiders.util.SpawnLimiter;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Marks the mobs which the plugin spawns, keeps track of them while they are loaded, and optionally culls them.
+ * Replacements, riders and jockeys are marked on spawn, and the mark is saved with the entity, so they are tracked
+ * again whenever their chunk is loaded. When culling is enabled, a timer walks the tracked chunks round-robin within
+ * a time budget per run, removing tracked mobs with no player nearby and mobs above the per-chunk limit. Named,
+ * leashed and otherwise persistent mobs are never culled. On region-threaded servers, each chunk is swept on the
+ * thread which owns it, and the budget only bounds how many chunks are handed out per run.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnedEntityTracker implements Listener {
+    // The task scheduler.
+    private final @NotNull TaskScheduler scheduler;
+    private final @NotNull Plugin plugin;
+    // The key which marks spawned mobs.
+    private final @NotNull NamespacedKey key;
+    // The tracked mobs.
+    private final @NotNull SpawnedEntityRegistry registry = new SpawnedEntityRegistry();
+    // The number of mobs culled with no player nearby.
+    private final @NotNull LongAdder culledByDistance = new LongAdder();
+    // The number of mobs culled above the per-chunk limit.
+    private final @NotNull LongAdder culledByLimit = new LongAdder();
+    // The options in effect, or null if culling is disabled.
+    private volatile @Nullable Settings settings;
+    // The sweep task, or null if culling is disabled.
+    private @Nullable TaskScheduler.Task task;
+    // The sweep cursor, only used on the global thread: the world being swept, its chunks, and the next chunk.
+    private int worldIndex = -1;
+    private @Nullable World world;
+    private long @Nullable [] chunks;
+    private int chunkIndex;
+
+    /**
+     * Creates a new spawned entity tracker. Culling is disabled until it is configured.
+     *
+     * @param plugin    The plugin.
+     * @param scheduler The task scheduler.
+     */
+    public SpawnedEntityTracker(final @NotNull Plugin plugin, final @NotNull TaskScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.key = new NamespacedKey(plugin, "spawned");
+    }
+
+    /**
+     * Applies the culling options, rescheduling the sweep task. Must be called from the global thread.
+     *
+     * @param container The culling options.
+     */
+    public void configure(final @NotNull Configuration.CullingContainer container) {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        if (!container.enabled.value()) {
+            this.settings = null;
+            return;
+        }
+        final Settings settings = new Settings(container);
+        this.settings = settings;
+        this.task = this.scheduler.runGlobalTimer(this::sweep, settings.interval, settings.interval);
+    }
+
+    /**
+     * Stops culling and forgets every tracked mob. Called when the plugin is disabled.
+     */
+    public void close() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        this.settings = null;
+        this.resetCursor();
+        this.registry.clear();
+    }
+
+    /**
+     * Checks whether culling is enabled.
+     *
+     * @return {@code true} if tracked mobs are culled; otherwise, {@code false}.
+     */
+    public boolean isEnabled() {
+        return this.settings != null;
+    }
+
+    /**
+     * Marks a mob as spawned by the plugin and starts tracking it. Must be called from the thread which owns the mob.
+     *
+     * @param entity The mob.
+     */
+    public void mark(final @NotNull Entity entity) {
+        if (entity.isValid()) {
+            entity.getPersistentDataContainer().set(this.key, PersistentDataType.BYTE, (byte) 1);
+            this.registry.track(entity);
+        }
+    }
+
+    /**
+     * Checks whether a mob was spawned by the plugin.
+     *
+     * @param entity The mob.
+     * @return {@code true} if the mob is marked; otherwise, {@code false}.
+     */
+    public boolean isMarked(final @NotNull Entity entity) {
+        return entity.getPersistentDataContainer().has(this.key, PersistentDataType.BYTE);
+    }
+
+    /**
+     * Gets the number of tracked mobs.
+     *
+     * @return The number of loaded mobs spawned by the plugin.
+     */
+    public int getTracked() {
+        return this.registry.size();
+    }
+
+    /**
+     * Gets the number of mobs culled because no player was nearby.
+     *
+     * @return The number of mobs culled by distance.
+     */
+    public long getCulledByDistance() {
+        return this.culledByDistance.sum();
+    }
+
+    /**
+     * Gets the number of mobs culled because their chunk was over the limit.
+     *
+     * @return The number of mobs culled by the per-chunk limit.
+     */
+    public long getCulledByLimit() {
+        return this.culledByLimit.sum();
+    }
+
+    /**
+     * Resets the culling counters.
+     */
+    public void resetCounters() {
+        this.culledByDistance.reset();
+        this.culledByLimit.reset();
+    }
+
+    /**
+     * Tracks marked mobs as they are loaded.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityAddToWorld(EntityAddToWorldEvent event) {
+        final Entity entity = event.getEntity();
+        if (entity instanceof LivingEntity && this.isMarked(entity)) {
+            this.registry.track(entity);
+        }
+    }
+
+    /**
+     * Stops tracking marked mobs as they are unloaded or removed.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        final Entity entity = event.getEntity();
+        if (entity instanceof LivingEntity && this.isMarked(entity)) {
+            this.registry.untrack(entity);
+        }
+    }
+
+    /**
+     * Forgets the mobs tracked in worlds which are unloaded.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.registry.clear(event.getWorld());
+        if (event.getWorld() == this.world) {
+            this.resetCursor();
+        }
+    }
+
+    // Sweeps tracked chunks, continuing from where the last run stopped, until every world has been visited once or
+    // the time budget runs out.
+    private void sweep() {
+        final Settings settings = this.settings;
+        if (settings == null) {
+            return;
+        }
+        final long deadline = System.nanoTime() + settings.budget;
+        final List<World> worlds = this.plugin.getServer().getWorlds();
+        int worldsStarted = 0;
+        while (System.nanoTime() < deadline) {
+            final World world = this.world;
+            final long[] chunks = this.chunks;
+            if (world == null || chunks == null || this.chunkIndex >= chunks.length) {
+                if (worlds.isEmpty() || worldsStarted++ >= worlds.size()) {
+                    return;
+                }
+                this.worldIndex = (this.worldIndex + 1) % worlds.size();
+                this.world = worlds.get(this.worldIndex);
+                this.chunks = this.registry.getChunks(this.world);
+                this.chunkIndex = 0;
+                continue;
+            }
+            final long chunkKey = chunks[this.chunkIndex++];
+            if (this.scheduler.isRegionThreaded()) {
+                final Location location = new Location(world, ((int) chunkKey << 4) + 8, 0D, ((int) (chunkKey >> 32) << 4) + 8);
+                this.scheduler.runAt(location, () -> this.sweepChunk(world, chunkKey, settings));
+            } else {
+                this.sweepChunk(world, chunkKey, settings);
+            }
+        }
+    }
+
+    // Culls the tracked mobs in a chunk which are far from players or over the limit. Runs on the thread which owns the
+    // chunk.
+    private void sweepChunk(final @NotNull World world, final long chunkKey, final @NotNull Settings settings) {
+        final long[] entities = this.registry.getEntities(world, chunkKey);
+        int kept = 0;
+        for (int i = 0; i < entities.length; i += 2) {
+            final long most = entities[i];
+            final long least = entities[i + 1];
+            final Entity entity = world.getEntity(new UUID(most, least));
+            if (entity == null || !entity.isValid()) {
+                this.registry.remove(world, chunkKey, most, least);
+                continue;
+            }
+            final Location location = entity.getLocation();
+            final long current = SpawnLimiter.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            if (current != chunkKey) {
+                // Swept again under its new chunk, which another thread may own.
+                this.registry.move(world, chunkKey, current, most, least);
+                continue;
+            }
+            if (entity instanceof final LivingEntity living && (!living.getRemoveWhenFarAway() || living.isLeashed())) {
+                ++kept;
+            } else if (settings.despawnDistance > 0D && location.getNearbyPlayers(settings.despawnDistance).isEmpty()) {
+                this.cull(world, chunkKey, entity, most, least);
+                this.culledByDistance.increment();
+            } else if (settings.maxPerChunk > 0 && ++kept > settings.maxPerChunk) {
+                this.cull(world, chunkKey, entity, most, least);
+                this.culledByLimit.increment();
+            }
+        }
+    }
+
+    // Removes a mob and its marked passengers.
+    private void cull(final @NotNull World world, final long chunkKey, final @NotNull Entity entity, final long most, final long least) {
+        for (final Entity passenger : entity.getPassengers()) {
+            if (this.isMarked(passenger)) {
+                passenger.remove();
+            }
+        }
+        entity.remove();
+        this.registry.remove(world, chunkKey, most, least);
+    }
+
+    // Starts the next sweep from the first world.
+    private void resetCursor() {
+        this.worldIndex = -1;
+        this.world = null;
+        this.chunks = null;
+        this.chunkIndex = 0;
+    }
+
+    // The culling options, read once when culling is configured.
+    private static final class Settings {
+        private final long interval;
+        private final long budget;
+        private final double despawnDistance;
+        private final int maxPerChunk;
+
+        private Settings(final @NotNull Configuration.CullingContainer container) {
+            this.interval = container.interval.value();
+            this.budget = container.sweepBudget.value() * 1000L;
+            this.despawnDistance = container.despawnDistance.value();
+            this.maxPerChunk = container.maxPerChunk.value();
+        }
+    }
+}
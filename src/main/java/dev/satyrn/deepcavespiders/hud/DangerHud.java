@@ -0,0 +1,255 @@
+package dev.satyrn.deepcavespiders.hud;
+
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.listeners.SpawnEntityListener;
+import dev.satyrn.deepcavespiders.util.ChanceFormatCache;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
+import dev.satyrn.papermc.api.lang.v1.I18n;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shows players who opt in the chance that a spawn at their position becomes a cave spider.
+ * All watchers are refreshed by a single timer. Each refresh reads the precomputed chance table for the player's Y
+ * value and cached biome, and the displayed text is formatted once per distinct chance, so the cost per watcher is a
+ * few array lookups and a packet. On region-threaded servers, each watcher is refreshed on the thread which owns it.
+ * Whether a player has opted in is stored on the player, so it persists across sessions.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class DangerHud implements Listener {
+    // The spawn listener, which holds the current rules and the biome cache.
+    private final @NotNull SpawnEntityListener spawnEntityListener;
+    // The task scheduler.
+    private final @NotNull TaskScheduler scheduler;
+    // The key which marks players who have opted in.
+    private final @NotNull NamespacedKey key;
+    // Formats spawn chances.
+    private final @NotNull ChanceFormatCache chanceFormat;
+    // The players who have opted in.
+    private final @NotNull Map<UUID, Watcher> watchers = new ConcurrentHashMap<>();
+    // Where the indicator is shown.
+    private volatile @NotNull HudDisplay display = HudDisplay.ACTION_BAR;
+    // Action bar messages, indexed by chance step. Replaced when the HUD is configured, since the locale may change.
+    private volatile @NotNull AtomicReferenceArray<Component> actionBars = new AtomicReferenceArray<>(ChanceFormatCache.STEPS + 1);
+    // Boss bar titles, indexed by chance step.
+    private volatile @NotNull AtomicReferenceArray<String> titles = new AtomicReferenceArray<>(ChanceFormatCache.STEPS + 1);
+    // The refresh task, or null if the HUD is disabled.
+    private @Nullable TaskScheduler.Task task;
+
+    /**
+     * Creates a new spider danger HUD.
+     *
+     * @param plugin              The plugin.
+     * @param spawnEntityListener The spawn listener.
+     * @param scheduler           The task scheduler.
+     * @param chanceFormat        Formats spawn chances.
+     */
+    public DangerHud(final @NotNull Plugin plugin, final @NotNull SpawnEntityListener spawnEntityListener, final @NotNull TaskScheduler scheduler, final @NotNull ChanceFormatCache chanceFormat) {
+        this.spawnEntityListener = spawnEntityListener;
+        this.scheduler = scheduler;
+        this.chanceFormat = chanceFormat;
+        this.key = new NamespacedKey(plugin, "hud");
+    }
+
+    /**
+     * Applies the HUD options, rescheduling the refresh task. Must be called from the global thread.
+     *
+     * @param enabled  Whether players may use the HUD.
+     * @param display  Where the indicator is shown.
+     * @param interval The number of ticks between refreshes.
+     */
+    public void configure(final boolean enabled, final @NotNull HudDisplay display, final int interval) {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        if (display != this.display || !enabled) {
+            for (final Watcher watcher : this.watchers.values()) {
+                watcher.hideBossBar();
+            }
+        }
+        this.display = display;
+        this.actionBars = new AtomicReferenceArray<>(ChanceFormatCache.STEPS + 1);
+        this.titles = new AtomicReferenceArray<>(ChanceFormatCache.STEPS + 1);
+        for (final Watcher watcher : this.watchers.values()) {
+            watcher.step = -1;
+        }
+        if (enabled) {
+            this.task = this.scheduler.runGlobalTimer(this::refresh, interval, interval);
+        }
+    }
+
+    /**
+     * Checks whether the HUD is enabled.
+     *
+     * @return {@code true} if players may use the HUD; otherwise, {@code false}.
+     */
+    public boolean isEnabled() {
+        return this.task != null;
+    }
+
+    /**
+     * Toggles the HUD for a player. Must be called from the thread which owns the player.
+     *
+     * @param player The player.
+     * @return {@code true} if the HUD is now shown to the player; otherwise, {@code false}.
+     */
+    public boolean toggle(final @NotNull Player player) {
+        final Watcher watcher = this.watchers.remove(player.getUniqueId());
+        if (watcher != null) {
+            watcher.hideBossBar();
+            player.getPersistentDataContainer().remove(this.key);
+            return false;
+        }
+        this.watchers.put(player.getUniqueId(), new Watcher(player));
+        player.getPersistentDataContainer().set(this.key, PersistentDataType.BYTE, (byte) 1);
+        return true;
+    }
+
+    /**
+     * Removes all indicators. Called when the plugin is disabled.
+     */
+    public void close() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        for (final Watcher watcher : this.watchers.values()) {
+            watcher.hideBossBar();
+        }
+        this.watchers.clear();
+    }
+
+    /**
+     * Restores the HUD for players who opted in during an earlier session.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        final Player player = event.getPlayer();
+        if (player.getPersistentDataContainer().has(this.key, PersistentDataType.BYTE)) {
+            this.watchers.put(player.getUniqueId(), new Watcher(player));
+        }
+    }
+
+    /**
+     * Stops refreshing the HUD for players who leave.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        final Watcher watcher = this.watchers.remove(event.getPlayer().getUniqueId());
+        if (watcher != null) {
+            watcher.hideBossBar();
+        }
+    }
+
+    // Refreshes every watcher.
+    private void refresh() {
+        if (this.watchers.isEmpty()) {
+            return;
+        }
+        final SpawnRules rules = this.spawnEntityListener.getRules();
+        for (final Watcher watcher : this.watchers.values()) {
+            if (this.scheduler.isOwnedByCurrentThread(watcher.player)) {
+                this.update(watcher, rules);
+            } else {
+                this.scheduler.runFor(watcher.player, () -> this.update(watcher, rules), () -> {
+                });
+            }
+        }
+    }
+
+    // Refreshes a watcher's indicator from the spawn chance at its position.
+    private void update(final @NotNull Watcher watcher, final @NotNull SpawnRules rules) {
+        final Player player = watcher.player;
+        final Location location = player.getLocation();
+        final World world = location.getWorld();
+        final double chance = rules.getProfile(world, this.spawnEntityListener.getBiomeCache().getBiome(location, rules.getBiomeCacheSections()))
+                .getSpawnChance(world.getDifficulty(), location.getBlockY()) * this.spawnEntityListener.getThrottle().getMultiplier();
+        final int step = ChanceFormatCache.step(chance);
+        if (this.display == HudDisplay.BOSS_BAR) {
+            if (step != watcher.step) {
+                watcher.showBossBar(this.title(step), chance);
+            }
+        } else if (step != 0 || watcher.step != 0) {
+            // Action bar messages fade, so they are sent on every refresh, except that a zero chance is shown once.
+            Component message = this.actionBars.get(step);
+            if (message == null) {
+                message = LegacyComponentSerializer.legacySection().deserialize(this.title(step));
+                this.actionBars.set(step, message);
+            }
+            player.sendActionBar(message);
+        }
+        watcher.step = step;
+    }
+
+    // Gets the indicator text for a chance step.
+    private @NotNull String title(final int step) {
+        String title = this.titles.get(step);
+        if (title == null) {
+            title = I18n.tr("hud.danger", this.chanceFormat.format(step / (double) ChanceFormatCache.STEPS));
+            this.titles.set(step, title);
+        }
+        return title;
+    }
+
+    // A player who has opted in, and the indicator state last shown to them.
+    private static final class Watcher {
+        private final @NotNull Player player;
+        // The chance step last shown, or -1 if nothing has been shown yet.
+        private volatile int step = -1;
+        // The player's boss bar, if the indicator is shown as a boss bar.
+        private volatile @Nullable BossBar bossBar;
+
+        private Watcher(final @NotNull Player player) {
+            this.player = player;
+        }
+
+        private void showBossBar(final @NotNull String title, final double chance) {
+            BossBar bossBar = this.bossBar;
+            if (bossBar == null) {
+                bossBar = Bukkit.createBossBar(title, BarColor.RED, BarStyle.SEGMENTED_10);
+                bossBar.addPlayer(this.player);
+                this.bossBar = bossBar;
+            } else {
+                bossBar.setTitle(title);
+            }
+            bossBar.setProgress(Math.max(0D, Math.min(1D, chance)));
+        }
+
+        private void hideBossBar() {
+            final BossBar bossBar = this.bossBar;
+            if (bossBar != null) {
+                bossBar.removeAll();
+                this.bossBar = null;
+            }
+        }
+    }
+}
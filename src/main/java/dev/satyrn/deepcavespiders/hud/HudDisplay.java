@@ -0,0 +1,18 @@
+package dev.satyrn.deepcavespiders.hud;
+
+/**
+ * Where the spider danger indicator is shown.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public enum HudDisplay {
+    /**
+     * The indicator is shown above the hotbar.
+     */
+    ACTION_BAR,
+    /**
+     * The indicator is shown as a boss bar, filled according to the spawn chance.
+     */
+    BOSS_BAR
+}
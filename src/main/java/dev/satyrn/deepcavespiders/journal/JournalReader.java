@@ -0,0 +1,101 @@
+package dev.satyrn.deepcavespiders.journal;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads spawn journal segments.
+ * A segment is mapped read-only and its records are passed, one at a time, through a single reused
+ * {@link JournalRecord} view, so reading a segment doesn't allocate per record. The view is only valid during the
+ * callback.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class JournalReader {
+    private JournalReader() {
+    }
+
+    /**
+     * Reads every written record in a segment.
+     *
+     * @param segment  The segment file.
+     * @param consumer Receives each record.
+     * @return The number of records read.
+     * @throws IOException Thrown if the file can't be read, or isn't a spawn journal segment written by a compatible
+     *                     version.
+     */
+    public static long read(final @NotNull Path segment, final @NotNull Consumer<JournalRecord> consumer) throws IOException {
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() < SpawnJournal.HEADER_SIZE) {
+                throw new IOException(segment.getFileName() + " is too small to be a spawn journal segment");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, Math.min(channel.size(), Integer.MAX_VALUE));
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt(0) != SpawnJournal.MAGIC) {
+            throw new IOException(segment.getFileName() + " is not a spawn journal segment");
+        }
+        if (buffer.getShort(4) != SpawnJournal.VERSION || buffer.getShort(6) != JournalRecord.SIZE) {
+            throw new IOException(segment.getFileName() + " was written by an unsupported journal version " + buffer.getShort(4));
+        }
+        // Enum values are stored by ordinal, so they only decode correctly with the server version that wrote them.
+        if (buffer.getInt(16) != Biome.values().length || buffer.getInt(20) != EntityType.values().length || buffer.getInt(24) != Guard.values().length) {
+            throw new IOException(segment.getFileName() + " was written by a different server or plugin version");
+        }
+        final JournalRecord record = new JournalRecord(buffer);
+        long count = 0L;
+        // Writers claim records concurrently, so an unfinished record may sit between finished ones; skip it rather
+        // than stopping.
+        for (int offset = SpawnJournal.HEADER_SIZE; offset <= buffer.limit() - JournalRecord.SIZE; offset += JournalRecord.SIZE) {
+            if (buffer.get(offset + JournalRecord.VALID) != 0) {
+                record.moveTo(buffer, offset);
+                consumer.accept(record);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the world names recorded in a journal folder.
+     *
+     * @param folder The journal folder.
+     * @return The world names, by world ID. Empty if no names were recorded.
+     * @throws IOException Thrown if the world names file exists but can't be read.
+     */
+    public static @NotNull Map<UUID, String> readWorldNames(final @NotNull Path folder) throws IOException {
+        final Map<UUID, String> worldNames = new HashMap<>();
+        final Path file = folder.resolve(SpawnJournal.WORLDS_FILE);
+        if (!Files.isRegularFile(file)) {
+            return worldNames;
+        }
+        for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            final int separator = line.indexOf('\t');
+            if (separator > 0) {
+                try {
+                    worldNames.put(UUID.fromString(line.substring(0, separator)), line.substring(separator + 1));
+                } catch (IllegalArgumentException ignored) {
+                    // Skip lines which were cut short.
+                }
+            }
+        }
+        return worldNames;
+    }
+}
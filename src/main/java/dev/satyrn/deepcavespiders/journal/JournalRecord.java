@@ -0,0 +1,268 @@
+package dev.satyrn.deepcavespiders.journal;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * The layout of a spawn journal record, and a reusable view over one record in a buffer.
+ * Every record is {@link #SIZE} bytes long. Enum values are stored as ordinals, so a journal should be read with the
+ * same server version that wrote it; the file header records the enum sizes so that a mismatch can be detected.
+ * Only the inputs which the replacement checks actually looked up are recorded; the others are stored as "unknown".
+ * <pre>
+ *  0  byte   1 once the record has been written, 0 for unused space
+ *  1  byte   outcome: the rejecting guard's ordinal, or -1 if the spawn was replaced
+ *  2  byte   difficulty ordinal
+ *  3  byte   environment ordinal
+ *  4  short  biome ordinal, or -1 if the biome wasn't looked up
+ *  6  short  spawned entity type ordinal
+ *  8  short  random stream of the rule which matched, or -1 if no rule matched
+ * 10  byte   1 if the spawn block is liquid, 0 if it isn't, or -1 if it wasn't looked up
+ * 11  byte   reserved
+ * 12  int    block X
+ * 16  int    block Y
+ * 20  int    block Z
+ * 24  long   world time, in ticks
+ * 32  long   world UID, most significant bits
+ * 40  long   world UID, least significant bits
+ * 48  double the default rule's chance roll, or NaN if it wasn't rolled
+ * 56  double the spawn throttle's chance multiplier
+ * 64  long   wall clock time, in milliseconds since the epoch
+ * </pre>
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class JournalRecord {
+    /**
+     * The size of a record, in bytes.
+     */
+    public static final int SIZE = 72;
+    /**
+     * The outcome stored for spawns which were replaced.
+     */
+    public static final byte REPLACED = -1;
+    /**
+     * The rule stream stored when no rule matched.
+     */
+    public static final short NO_RULE = -1;
+    /**
+     * The biome stored when the biome wasn't looked up.
+     */
+    public static final short UNKNOWN_BIOME = -1;
+    /**
+     * The liquid flag stored when the spawn block wasn't looked up.
+     */
+    public static final byte UNKNOWN_LIQUID = -1;
+
+    static final int VALID = 0;
+    static final int OUTCOME = 1;
+    static final int DIFFICULTY = 2;
+    static final int ENVIRONMENT = 3;
+    static final int BIOME = 4;
+    static final int ENTITY_TYPE = 6;
+    static final int RULE = 8;
+    static final int LIQUID = 10;
+    static final int X = 12;
+    static final int Y = 16;
+    static final int Z = 20;
+    static final int TICK = 24;
+    static final int WORLD_MOST = 32;
+    static final int WORLD_LEAST = 40;
+    static final int ROLL = 48;
+    static final int MULTIPLIER = 56;
+    static final int TIME = 64;
+
+    // Enum values, cached so that decoding doesn't copy them for every record.
+    private static final Guard[] GUARDS = Guard.values();
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final World.Environment[] ENVIRONMENTS = World.Environment.values();
+    private static final Biome[] BIOMES = Biome.values();
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+    // The buffer holding the record.
+    private @NotNull ByteBuffer buffer;
+    // The offset of the record within the buffer.
+    private int offset;
+
+    JournalRecord(final @NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // Points the view at another record.
+    void moveTo(final @NotNull ByteBuffer buffer, final int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Gets the rejecting guard.
+     *
+     * @return The guard which rejected the replacement, or {@code null} if the spawn was replaced.
+     */
+    public @Nullable Guard getOutcome() {
+        final byte outcome = this.buffer.get(this.offset + OUTCOME);
+        return outcome == REPLACED ? null : GUARDS[outcome];
+    }
+
+    /**
+     * Gets the world difficulty.
+     *
+     * @return The difficulty.
+     */
+    public @NotNull Difficulty getDifficulty() {
+        return DIFFICULTIES[this.buffer.get(this.offset + DIFFICULTY)];
+    }
+
+    /**
+     * Gets the world environment.
+     *
+     * @return The environment.
+     */
+    public @NotNull World.Environment getEnvironment() {
+        return ENVIRONMENTS[this.buffer.get(this.offset + ENVIRONMENT)];
+    }
+
+    /**
+     * Gets whether the biome was looked up.
+     *
+     * @return {@code true} if the record holds the biome; otherwise, {@code false}.
+     */
+    public boolean hasBiome() {
+        return this.buffer.getShort(this.offset + BIOME) != UNKNOWN_BIOME;
+    }
+
+    /**
+     * Gets the biome at the spawn location.
+     *
+     * @return The biome, or {@code null} if it wasn't looked up.
+     */
+    public @Nullable Biome getBiome() {
+        final short biome = this.buffer.getShort(this.offset + BIOME);
+        return biome == UNKNOWN_BIOME ? null : BIOMES[biome];
+    }
+
+    /**
+     * Gets the type of the entity whose spawn was considered.
+     *
+     * @return The entity type.
+     */
+    public @NotNull EntityType getEntityType() {
+        return ENTITY_TYPES[this.buffer.getShort(this.offset + ENTITY_TYPE)];
+    }
+
+    /**
+     * Gets the random stream of the rule which matched, which identifies the rule.
+     *
+     * @return The rule's random stream, or {@link #NO_RULE} if no rule matched.
+     */
+    public int getRuleStream() {
+        return this.buffer.getShort(this.offset + RULE);
+    }
+
+    /**
+     * Gets whether the spawn block was looked up.
+     *
+     * @return {@code true} if the record holds whether the spawn block is liquid; otherwise, {@code false}.
+     */
+    public boolean hasLiquid() {
+        return this.buffer.get(this.offset + LIQUID) != UNKNOWN_LIQUID;
+    }
+
+    /**
+     * Gets whether the spawn block is liquid.
+     *
+     * @return {@code true} if the spawn block is liquid; {@code false} if it isn't, or if it wasn't looked up.
+     */
+    public boolean isLiquid() {
+        return this.buffer.get(this.offset + LIQUID) == 1;
+    }
+
+    /**
+     * Gets the block X coordinate.
+     *
+     * @return The X coordinate.
+     */
+    public int getX() {
+        return this.buffer.getInt(this.offset + X);
+    }
+
+    /**
+     * Gets the block Y coordinate.
+     *
+     * @return The Y coordinate.
+     */
+    public int getY() {
+        return this.buffer.getInt(this.offset + Y);
+    }
+
+    /**
+     * Gets the block Z coordinate.
+     *
+     * @return The Z coordinate.
+     */
+    public int getZ() {
+        return this.buffer.getInt(this.offset + Z);
+    }
+
+    /**
+     * Gets the world time at which the spawn was considered.
+     *
+     * @return The world time, in ticks.
+     */
+    public long getTick() {
+        return this.buffer.getLong(this.offset + TICK);
+    }
+
+    /**
+     * Gets the world's unique ID. Allocates a new ID on every call.
+     *
+     * @return The world ID.
+     */
+    public @NotNull UUID getWorldId() {
+        return new UUID(this.buffer.getLong(this.offset + WORLD_MOST), this.buffer.getLong(this.offset + WORLD_LEAST));
+    }
+
+    /**
+     * Gets whether the default rule's chance was rolled.
+     *
+     * @return {@code true} if the record holds the default rule's roll; otherwise, {@code false}.
+     */
+    public boolean hasRoll() {
+        return !Double.isNaN(this.getRoll());
+    }
+
+    /**
+     * Gets the default rule's chance roll.
+     *
+     * @return The roll, between 0 (inclusive) and 1 (exclusive), or NaN if the default rule's chance wasn't checked.
+     */
+    public double getRoll() {
+        return this.buffer.getDouble(this.offset + ROLL);
+    }
+
+    /**
+     * Gets the spawn throttle's multiplier, which scaled every chance when the spawn was considered.
+     *
+     * @return The chance multiplier.
+     */
+    public double getMultiplier() {
+        return this.buffer.getDouble(this.offset + MULTIPLIER);
+    }
+
+    /**
+     * Gets the wall clock time at which the spawn was considered.
+     *
+     * @return The time, in milliseconds since the epoch.
+     */
+    public long getTimeMillis() {
+        return this.buffer.getLong(this.offset + TIME);
+    }
+}
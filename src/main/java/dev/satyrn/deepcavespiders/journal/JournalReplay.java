@@ -0,0 +1,256 @@
+package dev.satyrn.deepcavespiders.journal;
+
+import dev.satyrn.deepcavespiders.configuration.ReplacementRule;
+import dev.satyrn.deepcavespiders.configuration.SpawnEvaluation;
+import dev.satyrn.deepcavespiders.configuration.SpawnProfile;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates journal records and replays each recorded decision through a set of spawn rules, so that a
+ * configuration change can be checked against the spawns a server actually saw.
+ * Each record is replayed through the same decision the spawn listener makes, reusing the record's inputs, roll and
+ * throttle multiplier, so a decision only changes if the rules do. A record only holds the inputs its own checks
+ * looked up, and only the default cave spider rule's roll, so records which another replacement rule decided, and
+ * replays which need an input that wasn't recorded, are counted but not compared.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class JournalReplay implements Consumer<JournalRecord> {
+    // The height of each Y band, in blocks.
+    private static final int BAND_HEIGHT = 16;
+    // The lowest Y value covered by the bands.
+    private static final int MIN_Y = -2048;
+    // The number of Y bands.
+    private static final int BAND_COUNT = 4096 / BAND_HEIGHT;
+
+    // The rules to replay against.
+    private final @NotNull SpawnRules rules;
+    // The world names, by world ID.
+    private final @NotNull Map<UUID, String> worldNames;
+    // Reads the inputs of the record being replayed.
+    private final @NotNull RecordEvaluation evaluation = new RecordEvaluation();
+    // The number of records read.
+    private long records;
+    // The number of records whose spawn was replaced.
+    private long replaced;
+    // The number of recorded rejections, indexed by guard ordinal.
+    private final long[] recordedRejections = new long[Guard.values().length];
+    // The number of replayed rejections, indexed by guard ordinal.
+    private final long[] replayedRejections = new long[Guard.values().length];
+    // The number of records decided by rules other than the default rule.
+    private long otherRules;
+    // The number of records whose replay needed an input which wasn't recorded.
+    private long notReplayable;
+    // The number of compared decisions which both passed, passed only when recorded, passed only when replayed, or
+    // passed neither time.
+    private long bothPassed;
+    private long recordedOnly;
+    private long replayedOnly;
+    private long neitherPassed;
+    // Per Y band: the compared decisions, the recorded passes, and the replayed passes.
+    private final long[] bandSamples = new long[BAND_COUNT];
+    private final long[] bandRecorded = new long[BAND_COUNT];
+    private final long[] bandReplayed = new long[BAND_COUNT];
+
+    /**
+     * Creates a new journal replay.
+     *
+     * @param rules      The rules to replay the journal against.
+     * @param worldNames The world names, by world ID, so that world overrides apply.
+     */
+    public JournalReplay(final @NotNull SpawnRules rules, final @NotNull Map<UUID, String> worldNames) {
+        this.rules = rules;
+        this.worldNames = worldNames;
+    }
+
+    /**
+     * Aggregates and replays a record.
+     *
+     * @param record The record.
+     */
+    @Override
+    public void accept(final @NotNull JournalRecord record) {
+        ++this.records;
+        final Guard outcome = record.getOutcome();
+        if (outcome == null) {
+            ++this.replaced;
+        } else {
+            ++this.recordedRejections[outcome.ordinal()];
+        }
+        final int ruleStream = record.getRuleStream();
+        if (ruleStream != JournalRecord.NO_RULE && ruleStream != ReplacementRule.DEFAULT_ROLL_STREAM) {
+            ++this.otherRules;
+            return;
+        }
+        // The default rule's decision, before the limiter and the queue, which depend on server state.
+        final boolean recordedPass = ruleStream == ReplacementRule.DEFAULT_ROLL_STREAM;
+        final ReplacementRule matched;
+        this.evaluation.reset(record, this.worldNames.getOrDefault(record.getWorldId(), ""));
+        try {
+            matched = this.rules.evaluateReplacement(record.getEntityType(), this.evaluation, null);
+        } catch (MissingInputException ex) {
+            ++this.notReplayable;
+            return;
+        }
+        final Guard replayed = matched == null ? this.evaluation.getRejectedBy() : matched.isDefault() ? null : Guard.TYPE;
+        final boolean replayedPass = replayed == null;
+        if (!replayedPass) {
+            ++this.replayedRejections[replayed.ordinal()];
+        }
+        if (recordedPass) {
+            if (replayedPass) {
+                ++this.bothPassed;
+            } else {
+                ++this.recordedOnly;
+            }
+        } else if (replayedPass) {
+            ++this.replayedOnly;
+        } else {
+            ++this.neitherPassed;
+        }
+        final int band = Math.max(0, Math.min(BAND_COUNT - 1, Math.floorDiv(record.getY() - MIN_Y, BAND_HEIGHT)));
+        ++this.bandSamples[band];
+        if (recordedPass) {
+            ++this.bandRecorded[band];
+        }
+        if (replayedPass) {
+            ++this.bandReplayed[band];
+        }
+    }
+
+    /**
+     * Gets the number of records read.
+     *
+     * @return The number of records.
+     */
+    public long getRecords() {
+        return this.records;
+    }
+
+    /**
+     * Gets the number of compared decisions which the replay decided differently.
+     *
+     * @return The number of changed decisions.
+     */
+    public long getChangedDecisions() {
+        return this.recordedOnly + this.replayedOnly;
+    }
+
+    /**
+     * Writes a summary of the journal and the replay.
+     *
+     * @param out The output.
+     */
+    public void writeSummary(final @NotNull PrintStream out) {
+        out.printf(Locale.ROOT, "Records: %d, replaced: %d (%.4f%%), decided by other rules: %d, not replayable: %d%n",
+                this.records, this.replaced, percent(this.replaced, this.records), this.otherRules, this.notReplayable);
+        out.println("Recorded rejections:");
+        for (final Guard guard : Guard.values()) {
+            if (this.recordedRejections[guard.ordinal()] > 0L) {
+                out.printf(Locale.ROOT, "  %-12s %d%n", guard.name().toLowerCase(Locale.ROOT), this.recordedRejections[guard.ordinal()]);
+            }
+        }
+        final long compared = this.bothPassed + this.recordedOnly + this.replayedOnly + this.neitherPassed;
+        out.printf(Locale.ROOT, "Replayed %d default rule decisions: %d unchanged, %d now rejected, %d now replaced%n",
+                compared, this.bothPassed + this.neitherPassed, this.recordedOnly, this.replayedOnly);
+        out.printf(Locale.ROOT, "Replacement rate: %.4f%% recorded, %.4f%% replayed%n",
+                percent(this.bothPassed + this.recordedOnly, compared), percent(this.bothPassed + this.replayedOnly, compared));
+        out.println("Replayed rejections:");
+        for (final Guard guard : Guard.values()) {
+            if (this.replayedRejections[guard.ordinal()] > 0L) {
+                out.printf(Locale.ROOT, "  %-12s %d%n", guard.name().toLowerCase(Locale.ROOT), this.replayedRejections[guard.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Writes the recorded and replayed replacement rates per Y band as CSV.
+     *
+     * @param writer The output.
+     * @throws IOException Thrown if the output can't be written.
+     */
+    public void writeCsv(final @NotNull Writer writer) throws IOException {
+        writer.write("minY,maxY,samples,recorded,replayed,recordedRate,replayedRate\n");
+        for (int band = 0; band < BAND_COUNT; ++band) {
+            final long samples = this.bandSamples[band];
+            if (samples == 0L) {
+                continue;
+            }
+            final int minY = MIN_Y + band * BAND_HEIGHT;
+            writer.write(String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%.6f,%.6f%n",
+                    minY, minY + BAND_HEIGHT - 1, samples, this.bandRecorded[band], this.bandReplayed[band],
+                    this.bandRecorded[band] / (double) samples, this.bandReplayed[band] / (double) samples));
+        }
+    }
+
+    // Gets a count as a percentage of a total.
+    private static double percent(final long count, final long total) {
+        return total == 0L ? 0D : 100D * count / total;
+    }
+
+    // Thrown when a replay reaches a check whose input wasn't recorded. Preallocated, since it carries no state.
+    private static final class MissingInputException extends RuntimeException {
+        private static final MissingInputException INSTANCE = new MissingInputException();
+
+        private MissingInputException() {
+            super("input not recorded", null, false, false);
+        }
+    }
+
+    // Reads the inputs of a spawn from its record.
+    private final class RecordEvaluation extends SpawnEvaluation {
+        // The record being replayed.
+        private JournalRecord record;
+        // The name of the record's world, used to apply world overrides.
+        private String worldName;
+
+        // Starts replaying a record.
+        private void reset(final @NotNull JournalRecord record, final @NotNull String worldName) {
+            this.reset(record.getEnvironment(), record.getDifficulty(), record.getY(), record.getMultiplier());
+            this.record = record;
+            this.worldName = worldName;
+        }
+
+        @Override
+        protected @NotNull SpawnProfile[] lookupProfiles() {
+            return JournalReplay.this.rules.getProfiles(this.worldName);
+        }
+
+        @Override
+        protected @NotNull Biome lookupBiome() {
+            final Biome biome = this.record.getBiome();
+            if (biome == null) {
+                throw MissingInputException.INSTANCE;
+            }
+            return biome;
+        }
+
+        @Override
+        protected boolean lookupLiquid() {
+            if (!this.record.hasLiquid()) {
+                throw MissingInputException.INSTANCE;
+            }
+            return this.record.isLiquid();
+        }
+
+        @Override
+        protected double roll(final int stream) {
+            if (stream != ReplacementRule.DEFAULT_ROLL_STREAM || !this.record.hasRoll()) {
+                throw MissingInputException.INSTANCE;
+            }
+            return this.record.getRoll();
+        }
+    }
+}
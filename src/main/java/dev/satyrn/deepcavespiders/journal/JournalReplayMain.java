@@ -0,0 +1,80 @@
+package dev.satyrn.deepcavespiders.journal;
+
+import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.simulation.HeadlessPlugin;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Aggregates a spawn journal and replays it through a configuration file, without a server.
+ * The Bukkit API must be on the class path, and should be the version the journal was written with, for example:
+ * <pre>
+ * java -cp DeepCaveSpiders.jar:paper-api.jar dev.satyrn.deepcavespiders.journal.JournalReplayMain \
+ *     config.yml plugins/DeepCaveSpiders/journal 2022-01-31 replay.csv
+ * </pre>
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class JournalReplayMain {
+    private JournalReplayMain() {
+    }
+
+    /**
+     * Runs the replay.
+     *
+     * @param args The configuration file, the journal folder, and optionally the day to replay (or {@code all}) and
+     *             the output file for the per Y band report.
+     * @throws IOException Thrown if the journal can't be read or the report can't be written.
+     */
+    public static void main(final @NotNull String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JournalReplayMain <config.yml> <journal folder> [yyyy-MM-dd|all] [output.csv]");
+            System.exit(2);
+            return;
+        }
+        final File configFile = new File(args[0]);
+        final Path folder = Path.of(args[1]);
+        final LocalDate day = args.length >= 3 && !"all".equalsIgnoreCase(args[2]) ? LocalDate.parse(args[2]) : null;
+        final Path output = args.length >= 4 ? Path.of(args[3]) : null;
+
+        final YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        final SpawnRules rules = SpawnRules.compile(new Configuration(HeadlessPlugin.create(config, configFile.getAbsoluteFile().getParentFile())));
+        final JournalReplay replay = new JournalReplay(rules, JournalReader.readWorldNames(folder));
+
+        final long start = System.nanoTime();
+        final List<Path> segments = SpawnJournal.listSegments(folder);
+        int read = 0;
+        for (final Path segment : segments) {
+            if (day != null && !day.equals(SpawnJournal.getSegmentDate(segment))) {
+                continue;
+            }
+            try {
+                JournalReader.read(segment, replay);
+                ++read;
+            } catch (IOException ex) {
+                System.err.println("Skipping " + segment.getFileName() + ": " + ex.getMessage());
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf(Locale.ROOT, "Read %d of %d segments in %.1f ms.%n", read, segments.size(), elapsed / 1e6D);
+        replay.writeSummary(System.out);
+        if (output != null) {
+            try (final Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                replay.writeCsv(writer);
+            }
+            System.out.println("Wrote " + output);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package dev.satyrn.deepcavespiders.journal;
+
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
+import org.bukkit.Difficulty;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append-only journal of replacement decisions, written to memory-mapped segment files in the plugin data folder.
+ * Each record has a fixed size (see {@link JournalRecord}), so a writer claims its slot with a single atomic add and
+ * writes it with absolute puts; recording a decision takes no lock and allocates nothing. A new segment is started
+ * when the current one is full or the day changes, and the oldest segments are deleted once there are too many.
+ * The next segment file is created and mapped ahead of time on an async task, and old segments are flushed and
+ * deleted there too, so that the thread which fills a segment only swaps in the prepared one. Only if the prepared
+ * segment isn't ready yet, or the day changed since it was prepared, is a segment started on the spawning thread.
+ * <p>
+ * The names of the worlds which appear in the journal are written once per session to {@code worlds.txt}, so that
+ * replays can apply world overrides.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnJournal implements Closeable {
+    /**
+     * The magic number at the start of every segment.
+     */
+    public static final int MAGIC = 0x44435331;
+    /**
+     * The journal format version.
+     */
+    public static final short VERSION = 2;
+    /**
+     * The size of the segment header, in bytes. The first record follows the header.
+     */
+    public static final int HEADER_SIZE = 64;
+    /**
+     * The file name extension of segment files.
+     */
+    public static final String EXTENSION = ".dcsj";
+    /**
+     * The name of the file which maps world IDs to world names.
+     */
+    public static final String WORLDS_FILE = "worlds.txt";
+    // Formats the time in segment file names, so that they sort in the order they were written.
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+    // The journal folder.
+    private final @NotNull Path folder;
+    // The size of each segment file, in bytes.
+    private final long segmentSize;
+    // The number of segment files to keep.
+    private final int maxSegments;
+    // Receives warnings about files which can't be written.
+    private final @NotNull Logger logger;
+    // Prepares segments and deletes old ones off the spawning threads.
+    private final @NotNull TaskScheduler scheduler;
+    // The worlds whose names have been written this session.
+    private final @NotNull Set<UUID> knownWorlds = ConcurrentHashMap.newKeySet();
+    // Counts segments started this session, to keep file names unique.
+    private final @NotNull AtomicInteger segmentCount = new AtomicInteger();
+    // The segment being written, or null once the journal is closed.
+    private volatile @Nullable Segment segment;
+    // The next segment, prepared ahead of time, or null if it isn't ready. Guarded by this journal.
+    private @Nullable Segment prepared;
+    // Whether the next segment is being prepared. Guarded by this journal.
+    private boolean preparing;
+    // Whether the journal is closed. Guarded by this journal.
+    private boolean closed;
+
+    private SpawnJournal(final @NotNull Path folder, final long segmentSize, final int maxSegments, final @NotNull Logger logger, final @NotNull TaskScheduler scheduler) {
+        this.folder = folder;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.logger = logger;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Opens a journal, starting a new segment.
+     *
+     * @param folder      The journal folder, which is created if needed.
+     * @param segmentSize The size of each segment file, in bytes.
+     * @param maxSegments The number of segment files to keep.
+     * @param logger      Receives warnings about files which can't be written.
+     * @param scheduler   Prepares segments and deletes old ones off the spawning threads.
+     * @return The journal.
+     * @throws IOException Thrown if the first segment can't be created.
+     */
+    public static @NotNull SpawnJournal open(final @NotNull Path folder, final long segmentSize, final int maxSegments, final @NotNull Logger logger, final @NotNull TaskScheduler scheduler) throws IOException {
+        if (segmentSize < HEADER_SIZE + JournalRecord.SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+        }
+        final SpawnJournal journal = new SpawnJournal(folder, segmentSize, Math.max(1, maxSegments), logger, scheduler);
+        Files.createDirectories(folder);
+        synchronized (journal) {
+            final Segment first = journal.startSegment();
+            journal.segment = first;
+            journal.deleteOldSegments(first.path);
+            journal.prepareNext();
+        }
+        return journal;
+    }
+
+    /**
+     * Lists the segment files in a journal folder, oldest first.
+     *
+     * @param folder The journal folder.
+     * @return The segment files.
+     * @throws IOException Thrown if the folder can't be read.
+     */
+    public static @NotNull List<Path> listSegments(final @NotNull Path folder) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "journal-*" + EXTENSION)) {
+            for (final Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Gets the date a segment file was started, from its name.
+     *
+     * @param segment The segment file.
+     * @return The date, or {@code null} if the file name isn't a segment name.
+     */
+    public static @Nullable LocalDate getSegmentDate(final @NotNull Path segment) {
+        final String name = segment.getFileName().toString();
+        if (!name.startsWith("journal-") || name.length() < 16) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name.substring(8, 16), DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Records a replacement decision. Safe to call from any thread.
+     *
+     * @param location    The spawn location.
+     * @param entityType  The type of the entity whose spawn was considered.
+     * @param environment The world environment.
+     * @param difficulty  The world difficulty.
+     * @param biome       The biome at the spawn location, or {@code null} if it wasn't looked up.
+     * @param liquid      Whether the spawn block is liquid, or {@code null} if it wasn't looked up.
+     * @param ruleStream  The random stream of the rule which matched, or {@link JournalRecord#NO_RULE}.
+     * @param outcome     The guard which rejected the replacement, or {@code null} if the spawn was replaced.
+     * @param roll        The default rule's chance roll, or NaN if it wasn't rolled.
+     * @param multiplier  The spawn throttle's chance multiplier.
+     */
+    public void record(final @NotNull Location location,
+                       final @NotNull EntityType entityType,
+                       final @NotNull World.Environment environment,
+                       final @NotNull Difficulty difficulty,
+                       final @Nullable Biome biome,
+                       final @Nullable Boolean liquid,
+                       final int ruleStream,
+                       final @Nullable Guard outcome,
+                       final double roll,
+                       final double multiplier) {
+        final World world = location.getWorld();
+        final UUID worldId = world.getUID();
+        if (!this.knownWorlds.contains(worldId)) {
+            this.writeWorldName(worldId, world.getName());
+        }
+        final long now = System.currentTimeMillis();
+        Segment segment = this.segment;
+        while (segment != null) {
+            final long offset = now < segment.expiresAt ? segment.next.getAndAdd(JournalRecord.SIZE) : Long.MAX_VALUE;
+            if (offset > segment.limit) {
+                segment = this.rotate(segment);
+                continue;
+            }
+            final MappedByteBuffer buffer = segment.buffer;
+            final int index = (int) offset;
+            buffer.put(index + JournalRecord.OUTCOME, outcome == null ? JournalRecord.REPLACED : (byte) outcome.ordinal());
+            buffer.put(index + JournalRecord.DIFFICULTY, (byte) difficulty.ordinal());
+            buffer.put(index + JournalRecord.ENVIRONMENT, (byte) environment.ordinal());
+            buffer.putShort(index + JournalRecord.BIOME, biome == null ? JournalRecord.UNKNOWN_BIOME : (short) biome.ordinal());
+            buffer.putShort(index + JournalRecord.ENTITY_TYPE, (short) entityType.ordinal());
+            buffer.putShort(index + JournalRecord.RULE, (short) ruleStream);
+            buffer.put(index + JournalRecord.LIQUID, liquid == null ? JournalRecord.UNKNOWN_LIQUID : (byte) (liquid ? 1 : 0));
+            buffer.putInt(index + JournalRecord.X, location.getBlockX());
+            buffer.putInt(index + JournalRecord.Y, location.getBlockY());
+            buffer.putInt(index + JournalRecord.Z, location.getBlockZ());
+            buffer.putLong(index + JournalRecord.TICK, world.getFullTime());
+            buffer.putLong(index + JournalRecord.WORLD_MOST, worldId.getMostSignificantBits());
+            buffer.putLong(index + JournalRecord.WORLD_LEAST, worldId.getLeastSignificantBits());
+            buffer.putDouble(index + JournalRecord.ROLL, roll);
+            buffer.putDouble(index + JournalRecord.MULTIPLIER, multiplier);
+            buffer.putLong(index + JournalRecord.TIME, now);
+            // Written last, so that readers skip records which were never finished.
+            buffer.put(index + JournalRecord.VALID, (byte) 1);
+            return;
+        }
+    }
+
+    /**
+     * Flushes the current segment and stops recording. Records offered afterwards are discarded.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        final Segment segment = this.segment;
+        this.segment = null;
+        if (segment != null) {
+            this.closeSegment(segment);
+        }
+        if (this.prepared != null) {
+            this.discard(this.prepared);
+            this.prepared = null;
+        }
+    }
+
+    // Swaps in the next segment, unless another thread already has. Returns the segment to write to, or null if the
+    // journal is closed or the new segment can't be created.
+    private synchronized @Nullable Segment rotate(final @NotNull Segment full) {
+        if (this.segment != full) {
+            return this.segment;
+        }
+        Segment next = this.prepared;
+        this.prepared = null;
+        if (next != null && System.currentTimeMillis() >= next.expiresAt) {
+            // Prepared before the day changed; its file name has the wrong date.
+            this.discard(next);
+            next = null;
+        }
+        if (next == null) {
+            try {
+                next = this.startSegment();
+            } catch (IOException ex) {
+                this.segment = null;
+                this.logger.log(Level.WARNING, "Failed to start a new spawn journal segment; the journal has been stopped.", ex);
+                return null;
+            }
+        }
+        this.segment = next;
+        final Segment current = next;
+        this.scheduler.runAsync(() -> {
+            this.closeSegment(full);
+            this.deleteOldSegments(current.path);
+        });
+        this.prepareNext();
+        return next;
+    }
+
+    // Starts preparing the next segment on an async task, unless it is already prepared or being prepared.
+    // Must be called while holding this journal's lock.
+    private void prepareNext() {
+        if (this.closed || this.prepared != null || this.preparing) {
+            return;
+        }
+        this.preparing = true;
+        this.scheduler.runAsync(() -> {
+            Segment next = null;
+            try {
+                next = this.startSegment();
+            } catch (IOException ex) {
+                this.logger.log(Level.WARNING, "Failed to prepare the next spawn journal segment; it will be started when it is needed.", ex);
+            }
+            synchronized (this) {
+                this.preparing = false;
+                if (next != null && this.closed) {
+                    this.discard(next);
+                } else {
+                    this.prepared = next;
+                }
+            }
+        });
+    }
+
+    // Creates and maps a new segment file.
+    private @NotNull Segment startSegment() throws IOException {
+        final LocalDateTime now = LocalDateTime.now();
+        final Path path = this.folder.resolve(String.format(Locale.ROOT, "journal-%s-%04d%s", FILE_NAME_FORMAT.format(now), this.segmentCount.getAndIncrement() % 10000, EXTENSION));
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, this.segmentSize);
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) JournalRecord.SIZE);
+        buffer.putLong(8, System.currentTimeMillis());
+        buffer.putInt(16, Biome.values().length);
+        buffer.putInt(20, EntityType.values().length);
+        buffer.putInt(24, Guard.values().length);
+        final long expiresAt = now.toLocalDate().plusDays(1L).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new Segment(path, buffer, this.segmentSize - JournalRecord.SIZE, expiresAt);
+    }
+
+    // Flushes a segment to disk.
+    private void closeSegment(final @NotNull Segment segment) {
+        try {
+            segment.buffer.force();
+        } catch (RuntimeException ex) {
+            this.logger.log(Level.WARNING, "Failed to flush spawn journal segment " + segment.path.getFileName(), ex);
+        }
+    }
+
+    // Deletes a prepared segment which was never written to.
+    private void discard(final @NotNull Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            this.logger.log(Level.WARNING, "Failed to delete unused spawn journal segment " + segment.path.getFileName(), ex);
+        }
+    }
+
+    // Deletes the oldest segments, keeping the newest ones up to the limit. Segments newer than the current one have
+    // been prepared ahead of time, hold no records, and don't count towards the limit.
+    private void deleteOldSegments(final @NotNull Path current) {
+        try {
+            final List<Path> segments = listSegments(this.folder);
+            final int index = segments.indexOf(current);
+            if (index >= 0) {
+                segments.subList(index + 1, segments.size()).clear();
+            }
+            for (int i = 0; i < segments.size() - this.maxSegments; ++i) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException ex) {
+            this.logger.log(Level.WARNING, "Failed to delete old spawn journal segments.", ex);
+        }
+    }
+
+    // Appends a world's name to the world names file.
+    private synchronized void writeWorldName(final @NotNull UUID worldId, final @NotNull String worldName) {
+        if (!this.knownWorlds.add(worldId)) {
+            return;
+        }
+        try (final Writer writer = Files.newBufferedWriter(this.folder.resolve(WORLDS_FILE), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(worldId + "\t" + worldName + System.lineSeparator());
+        } catch (IOException ex) {
+            this.logger.log(Level.WARNING, "Failed to record the name of world " + worldName + " in the spawn journal.", ex);
+        }
+    }
+
+    // A mapped segment file.
+    private static final class Segment {
+        private final @NotNull Path path;
+        private final @NotNull MappedByteBuffer buffer;
+        // The offset of the last record which fits in the segment.
+        private final long limit;
+        // The time at which the segment's day ends, in milliseconds since the epoch.
+        private final long expiresAt;
+        // The offset of the next free record.
+        private final @NotNull AtomicLong next = new AtomicLong(HEADER_SIZE);
+
+        private Segment(final @NotNull Path path, final @NotNull MappedByteBuffer buffer, final long limit, final long expiresAt) {
+            this.path = path;
+            this.buffer = buffer;
+            this.limit = limit;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,140 +1,532 @@
 package dev.satyrn.deepcavespiders.listeners;
 
-import dev.satyrn.deepcavespiders.configuration.Configuration;
-import dev.satyrn.papermc.api.util.v1.MathHelper;
+import dev.satyrn.deepcavespiders.configuration.ReplacementRule;
+import dev.satyrn.deepcavespiders.configuration.SpawnEvaluation;
+import dev.satyrn.deepcavespiders.configuration.SpawnProfile;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.culling.SpawnedEntityTracker;
+import dev.satyrn.deepcavespiders.journal.JournalRecord;
+import dev.satyrn.deepcavespiders.journal.SpawnJournal;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics.Guard;
+import dev.satyrn.deepcavespiders.util.BiomeCache;
+import dev.satyrn.deepcavespiders.util.DebugLogBuffer;
+import dev.satyrn.deepcavespiders.util.SpawnLimiter;
+import dev.satyrn.deepcavespiders.util.SpawnQueue;
+import dev.satyrn.deepcavespiders.util.SpawnThrottle;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
 import org.bukkit.Difficulty;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
-import org.bukkit.entity.CaveSpider;
+import org.bukkit.entity.Ageable;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Zombie;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.logging.Level;
 
 /**
  * Spawns cave spiders according to configuration.
+ * On region-threaded servers, events are handled concurrently on the thread which owns the spawn location, so all
+ * shared state is either immutable, atomic or striped.
  *
  * @author Isabel Maskrey
  * @since 1.0-SNAPSHOT
  */
-@SuppressWarnings("ClassCanBeRecord")
 public class SpawnEntityListener implements Listener {
+    // Random stream used to pick replacement targets.
+    private static final int TARGET_ROLL = 2;
+    // Random stream used for replacement rider rolls.
+    private static final int RIDER_ROLL = 3;
+
     private final @NotNull Plugin plugin;
-    private final @NotNull Configuration configuration;
+    // Buffer for debug messages, drained off the spawning thread.
+    private final @NotNull DebugLogBuffer debugLog;
+    // Enforces replacement caps and rate limits.
+    private final @NotNull SpawnLimiter limiter;
+    // Caches biome lookups per chunk section.
+    private final @NotNull BiomeCache biomeCache = new BiomeCache();
+    // Scales replacement and jockey chances down while the server is under load.
+    private final @NotNull SpawnThrottle throttle;
+    // Marks and tracks the mobs which the plugin spawns.
+    private final @NotNull SpawnedEntityTracker tracker;
+    // Replacement and jockey spawns waiting to run, when deferred spawning is enabled.
+    private final @NotNull SpawnQueue queue;
+    // Spawn statistics.
+    private final @NotNull SpawnStatistics statistics;
+    // Whether the current thread is spawning a replacement.
+    private final @NotNull ThreadLocal<Boolean> replacing = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    // The inputs of the spawn being evaluated on the current thread.
+    private final @NotNull ThreadLocal<ListenerEvaluation> evaluation = ThreadLocal.withInitial(ListenerEvaluation::new);
+    // The current spawn rules. Replaced as a whole when the configuration is reloaded.
+    private volatile @NotNull SpawnRules rules;
+    // Records replacement decisions, or null if the journal is disabled.
+    private volatile @Nullable SpawnJournal journal;
 
-    public SpawnEntityListener(final @NotNull Plugin plugin, final @NotNull Configuration configuration) {
+    public SpawnEntityListener(final @NotNull Plugin plugin, final @NotNull SpawnRules rules, final @NotNull DebugLogBuffer debugLog, final @NotNull SpawnStatistics statistics, final @NotNull TaskScheduler scheduler) {
         this.plugin = plugin;
-        this.configuration = configuration;
+        this.rules = rules;
+        this.debugLog = debugLog;
+        this.statistics = statistics;
+        this.limiter = new SpawnLimiter(plugin.getLogger(), scheduler.isRegionThreaded());
+        this.queue = new SpawnQueue(plugin.getLogger(), scheduler);
+        this.throttle = new SpawnThrottle(plugin, scheduler);
+        this.tracker = new SpawnedEntityTracker(plugin, scheduler);
+    }
+
+    /**
+     * Gets the current spawn rules.
+     *
+     * @return The spawn rules.
+     * @since 1.4.0
+     */
+    public @NotNull SpawnRules getRules() {
+        return this.rules;
+    }
+
+    /**
+     * Replaces the current spawn rules.
+     *
+     * @param rules The new spawn rules.
+     * @since 1.4.0
+     */
+    public void setRules(final @NotNull SpawnRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Gets the spawn limiter.
+     *
+     * @return The spawn limiter.
+     * @since 1.4.0
+     */
+    public @NotNull SpawnLimiter getLimiter() {
+        return this.limiter;
+    }
+
+    /**
+     * Gets the biome cache.
+     *
+     * @return The biome cache.
+     * @since 1.4.0
+     */
+    public @NotNull BiomeCache getBiomeCache() {
+        return this.biomeCache;
+    }
+
+    /**
+     * Gets the spawn throttle.
+     *
+     * @return The spawn throttle.
+     * @since 1.4.0
+     */
+    public @NotNull SpawnThrottle getThrottle() {
+        return this.throttle;
+    }
+
+    /**
+     * Gets the spawned entity tracker.
+     *
+     * @return The spawned entity tracker.
+     * @since 1.4.0
+     */
+    public @NotNull SpawnedEntityTracker getTracker() {
+        return this.tracker;
+    }
+
+    /**
+     * Gets the spawn journal.
+     *
+     * @return The spawn journal, or {@code null} if replacement decisions aren't recorded.
+     * @since 1.4.0
+     */
+    public @Nullable SpawnJournal getJournal() {
+        return this.journal;
+    }
+
+    /**
+     * Sets the spawn journal. The previous journal, if any, is left open, and should be closed by the caller.
+     *
+     * @param journal The spawn journal, or {@code null} to stop recording replacement decisions.
+     * @since 1.4.0
+     */
+    public void setJournal(final @Nullable SpawnJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the deferred spawn queue.
+     *
+     * @return The spawn queue.
+     * @since 1.4.0
+     */
+    public @NotNull SpawnQueue getQueue() {
+        return this.queue;
+    }
+
+    /**
+     * Runs queued spawns within the configured batch size and time budget.
+     * Must be called from the main thread once per tick. Not needed on region-threaded servers, where queued spawns
+     * are scheduled on their own regions.
+     *
+     * @since 1.4.0
+     */
+    public void drainQueue() {
+        if (this.queue.size() > 0) {
+            final SpawnRules rules = this.rules;
+            this.queue.drain(rules.getBatchSize(), rules.getTickBudgetNanos());
+        }
     }
 
     /**
-     * Handles creature spawn events for spiders.
+     * Dispatches creature spawn events to the replacement and jockey handlers.
+     * Runs after lower priority plugins have had a chance to cancel the event, and skips cancelled events entirely.
      *
      * @param event The event.
+     * @since 1.4.0
      */
-    @EventHandler
-    public void onSpawnSpider(CreatureSpawnEvent event) {
-        // Only replace spider spawns, but exclude cave spider spawns,
-        // and don't replace jockeys.
-        if (event.getSpawnReason() != CreatureSpawnEvent.SpawnReason.NATURAL || !this.configuration.replaceEntities.value()
-                .contains(event.getEntity().getType())) {
-            return;
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onCreatureSpawn(CreatureSpawnEvent event) {
+        final SpawnRules rules = this.rules;
+        final boolean recordStatistics = rules.isStatisticsEnabled();
+        final long start = recordStatistics ? System.nanoTime() : 0L;
+        // The guard which rejected an event before any handler ran. Handlers record their own decisions.
+        Guard unhandled = null;
+        switch (event.getSpawnReason()) {
+            // Only replace natural spawns, so that jockeys are never replaced.
+            case NATURAL -> {
+                final EntityType entityType = event.getEntityType();
+                final boolean replaceable = rules.isReplacementEnabled() && rules.isReplaceable(entityType);
+                final boolean jockey = entityType == EntityType.CAVE_SPIDER && rules.isJockeyEnabled();
+                // A cave spider which isn't replaced goes on to the jockey decision, whose rejection is the one counted.
+                final Guard guard = replaceable ? this.onReplaceableSpawn(event, rules, !jockey) : Guard.TYPE;
+                if (guard != null && jockey) {
+                    this.onSpawnCaveSpider(event, rules);
+                } else if (!replaceable) {
+                    unhandled = Guard.TYPE;
+                }
+            }
+            case SPAWNER_EGG -> {
+                if (event.getEntityType() == EntityType.CAVE_SPIDER && rules.isJockeyEnabled()) {
+                    this.onSpawnCaveSpider(event, rules);
+                } else {
+                    unhandled = Guard.TYPE;
+                }
+            }
+            default -> unhandled = Guard.REASON;
+        }
+        if (recordStatistics) {
+            if (unhandled != null) {
+                final World world = event.getEntity().getWorld();
+                this.statistics.recordFiltered(unhandled, world.getName(), world.getDifficulty(), null);
+            }
+            this.statistics.recordEvent(System.nanoTime() - start);
         }
-        // Location validation. Should only spawn between min and max spawn heights,
-        // and should not spawn in liquids.
+    }
+
+    /**
+     * Handles natural spawns of replaceable entities.
+     * Each rule which may replace the entity type is tried in order, and the first rule whose checks all pass
+     * replaces the spawn. The decision is written to the spawn journal, if it is enabled.
+     *
+     * @param event          The event.
+     * @param rules          The spawn rules.
+     * @param countRejection Whether a rejection is counted in the statistics.
+     * @return The guard which rejected the replacement, or {@code null} if the spawn was replaced.
+     */
+    private @Nullable Guard onReplaceableSpawn(final @NotNull CreatureSpawnEvent event, final @NotNull SpawnRules rules, final boolean countRejection) {
         final Location location = event.getLocation();
-        if ((location.getBlockY() < this.configuration.spawnOptions.range.minY.value() && !this.configuration.spawnOptions.range.allowSpawnsBelowMinY.value()) || location.getBlockY() > this.configuration.spawnOptions.range.maxY.value() || location.getBlock()
-                .isLiquid()) {
-            return;
+        final World world = location.getWorld();
+        final Difficulty difficulty = world.getDifficulty();
+        // Entities spawned by a replacement are never replaced again, so that rules can't feed each other.
+        if (this.replacing.get()) {
+            if (rules.isStatisticsEnabled()) {
+                this.recordDecision(world, difficulty, null, Guard.REASON, countRejection);
+            }
+            return Guard.REASON;
+        }
+        final ListenerEvaluation evaluation = this.evaluation.get();
+        evaluation.reset(location, rules, this.biomeCache, this.throttle.getMultiplier());
+        final ReplacementRule matched = rules.evaluateReplacement(event.getEntityType(), evaluation, rules.isStatisticsEnabled() ? this.statistics : null);
+        // Spawning the replacement fires nested spawn events on this thread, which reuse the evaluation.
+        final Biome biome = evaluation.getResolvedBiome();
+        final Boolean liquid = evaluation.getResolvedLiquid();
+        final double defaultRoll = evaluation.getDefaultRoll();
+        final double multiplier = evaluation.getMultiplier();
+        final Guard outcome = matched == null ? evaluation.getRejectedBy() : this.replace(event, rules, matched, biome, evaluation.getSpawnChance());
+        if (rules.isStatisticsEnabled()) {
+            this.recordDecision(world, difficulty, biome, outcome, countRejection);
         }
-        // World validation. Should only spawn in configured environments and biomes,
-        // and on the configured difficulties.
+        final SpawnJournal journal = this.journal;
+        if (journal != null) {
+            this.record(journal, event, matched, biome, liquid, defaultRoll, multiplier, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Replaces a spawn which has passed a rule's checks, subject to the limiter and the deferred spawn queue.
+     *
+     * @param event       The event.
+     * @param rules       The spawn rules.
+     * @param matched     The rule whose checks passed.
+     * @param biome       The biome, or {@code null} if it wasn't looked up.
+     * @param spawnChance The rule's spawn chance.
+     * @return The guard which rejected the replacement, or {@code null} if the spawn was replaced.
+     */
+    private @Nullable Guard replace(final @NotNull CreatureSpawnEvent event, final @NotNull SpawnRules rules, final @NotNull ReplacementRule matched, final @Nullable Biome biome, final double spawnChance) {
+        final Location location = event.getLocation();
         final World world = location.getWorld();
-        final double spawnChance = this.getSpawnChance(world.getDifficulty(), location.getY());
-        // We'll never spawn if the spawn chance is zero.
-        if (spawnChance <= 0D) {
-            return;
+        final Difficulty difficulty = world.getDifficulty();
+        // The cave spider caps only apply to the default rule; the rate limit applies to every rule.
+        if (!this.limiter.tryAcquire(location, rules, matched.isDefault())) {
+            return Guard.LIMIT;
         }
-        final Biome biome = world.getBiome(location);
-        if (!this.configuration.environments.value()
-                .contains(world.getEnvironment()) || !this.configuration.biomes.value().contains(biome)) {
+        final EntityType target = matched.pickTarget(rules.getRandomSource().nextDouble(location, TARGET_ROLL));
+        final EntityType rider = matched.getRiderType() != null && rules.getRandomSource().nextDouble(location, RIDER_ROLL) < matched.getRiderChance() ? matched.getRiderType() : null;
+        final boolean riderBaby = matched.isRiderBaby();
+        // When the queue is full, leave the original spawn alone rather than dropping it, and give back its token so that
+        // spills don't eat into the rate limit.
+        if (rules.isDeferredSpawns() && !this.queue.offer(location, () -> this.spawnReplacement(location, target, rider, riderBaby), rules.getQueueCapacity())) {
+            this.limiter.release(location, rules, matched.isDefault());
+            if (rules.isStatisticsEnabled()) {
+                this.statistics.recordSpill();
+            }
+            return Guard.LIMIT;
+        }
+        event.setCancelled(true);
+        if (rules.isStatisticsEnabled()) {
+            this.statistics.recordReplacement(world.getName(), difficulty, biome);
+        }
+        if (rules.isDebug()) {
+            this.debugLog.offer(Level.FINEST, "[Events] Replaced {0} with {1} by rule {2} in a {3} at x:{4}, y:{5}, z:{6} in world {7} with environment {8} at a chance of {9}%.", event.getEntity().getType(), target, matched.getName(), biome, location.getX(), location.getY(), location.getZ(), world.getName(), world.getEnvironment(), spawnChance * 100);
+        }
+        if (!rules.isDeferredSpawns()) {
+            this.spawn(location, target, rider, riderBaby);
+        }
+        return null;
+    }
+
+    /**
+     * Writes a replacement decision to the spawn journal. Only the inputs which the checks looked up are recorded, so
+     * that journaling never adds lookups or rolls to the spawn; the others are recorded as unknown.
+     *
+     * @param journal     The spawn journal.
+     * @param event       The event.
+     * @param matched     The rule whose checks passed, or {@code null} if none did.
+     * @param biome       The biome, or {@code null} if it wasn't looked up.
+     * @param liquid      Whether the spawn block is liquid, or {@code null} if it wasn't looked up.
+     * @param defaultRoll The default rule's chance roll, or {@code NaN} if it wasn't rolled.
+     * @param multiplier  The spawn throttle's chance multiplier.
+     * @param outcome     The guard which rejected the replacement, or {@code null} if the spawn was replaced.
+     */
+    private void record(final @NotNull SpawnJournal journal,
+                        final @NotNull CreatureSpawnEvent event,
+                        final @Nullable ReplacementRule matched,
+                        final @Nullable Biome biome,
+                        final @Nullable Boolean liquid,
+                        final double defaultRoll,
+                        final double multiplier,
+                        final @Nullable Guard outcome) {
+        final Location location = event.getLocation();
+        final World world = location.getWorld();
+        journal.record(location,
+                event.getEntityType(),
+                world.getEnvironment(),
+                world.getDifficulty(),
+                biome,
+                liquid,
+                matched == null ? JournalRecord.NO_RULE : matched.getRollStream(),
+                outcome,
+                defaultRoll,
+                multiplier);
+    }
+
+    /**
+     * Spawns a deferred replacement, unless its location has been unloaded or flooded since it was queued.
+     *
+     * @param location  The spawn location.
+     * @param target    The replacement type.
+     * @param rider     The rider type, or {@code null} for no rider.
+     * @param riderBaby Whether the rider spawns as a baby.
+     */
+    private void spawnReplacement(final @NotNull Location location, final @NotNull EntityType target, final @Nullable EntityType rider, final boolean riderBaby) {
+        final World world = location.getWorld();
+        if (!location.isWorldLoaded() || !world.isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4) || location.getBlock().isLiquid()) {
+            this.recordDropped();
             return;
         }
-        // Check if the spawn occurs.
-        if (Math.random() <= spawnChance) {
-            event.setCancelled(true);
-            this.plugin.getLogger()
-                    .log(Level.FINEST, "[Events] Replaced {0} with cave spider in a {1} at x:{2}, y:{3}, z:{4} in world {5} with environment {6} at a chance of {7}%.", new Object[]{event.getEntity().getType(), biome, location.getX(), location.getY(), location.getZ(), world.getName(), world.getEnvironment(), spawnChance * 100});
-            world.spawnEntity(location, EntityType.CAVE_SPIDER, CreatureSpawnEvent.SpawnReason.NATURAL);
+        this.spawn(location, target, rider, riderBaby);
+    }
+
+    /**
+     * Spawns a replacement and its rider. The replacement spawns naturally, so that other plugins and the jockey
+     * handler see it as a natural spawn, but it is never replaced again. Both are marked for the spawned entity tracker.
+     *
+     * @param location  The spawn location.
+     * @param target    The replacement type.
+     * @param rider     The rider type, or {@code null} for no rider.
+     * @param riderBaby Whether the rider spawns as a baby.
+     */
+    private void spawn(final @NotNull Location location, final @NotNull EntityType target, final @Nullable EntityType rider, final boolean riderBaby) {
+        final World world = location.getWorld();
+        final Entity entity;
+        this.replacing.set(Boolean.TRUE);
+        try {
+            entity = world.spawnEntity(location, target, CreatureSpawnEvent.SpawnReason.NATURAL);
+        } finally {
+            this.replacing.set(Boolean.FALSE);
+        }
+        this.tracker.mark(entity);
+        if (rider != null && entity.isValid()) {
+            final Entity passenger = world.spawnEntity(location, rider, CreatureSpawnEvent.SpawnReason.JOCKEY);
+            if (riderBaby && passenger instanceof final Ageable ageable) {
+                ageable.setBaby();
+            }
+            entity.addPassenger(passenger);
+            this.tracker.mark(passenger);
         }
     }
 
     /**
-     * Handles creature spawn events for cave spiders.
+     * Handles natural and spawn egg spawns of cave spiders.
      *
      * @param event The event.
+     * @param rules The spawn rules.
      */
-    @EventHandler
-    public void onSpawnCaveSpider(CreatureSpawnEvent event) {
-        // Only apply to naturally / egg spawned creatures.
-        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL || event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.SPAWNER_EGG) {
-            // Make sure the creature is a cave spider.
-            final Entity entity = event.getEntity();
-            if (entity instanceof CaveSpider) {
-
-                final Location location = event.getLocation();
-                final World world = location.getWorld();
-                final double jockeyChance = this.configuration.spawnOptions.jockeyChance.value();
-                // Spawn a baby zombie as a jockey, if spawn chance is > 0 and world difficulty is set to hard.
-                if (this.configuration.spawnOptions.jockeyChance.value() > 0D && world.getDifficulty() == Difficulty.HARD && Math.random() <= jockeyChance) {
-                    final Biome biome = world.getBiome(location);
-                    final World.Environment environment = world.getEnvironment();
-                    final @NotNull EntityType jockeyType;
-                    if (environment == World.Environment.NETHER) {
-                        jockeyType = EntityType.ZOMBIFIED_PIGLIN;
-                    } else {
-                        switch (biome) {
-                            case DESERT -> jockeyType = EntityType.HUSK;
-                            case DEEP_COLD_OCEAN, DEEP_FROZEN_OCEAN, DEEP_LUKEWARM_OCEAN, DEEP_OCEAN, COLD_OCEAN, FROZEN_OCEAN, LUKEWARM_OCEAN, OCEAN, WARM_OCEAN, RIVER, FROZEN_RIVER -> jockeyType = EntityType.DROWNED;
-                            default -> jockeyType = EntityType.ZOMBIE;
-                        }
-                    }
-                    final @NotNull Zombie jockey = (Zombie) world.spawnEntity(location, jockeyType, CreatureSpawnEvent.SpawnReason.JOCKEY);
-                    jockey.setBaby();
-                    entity.addPassenger(jockey);
-                    this.plugin.getLogger()
-                            .log(Level.FINER, "[Events] Spawned {0} jockey for cave spider in a {1} at x:{2}, y:{3}, z:{4} in world {5} with environment {6} at a chance of {7}%.", new Object[]{jockeyType, biome, location.getX(), location.getY(), location.getZ(), world.getName(), environment, jockeyChance * 100});
-                }
+    private void onSpawnCaveSpider(final @NotNull CreatureSpawnEvent event, final @NotNull SpawnRules rules) {
+        final Entity entity = event.getEntity();
+        final Location location = event.getLocation();
+        final World world = location.getWorld();
+        final Difficulty difficulty = world.getDifficulty();
+        // Spawn a baby zombie as a jockey, if world difficulty is set to hard.
+        final ListenerEvaluation evaluation = this.evaluation.get();
+        evaluation.reset(location, rules, this.biomeCache, this.throttle.getMultiplier());
+        final Guard rejectedBy = rules.evaluateJockey(evaluation);
+        if (rejectedBy != null) {
+            if (rules.isStatisticsEnabled()) {
+                this.recordDecision(world, difficulty, evaluation.getResolvedBiome(), rejectedBy, true);
             }
+            return;
+        }
+        final double jockeyChance = evaluation.getSpawnChance();
+        final Biome biome = evaluation.getBiome();
+        final World.Environment environment = world.getEnvironment();
+        final EntityType jockeyType = rules.getJockeyType(environment, biome);
+        if (!rules.isDeferredSpawns()) {
+            this.spawnJockey(entity, location, jockeyType);
+        } else if (!this.queue.offer(entity, () -> this.spawnJockey(entity, entity.getLocation(), jockeyType), this::recordDropped, rules.getQueueCapacity())) {
+            if (rules.isStatisticsEnabled()) {
+                this.statistics.recordSpill();
+                this.recordDecision(world, difficulty, biome, Guard.LIMIT, true);
+            }
+            return;
+        }
+        if (rules.isStatisticsEnabled()) {
+            this.recordDecision(world, difficulty, biome, null, true);
+            this.statistics.recordJockey(world.getName(), difficulty, biome);
+        }
+        if (rules.isDebug()) {
+            this.debugLog.offer(Level.FINER, "[Events] Spawned {0} jockey for cave spider in a {1} at x:{2}, y:{3}, z:{4} in world {5} with environment {6} at a chance of {7}%.", jockeyType, biome, location.getX(), location.getY(), location.getZ(), world.getName(), environment, jockeyChance * 100);
+        }
+    }
+
+    /**
+     * Records a handled event as a candidate and, if it was rejected, the guard which rejected it.
+     *
+     * @param world          The world.
+     * @param difficulty     The world difficulty.
+     * @param biome          The biome, or {@code null} if it wasn't looked up.
+     * @param rejectedBy     The guard which rejected the event, or {@code null} if it wasn't rejected.
+     * @param countRejection Whether a rejection is counted.
+     */
+    private void recordDecision(final @NotNull World world, final @NotNull Difficulty difficulty, final @Nullable Biome biome, final @Nullable Guard rejectedBy, final boolean countRejection) {
+        this.statistics.recordCandidate(world.getName(), difficulty, biome);
+        if (rejectedBy != null && countRejection) {
+            this.statistics.recordFiltered(rejectedBy, world.getName(), difficulty, biome);
+        }
+    }
+
+    /**
+     * Records that a deferred spawn was dropped, if statistics are enabled.
+     */
+    private void recordDropped() {
+        if (this.rules.isStatisticsEnabled()) {
+            this.statistics.recordDropped();
         }
     }
 
     /**
-     * Gets the spawn chance for a specific difficulty.
+     * Spawns a baby zombie jockey, mounts it on a cave spider and marks it for the spawned entity tracker.
+     *
+     * @param entity     The cave spider.
+     * @param location   The spawn location.
+     * @param jockeyType The jockey entity type.
+     */
+    private void spawnJockey(final @NotNull Entity entity, final @NotNull Location location, final @NotNull EntityType jockeyType) {
+        final @NotNull Zombie jockey = (Zombie) location.getWorld().spawnEntity(location, jockeyType, CreatureSpawnEvent.SpawnReason.JOCKEY);
+        jockey.setBaby();
+        entity.addPassenger(jockey);
+        this.tracker.mark(jockey);
+    }
+
+    /**
+     * Gets the spawn chance for a specific difficulty, ignoring world and biome overrides.
+     * Other plugins should use the {@link dev.satyrn.deepcavespiders.api.SpawnChanceService} service, which applies
+     * overrides and answers many queries at once.
      *
      * @param difficulty The world difficulty.
      * @param y          The Y location of the spawn. Used if spawn distribution is not set to CONSTANT.
-     * @return The spawn chance for the given difficulty.
+     * @return The spawn chance for the given difficulty, or zero if the Y location is outside the spawn range.
      */
     public double getSpawnChance(Difficulty difficulty, double y) {
-        final double defaultSpawnChance = this.configuration.spawnOptions.chances.value(difficulty);
-        double spawnChance = defaultSpawnChance;
+        return this.rules.getSpawnChance(difficulty, Location.locToBlock(y));
+    }
 
-        int maxY = this.configuration.spawnOptions.range.maxY.value();
-        int minY = this.configuration.spawnOptions.range.minY.value();
+    // Looks up the inputs of a spawn in its world.
+    private static final class ListenerEvaluation extends SpawnEvaluation {
+        // The spawn location.
+        private Location location;
+        // The spawn rules.
+        private SpawnRules rules;
+        // The biome cache.
+        private BiomeCache biomeCache;
+
+        // Starts evaluating a spawn.
+        private void reset(final @NotNull Location location, final @NotNull SpawnRules rules, final @NotNull BiomeCache biomeCache, final double multiplier) {
+            final World world = location.getWorld();
+            this.reset(world.getEnvironment(), world.getDifficulty(), location.getBlockY(), multiplier);
+            this.location = location;
+            this.rules = rules;
+            this.biomeCache = biomeCache;
+        }
+
+        @Override
+        protected @NotNull SpawnProfile[] lookupProfiles() {
+            return this.rules.getProfiles(this.location.getWorld());
+        }
+
+        @Override
+        protected @NotNull Biome lookupBiome() {
+            return this.biomeCache.getBiome(this.location, this.rules.getBiomeCacheSections());
+        }
+
+        @Override
+        protected boolean lookupLiquid() {
+            return this.location.getBlock().isLiquid();
+        }
 
-        switch (this.configuration.spawnOptions.distribution.value()) {
-            case LINEAR -> spawnChance *= ((-y + maxY) / (maxY - minY));
-            case HYPERBOLIC -> spawnChance *= (Math.pow((-y + maxY) / (maxY - minY), 2));
-            case LOGARITHMIC -> spawnChance *= MathHelper.logb(-y + maxY, maxY - minY);
+        @Override
+        protected double roll(final int stream) {
+            return this.rules.getRandomSource().nextDouble(this.location, stream);
         }
-        return MathHelper.clampd(spawnChance, 0D, Math.max(0D, defaultSpawnChance));
     }
 }
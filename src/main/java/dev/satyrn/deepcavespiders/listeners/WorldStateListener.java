@@ -0,0 +1,57 @@
+package dev.satyrn.deepcavespiders.listeners;
+
+import dev.satyrn.deepcavespiders.util.BiomeCache;
+import dev.satyrn.deepcavespiders.util.SpawnLimiter;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Discards the per-chunk and per-world state of the spawn listener as chunks and worlds are unloaded.
+ * Kept apart from the spawn listener, which is unregistered while neither replacements nor jockeys are possible, so
+ * that its caches never hold on to unloaded chunks and worlds.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public class WorldStateListener implements Listener {
+    // Enforces replacement caps and rate limits.
+    private final @NotNull SpawnLimiter limiter;
+    // Caches biome lookups per chunk section.
+    private final @NotNull BiomeCache biomeCache;
+
+    /**
+     * Creates a new world state listener.
+     *
+     * @param limiter    The spawn limiter.
+     * @param biomeCache The biome cache.
+     */
+    public WorldStateListener(final @NotNull SpawnLimiter limiter, final @NotNull BiomeCache biomeCache) {
+        this.limiter = limiter;
+        this.biomeCache = biomeCache;
+    }
+
+    /**
+     * Discards limiter state and cached biomes for worlds which are unloaded.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.limiter.clear(event.getWorld());
+        this.biomeCache.clear(event.getWorld());
+    }
+
+    /**
+     * Discards cached biomes for chunks which are unloaded.
+     *
+     * @param event The event.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        this.biomeCache.invalidate(event.getChunk());
+    }
+}
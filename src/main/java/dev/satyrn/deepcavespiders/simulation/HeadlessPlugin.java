@@ -0,0 +1,44 @@
+package dev.satyrn.deepcavespiders.simulation;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * A plugin stand-in which serves a configuration file, so that the configuration can be compiled without a server.
+ * Only the methods the configuration reads are answered; everything else returns a default value. Used by the
+ * standalone simulation and journal replay tools.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class HeadlessPlugin {
+    private HeadlessPlugin() {
+    }
+
+    /**
+     * Creates a plugin stand-in.
+     *
+     * @param config     The configuration.
+     * @param dataFolder The data folder.
+     * @return The plugin.
+     */
+    public static @NotNull Plugin create(final @NotNull YamlConfiguration config, final @NotNull File dataFolder) {
+        final Logger logger = Logger.getLogger("DeepCaveSpiders");
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class}, (self, method, args) -> switch (method.getName()) {
+            case "getConfig" -> config;
+            case "getLogger" -> logger;
+            case "getDataFolder" -> dataFolder;
+            case "getName" -> "DeepCaveSpiders";
+            case "isEnabled" -> true;
+            case "hashCode" -> System.identityHashCode(self);
+            case "equals" -> self == args[0];
+            case "toString" -> "DeepCaveSpiders";
+            default -> method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        });
+    }
+}
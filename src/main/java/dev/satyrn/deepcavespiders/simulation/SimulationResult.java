@@ -0,0 +1,123 @@
+package dev.satyrn.deepcavespiders.simulation;
+
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Tallies of simulated spawns, replacements and jockeys per difficulty, biome and Y band.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SimulationResult {
+    // The sampled biomes, in index order.
+    private final @NotNull Biome[] biomes;
+    // Simulated spawns per cell.
+    private final long[] samples;
+    // Replacements per cell.
+    private final long[] replacements;
+    // Jockeys per cell.
+    private final long[] jockeys;
+
+    SimulationResult(final @NotNull Biome[] biomes) {
+        this.biomes = biomes;
+        final int cells = SpawnSimulator.DIFFICULTIES.length * biomes.length * SpawnSimulator.BANDS;
+        this.samples = new long[cells];
+        this.replacements = new long[cells];
+        this.jockeys = new long[cells];
+    }
+
+    // Records a simulated spawn.
+    void record(final int difficulty, final int biome, final int band, final boolean replaced, final boolean jockey) {
+        final int cell = this.cell(difficulty, biome, band);
+        ++this.samples[cell];
+        if (replaced) {
+            ++this.replacements[cell];
+        }
+        if (jockey) {
+            ++this.jockeys[cell];
+        }
+    }
+
+    // Adds another result's tallies to this result.
+    void add(final @NotNull SimulationResult other) {
+        for (int i = 0; i < this.samples.length; ++i) {
+            this.samples[i] += other.samples[i];
+            this.replacements[i] += other.replacements[i];
+            this.jockeys[i] += other.jockeys[i];
+        }
+    }
+
+    /**
+     * Gets the total number of simulated spawns.
+     *
+     * @return The number of simulated spawns.
+     */
+    public long getSamples() {
+        return sum(this.samples);
+    }
+
+    /**
+     * Gets the total number of replacements.
+     *
+     * @return The number of replacements.
+     */
+    public long getReplacements() {
+        return sum(this.replacements);
+    }
+
+    /**
+     * Gets the total number of jockeys.
+     *
+     * @return The number of jockeys.
+     */
+    public long getJockeys() {
+        return sum(this.jockeys);
+    }
+
+    /**
+     * Writes the result as CSV, with one row per difficulty, biome and Y band.
+     * Rates are per simulated spawn.
+     *
+     * @param writer The writer.
+     * @throws IOException Thrown if the writer fails.
+     */
+    public void writeCsv(final @NotNull Writer writer) throws IOException {
+        writer.write("difficulty,biome,minY,maxY,samples,replacements,replacementRate,jockeys,jockeyRate\n");
+        for (int difficulty = 0; difficulty < SpawnSimulator.DIFFICULTIES.length; ++difficulty) {
+            final String difficultyName = SpawnSimulator.DIFFICULTIES[difficulty].name().toLowerCase(Locale.ROOT);
+            for (int biome = 0; biome < this.biomes.length; ++biome) {
+                final String biomeName = this.biomes[biome].name().toLowerCase(Locale.ROOT);
+                for (int band = 0; band < SpawnSimulator.BANDS; ++band) {
+                    final int cell = this.cell(difficulty, biome, band);
+                    final long samples = this.samples[cell];
+                    if (samples == 0L) {
+                        continue;
+                    }
+                    final int minY = SpawnRules.TABLE_MIN_Y + band * SpawnSimulator.BAND_HEIGHT;
+                    final int maxY = Math.min(SpawnRules.TABLE_MAX_Y, minY + SpawnSimulator.BAND_HEIGHT - 1);
+                    writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.6f,%d,%.6f%n", difficultyName, biomeName, minY, maxY, samples,
+                            this.replacements[cell], (double) this.replacements[cell] / samples,
+                            this.jockeys[cell], (double) this.jockeys[cell] / samples));
+                }
+            }
+        }
+    }
+
+    private int cell(final int difficulty, final int biome, final int band) {
+        return (difficulty * this.biomes.length + biome) * SpawnSimulator.BANDS + band;
+    }
+
+    private static long sum(final long[] values) {
+        long sum = 0L;
+        for (final long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,173 @@
+package dev.satyrn.deepcavespiders.simulation;
+
+import dev.satyrn.deepcavespiders.configuration.ReplacementRule;
+import dev.satyrn.deepcavespiders.configuration.SpawnEvaluation;
+import dev.satyrn.deepcavespiders.configuration.SpawnProfile;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Pushes a synthetic stream of spider spawns through the replacement and jockey decisions, without a server.
+ * Each sample draws a Y value, a biome and a difficulty uniformly, and makes uniform replacement and jockey rolls, as
+ * the spawn listener does with the fast random source. Every replacement rule for spiders is tried, through the same
+ * decision the spawn listener makes, and replacements by rules other than the default rule only count towards
+ * jockeys if they pick cave spiders. Spawn locations are assumed to be dry, and spawn limits are not applied, since
+ * both depend on live world state.
+ * Samples are split across a fork/join pool; each leaf task tallies into its own arrays, which are summed on the way
+ * back up.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnSimulator {
+    /**
+     * The height of each Y band in the report.
+     */
+    public static final int BAND_HEIGHT = 16;
+    /**
+     * The number of Y bands covering the spawn chance tables.
+     */
+    public static final int BANDS = (SpawnRules.TABLE_MAX_Y - SpawnRules.TABLE_MIN_Y + BAND_HEIGHT) / BAND_HEIGHT;
+    /**
+     * The difficulties which are sampled. Spawns don't happen on peaceful.
+     */
+    static final Difficulty[] DIFFICULTIES = {Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD};
+    // The largest number of samples a single leaf task handles.
+    private static final long LEAF_SAMPLES = 1L << 18;
+
+    // The spawn rules.
+    private final @NotNull SpawnRules rules;
+    // The profiles for the simulated world, indexed by biome ordinal.
+    private final @NotNull SpawnProfile[] profiles;
+    // The simulated world environment.
+    private final @NotNull World.Environment environment;
+    // The biomes which are sampled.
+    private final @NotNull Biome[] biomes;
+    // The multiplier applied to replacement and jockey chances.
+    private final double multiplier;
+
+    /**
+     * Creates a new spawn simulator.
+     *
+     * @param rules       The spawn rules.
+     * @param worldName   The simulated world name, used to apply world overrides.
+     * @param environment The simulated world environment.
+     * @param multiplier  The multiplier applied to replacement and jockey chances, such as the spawn throttle's.
+     */
+    public SpawnSimulator(final @NotNull SpawnRules rules, final @NotNull String worldName, final @NotNull World.Environment environment, final double multiplier) {
+        this.rules = rules;
+        this.environment = environment;
+        this.multiplier = multiplier;
+        this.profiles = new SpawnProfile[Biome.values().length];
+        for (final Biome biome : Biome.values()) {
+            this.profiles[biome.ordinal()] = rules.getProfile(worldName, biome);
+        }
+        // Custom biomes can't appear in a real world's spawn events.
+        this.biomes = Arrays.stream(Biome.values()).filter(biome -> biome != Biome.CUSTOM).toArray(Biome[]::new);
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @param samples The number of spawns to simulate.
+     * @param seed    The seed of the synthetic spawn stream. The same seed always produces the same result.
+     * @param pool    The pool which runs the simulation.
+     * @return The simulation result.
+     */
+    public @NotNull SimulationResult run(final long samples, final long seed, final @NotNull ForkJoinPool pool) {
+        return pool.invoke(new SimulationTask(samples, new SplittableRandom(seed)));
+    }
+
+    // Simulates a range of samples, splitting it in half until it is small enough.
+    private final class SimulationTask extends RecursiveTask<SimulationResult> {
+        private final long samples;
+        private final @NotNull SplittableRandom random;
+
+        private SimulationTask(final long samples, final @NotNull SplittableRandom random) {
+            this.samples = samples;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (this.samples > LEAF_SAMPLES) {
+                final long half = this.samples / 2;
+                final SimulationTask left = new SimulationTask(half, this.random.split());
+                final SimulationTask right = new SimulationTask(this.samples - half, this.random.split());
+                left.fork();
+                final SimulationResult result = right.compute();
+                result.add(left.join());
+                return result;
+            }
+            final SimulationResult result = new SimulationResult(SpawnSimulator.this.biomes);
+            final SpawnRules rules = SpawnSimulator.this.rules;
+            final Biome[] biomes = SpawnSimulator.this.biomes;
+            final SimulatedEvaluation evaluation = new SimulatedEvaluation(this.random);
+            for (long i = 0; i < this.samples; ++i) {
+                final int y = this.random.nextInt(SpawnRules.TABLE_MIN_Y, SpawnRules.TABLE_MAX_Y + 1);
+                final int biomeIndex = this.random.nextInt(biomes.length);
+                final Biome biome = biomes[biomeIndex];
+                final int difficultyIndex = this.random.nextInt(DIFFICULTIES.length);
+                final Difficulty difficulty = DIFFICULTIES[difficultyIndex];
+                evaluation.reset(difficulty, y, biome);
+                final ReplacementRule matched = rules.evaluateReplacement(EntityType.SPIDER, evaluation, null);
+                final boolean replaced = matched != null;
+                // Replacement cave spiders spawn naturally, so they go through the jockey decision like any other.
+                boolean jockey = false;
+                if (replaced && rules.isJockeyEnabled() && matched.pickTarget(this.random.nextDouble()) == EntityType.CAVE_SPIDER) {
+                    evaluation.reset(difficulty, y, biome);
+                    jockey = rules.evaluateJockey(evaluation) == null;
+                }
+                result.record(difficultyIndex, biomeIndex, (y - SpawnRules.TABLE_MIN_Y) / BAND_HEIGHT, replaced, jockey);
+            }
+            return result;
+        }
+    }
+
+    // Draws the inputs of a simulated spawn.
+    private final class SimulatedEvaluation extends SpawnEvaluation {
+        // The source of the rolls.
+        private final @NotNull SplittableRandom random;
+        // The drawn biome.
+        private Biome biome;
+
+        private SimulatedEvaluation(final @NotNull SplittableRandom random) {
+            this.random = random;
+        }
+
+        // Starts evaluating a spawn.
+        private void reset(final @NotNull Difficulty difficulty, final int y, final @NotNull Biome biome) {
+            this.reset(SpawnSimulator.this.environment, difficulty, y, SpawnSimulator.this.multiplier);
+            this.biome = biome;
+        }
+
+        @Override
+        protected @NotNull SpawnProfile[] lookupProfiles() {
+            return SpawnSimulator.this.profiles;
+        }
+
+        @Override
+        protected @NotNull Biome lookupBiome() {
+            return this.biome;
+        }
+
+        @Override
+        protected boolean lookupLiquid() {
+            return false;
+        }
+
+        @Override
+        protected double roll(final int stream) {
+            return this.random.nextDouble();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package dev.satyrn.deepcavespiders.simulation;
+
+import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a spawn simulation against a configuration file, without a server.
+ * The Bukkit API must be on the class path, for example:
+ * <pre>
+ * java -cp DeepCaveSpiders.jar:paper-api.jar dev.satyrn.deepcavespiders.simulation.SpawnSimulatorMain \
+ *     config.yml 10000000 simulation.csv world normal
+ * </pre>
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnSimulatorMain {
+    private SpawnSimulatorMain() {
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @param args The configuration file, the number of samples, and optionally the output file, the world name, the
+     *             world environment and the seed.
+     * @throws IOException Thrown if the report can't be written.
+     */
+    public static void main(final @NotNull String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SpawnSimulatorMain <config.yml> <samples> [output.csv] [world] [environment] [seed]");
+            System.exit(2);
+            return;
+        }
+        final File configFile = new File(args[0]);
+        final long samples = Long.parseLong(args[1]);
+        final File output = new File(args.length >= 3 ? args[2] : "simulation.csv");
+        final String worldName = args.length >= 4 ? args[3] : "world";
+        final World.Environment environment = args.length >= 5 ? World.Environment.valueOf(args[4].toUpperCase(Locale.ROOT)) : World.Environment.NORMAL;
+        final long seed = args.length >= 6 ? Long.parseLong(args[5]) : 0L;
+
+        final YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        final File dataFolder = configFile.getAbsoluteFile().getParentFile();
+        final SpawnRules rules = SpawnRules.compile(new Configuration(HeadlessPlugin.create(config, dataFolder)));
+
+        final long start = System.nanoTime();
+        final SimulationResult result = new SpawnSimulator(rules, worldName, environment, 1D).run(samples, seed, ForkJoinPool.commonPool());
+        final long elapsed = System.nanoTime() - start;
+        try (final Writer writer = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8)) {
+            result.writeCsv(writer);
+        }
+        System.out.printf(Locale.ROOT, "Simulated %d spawns in %.1f ms: %d replacements (%.4f%%), %d jockeys (%.4f%%). Wrote %s%n",
+                result.getSamples(), elapsed / 1e6D,
+                result.getReplacements(), 100D * result.getReplacements() / Math.max(1L, result.getSamples()),
+                result.getJockeys(), 100D * result.getJockeys() / Math.max(1L, result.getSamples()),
+                output);
+    }
+}
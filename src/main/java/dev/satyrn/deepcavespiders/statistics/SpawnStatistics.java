@@ -0,0 +1,508 @@
+package dev.satyrn.deepcavespiders.statistics;
+
+import org.bukkit.Difficulty;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counters describing what the spawn listener has done since the statistics were last reset.
+ * Candidates, rejections, replacements and jockeys are also counted per world, difficulty and biome. The biome is
+ * only known if a check looked it up, so candidates and rejections whose biome wasn't looked up are counted under an
+ * "unknown" biome rather than paying for the lookup.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnStatistics {
+    // The number of latency histogram buckets. Bucket n counts handler times below 2^n nanoseconds.
+    private static final int LATENCY_BUCKETS = 40;
+    // The biomes, cached so that reports don't copy them.
+    private static final Biome[] BIOMES = Biome.values();
+    // The report key of spawns whose biome wasn't looked up.
+    private static final String UNKNOWN_BIOME = "unknown";
+
+    // The number of events seen by the listener.
+    private final @NotNull LongAdder events = new LongAdder();
+    // The number of times each replacement pipeline stage was evaluated.
+    private final @NotNull LongAdder[] evaluated = newAdders(Guard.values().length);
+    // The number of spawns which could not be deferred because the queue was full.
+    private final @NotNull LongAdder spilled = new LongAdder();
+    // The number of deferred spawns which were dropped because their location was no longer valid.
+    private final @NotNull LongAdder dropped = new LongAdder();
+    // Totals across all worlds.
+    private final @NotNull Counters total = new Counters();
+    // Counters per world name.
+    private final @NotNull Map<String, Counters> worlds = new ConcurrentHashMap<>();
+    // Counters per difficulty ordinal.
+    private final @NotNull Counters[] difficulties = newCounters(Difficulty.values().length);
+    // Counters per biome ordinal, followed by the counters for spawns whose biome wasn't looked up.
+    private final @NotNull Counters[] biomes = newCounters(BIOMES.length + 1);
+    // Handler latency histogram.
+    private final @NotNull LongAdder[] latency = newAdders(LATENCY_BUCKETS);
+    // The time at which the statistics were last reset, in milliseconds since the epoch.
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * Records that an event has been handled.
+     *
+     * @param nanos The time taken to handle the event, in nanoseconds.
+     */
+    public void recordEvent(final long nanos) {
+        this.events.increment();
+        this.latency[Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0L, nanos)))].increment();
+    }
+
+    /**
+     * Records that an event has been rejected by a guard.
+     *
+     * @param guard      The guard which rejected the event.
+     * @param world      The world name.
+     * @param difficulty The world difficulty.
+     * @param biome      The biome, or {@code null} if it wasn't looked up.
+     */
+    public void recordFiltered(final @NotNull Guard guard, final @NotNull String world, final @NotNull Difficulty difficulty, final @Nullable Biome biome) {
+        final int index = guard.ordinal();
+        this.total.filtered[index].increment();
+        this.world(world).filtered[index].increment();
+        this.difficulties[difficulty.ordinal()].filtered[index].increment();
+        this.biome(biome).filtered[index].increment();
+    }
+
+    /**
+     * Records that a replacement pipeline stage has been evaluated.
+     *
+     * @param guard The pipeline stage.
+     */
+    public void recordEvaluated(final @NotNull Guard guard) {
+        this.evaluated[guard.ordinal()].increment();
+    }
+
+    /**
+     * Records that a spawn could not be deferred because the queue was full.
+     */
+    public void recordSpill() {
+        this.spilled.increment();
+    }
+
+    /**
+     * Records that a deferred spawn was dropped because its location was no longer valid.
+     */
+    public void recordDropped() {
+        this.dropped.increment();
+    }
+
+    /**
+     * Records that an event passed the spawn reason and entity type guards.
+     *
+     * @param world      The world name.
+     * @param difficulty The world difficulty.
+     * @param biome      The biome, or {@code null} if it wasn't looked up.
+     */
+    public void recordCandidate(final @NotNull String world, final @NotNull Difficulty difficulty, final @Nullable Biome biome) {
+        this.total.candidates.increment();
+        this.world(world).candidates.increment();
+        this.difficulties[difficulty.ordinal()].candidates.increment();
+        this.biome(biome).candidates.increment();
+    }
+
+    /**
+     * Records that a spawn was replaced.
+     *
+     * @param world      The world name.
+     * @param difficulty The world difficulty.
+     * @param biome      The biome, or {@code null} if it wasn't looked up.
+     */
+    public void recordReplacement(final @NotNull String world, final @NotNull Difficulty difficulty, final @Nullable Biome biome) {
+        this.total.replacements.increment();
+        this.world(world).replacements.increment();
+        this.difficulties[difficulty.ordinal()].replacements.increment();
+        this.biome(biome).replacements.increment();
+    }
+
+    /**
+     * Records that a jockey was spawned.
+     *
+     * @param world      The world name.
+     * @param difficulty The world difficulty.
+     * @param biome      The biome, or {@code null} if it wasn't looked up.
+     */
+    public void recordJockey(final @NotNull String world, final @NotNull Difficulty difficulty, final @Nullable Biome biome) {
+        this.total.jockeys.increment();
+        this.world(world).jockeys.increment();
+        this.difficulties[difficulty.ordinal()].jockeys.increment();
+        this.biome(biome).jockeys.increment();
+    }
+
+    /**
+     * Resets all counters. Increments which race with the reset may be kept or lost.
+     */
+    public void reset() {
+        this.events.reset();
+        resetAll(this.evaluated);
+        this.spilled.reset();
+        this.dropped.reset();
+        resetAll(this.latency);
+        this.total.reset();
+        this.worlds.clear();
+        for (final Counters counters : this.difficulties) {
+            counters.reset();
+        }
+        for (final Counters counters : this.biomes) {
+            counters.reset();
+        }
+        this.since = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the number of events handled.
+     *
+     * @return The number of events.
+     */
+    public long getEvents() {
+        return this.events.sum();
+    }
+
+    /**
+     * Gets the number of events rejected by a guard.
+     *
+     * @param guard The guard.
+     * @return The number of rejected events.
+     */
+    public long getFiltered(final @NotNull Guard guard) {
+        return this.total.filtered[guard.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of times a replacement pipeline stage was evaluated.
+     *
+     * @param guard The pipeline stage.
+     * @return The number of evaluations, or zero if the guard is not a pipeline stage.
+     */
+    public long getEvaluated(final @NotNull Guard guard) {
+        return this.evaluated[guard.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of spawns which could not be deferred because the queue was full.
+     *
+     * @return The number of spilled spawns.
+     */
+    public long getSpilled() {
+        return this.spilled.sum();
+    }
+
+    /**
+     * Gets the number of deferred spawns which were dropped because their location was no longer valid.
+     *
+     * @return The number of dropped spawns.
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Gets the number of events which passed the spawn reason and entity type guards.
+     *
+     * @return The number of candidate events.
+     */
+    public long getCandidates() {
+        return this.total.candidates.sum();
+    }
+
+    /**
+     * Gets the number of replaced spawns.
+     *
+     * @return The number of replacements.
+     */
+    public long getReplacements() {
+        return this.total.replacements.sum();
+    }
+
+    /**
+     * Gets the number of spawned jockeys.
+     *
+     * @return The number of jockeys.
+     */
+    public long getJockeys() {
+        return this.total.jockeys.sum();
+    }
+
+    /**
+     * Gets the time at which the statistics were last reset.
+     *
+     * @return The reset time, in milliseconds since the epoch.
+     */
+    public long getSince() {
+        return this.since;
+    }
+
+    /**
+     * Estimates a handler latency percentile from the histogram.
+     * The result is the upper bound of the histogram bucket containing the percentile.
+     *
+     * @param percentile The percentile, between 0 and 1.
+     * @return The estimated latency, in nanoseconds.
+     */
+    public long getLatencyPercentile(final double percentile) {
+        final long[] counts = new long[LATENCY_BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            counts[i] = this.latency[i].sum();
+            total += counts[i];
+        }
+        final long target = (long) Math.ceil(total * percentile);
+        long seen = 0L;
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= target && seen > 0L) {
+                return 1L << i;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Writes the statistics as comma separated values.
+     *
+     * @param writer The destination.
+     * @throws IOException If the statistics could not be written.
+     */
+    public void writeCsv(final @NotNull Writer writer) throws IOException {
+        writer.write("category,key,value\n");
+        writer.write("total,since," + this.since + "\n");
+        writer.write("total,events," + this.getEvents() + "\n");
+        writer.write("total,candidates," + this.getCandidates() + "\n");
+        writer.write("total,replacements," + this.getReplacements() + "\n");
+        writer.write("total,jockeys," + this.getJockeys() + "\n");
+        writer.write("deferred,spilled," + this.getSpilled() + "\n");
+        writer.write("deferred,dropped," + this.getDropped() + "\n");
+        for (final Guard guard : Guard.values()) {
+            writer.write("filtered," + guard.key() + "," + this.getFiltered(guard) + "\n");
+            writer.write("evaluated," + guard.key() + "," + this.getEvaluated(guard) + "\n");
+        }
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            final long count = this.latency[i].sum();
+            if (count > 0L) {
+                writer.write("latency_ns_below," + (1L << i) + "," + count + "\n");
+            }
+        }
+        for (final Map.Entry<String, Counters> entry : new TreeMap<>(this.worlds).entrySet()) {
+            entry.getValue().writeCsv(writer, "world", entry.getKey());
+        }
+        for (final Difficulty difficulty : Difficulty.values()) {
+            this.difficulties[difficulty.ordinal()].writeCsv(writer, "difficulty", difficulty.name().toLowerCase(Locale.ROOT));
+        }
+        for (final Biome biome : BIOMES) {
+            this.biomes[biome.ordinal()].writeCsv(writer, "biome", biome.name().toLowerCase(Locale.ROOT));
+        }
+        this.biomes[BIOMES.length].writeCsv(writer, "biome", UNKNOWN_BIOME);
+    }
+
+    /**
+     * Writes the statistics as a JSON object.
+     *
+     * @param writer The destination.
+     * @throws IOException If the statistics could not be written.
+     */
+    public void writeJson(final @NotNull Writer writer) throws IOException {
+        writer.write("{\"since\":" + this.since + ",\"events\":" + this.getEvents() + ",\"candidates\":" + this.getCandidates() + ",\"replacements\":" + this.getReplacements() + ",\"jockeys\":" + this.getJockeys() + ",\"spilled\":" + this.getSpilled() + ",\"dropped\":" + this.getDropped() + ",\"filtered\":{");
+        final Guard[] guards = Guard.values();
+        for (int i = 0; i < guards.length; ++i) {
+            writer.write((i > 0 ? "," : "") + "\"" + guards[i].key() + "\":" + this.getFiltered(guards[i]));
+        }
+        writer.write("},\"evaluated\":{");
+        for (int i = 0; i < guards.length; ++i) {
+            writer.write((i > 0 ? "," : "") + "\"" + guards[i].key() + "\":" + this.getEvaluated(guards[i]));
+        }
+        writer.write("},\"latencyNanosBelow\":{");
+        boolean first = true;
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            final long count = this.latency[i].sum();
+            if (count > 0L) {
+                writer.write((first ? "" : ",") + "\"" + (1L << i) + "\":" + count);
+                first = false;
+            }
+        }
+        writer.write("},\"worlds\":{");
+        first = true;
+        for (final Map.Entry<String, Counters> entry : new TreeMap<>(this.worlds).entrySet()) {
+            writer.write((first ? "" : ",") + "\"" + entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"") + "\":");
+            entry.getValue().writeJson(writer);
+            first = false;
+        }
+        writer.write("},\"difficulties\":{");
+        first = true;
+        for (final Difficulty difficulty : Difficulty.values()) {
+            writer.write((first ? "" : ",") + "\"" + difficulty.name().toLowerCase(Locale.ROOT) + "\":");
+            this.difficulties[difficulty.ordinal()].writeJson(writer);
+            first = false;
+        }
+        writer.write("},\"biomes\":{");
+        first = true;
+        for (int i = 0; i < this.biomes.length; ++i) {
+            final Counters counters = this.biomes[i];
+            if (counters.isEmpty()) {
+                continue;
+            }
+            writer.write((first ? "" : ",") + "\"" + (i < BIOMES.length ? BIOMES[i].name().toLowerCase(Locale.ROOT) : UNKNOWN_BIOME) + "\":");
+            counters.writeJson(writer);
+            first = false;
+        }
+        writer.write("}}\n");
+    }
+
+    // Gets the counters for a biome, or for spawns whose biome wasn't looked up.
+    private @NotNull Counters biome(final @Nullable Biome biome) {
+        return this.biomes[biome == null ? BIOMES.length : biome.ordinal()];
+    }
+
+    // Gets the counters for a world, creating them if necessary.
+    private @NotNull Counters world(final @NotNull String world) {
+        final Counters counters = this.worlds.get(world);
+        return counters != null ? counters : this.worlds.computeIfAbsent(world, name -> new Counters());
+    }
+
+    private static @NotNull LongAdder[] newAdders(final int length) {
+        final LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; ++i) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static @NotNull Counters[] newCounters(final int length) {
+        final Counters[] counters = new Counters[length];
+        for (int i = 0; i < length; ++i) {
+            counters[i] = new Counters();
+        }
+        return counters;
+    }
+
+    private static void resetAll(final @NotNull LongAdder[] adders) {
+        for (final LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * The guards which may reject a spawn event.
+     * The environment, Y, chance, biome and liquid guards are the stages of the replacement pipeline, and are declared
+     * in their default evaluation order: cheapest and most selective first.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public enum Guard {
+        /**
+         * The spawn reason is not handled.
+         */
+        REASON,
+        /**
+         * The entity type is not handled.
+         */
+        TYPE,
+        /**
+         * The world environment is not allowed.
+         */
+        ENVIRONMENT,
+        /**
+         * The spawn height is out of range.
+         */
+        Y,
+        /**
+         * The world difficulty does not allow the spawn.
+         */
+        DIFFICULTY,
+        /**
+         * The chance roll failed, or the chance was zero.
+         */
+        CHANCE,
+        /**
+         * The biome is not allowed.
+         */
+        BIOME,
+        /**
+         * The spawn location is in a liquid.
+         */
+        LIQUID,
+        /**
+         * A replacement cap or rate limit applied.
+         */
+        LIMIT;
+
+        /**
+         * Gets the key used for this guard in commands and reports.
+         *
+         * @return The key.
+         */
+        public @NotNull String key() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Outcome counters for one world, difficulty or biome.
+    private static final class Counters {
+        private final @NotNull LongAdder candidates = new LongAdder();
+        private final @NotNull LongAdder replacements = new LongAdder();
+        private final @NotNull LongAdder jockeys = new LongAdder();
+        // The number of events rejected by each guard, indexed by guard ordinal.
+        private final @NotNull LongAdder[] filtered = newAdders(Guard.values().length);
+
+        private void reset() {
+            this.candidates.reset();
+            this.replacements.reset();
+            this.jockeys.reset();
+            resetAll(this.filtered);
+        }
+
+        private boolean isEmpty() {
+            if (this.candidates.sum() != 0L || this.replacements.sum() != 0L || this.jockeys.sum() != 0L) {
+                return false;
+            }
+            for (final LongAdder adder : this.filtered) {
+                if (adder.sum() != 0L) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void writeCsv(final @NotNull Writer writer, final @NotNull String category, final @NotNull String key) throws IOException {
+            if (this.isEmpty()) {
+                return;
+            }
+            final String escaped = key.contains(",") || key.contains("\"") ? "\"" + key.replace("\"", "\"\"") + "\"" : key;
+            writer.write(category + "_candidates," + escaped + "," + this.candidates.sum() + "\n");
+            writer.write(category + "_replacements," + escaped + "," + this.replacements.sum() + "\n");
+            writer.write(category + "_jockeys," + escaped + "," + this.jockeys.sum() + "\n");
+            for (final Guard guard : Guard.values()) {
+                final long filtered = this.filtered[guard.ordinal()].sum();
+                if (filtered > 0L) {
+                    writer.write(category + "_filtered_" + guard.key() + "," + escaped + "," + filtered + "\n");
+                }
+            }
+        }
+
+        private void writeJson(final @NotNull Writer writer) throws IOException {
+            writer.write("{\"candidates\":" + this.candidates.sum() + ",\"replacements\":" + this.replacements.sum() + ",\"jockeys\":" + this.jockeys.sum() + ",\"filtered\":{");
+            boolean first = true;
+            for (final Guard guard : Guard.values()) {
+                final long filtered = this.filtered[guard.ordinal()].sum();
+                if (filtered > 0L) {
+                    writer.write((first ? "" : ",") + "\"" + guard.key() + "\":" + filtered);
+                    first = false;
+                }
+            }
+            writer.write("}}");
+        }
+    }
+}
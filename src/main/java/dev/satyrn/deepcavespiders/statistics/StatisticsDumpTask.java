@@ -0,0 +1,82 @@
+package dev.satyrn.deepcavespiders.statistics;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Locale;
+import java.util.logging.Level;
+
+/**
+ * Writes the spawn statistics to a timestamped file in the plugin data folder, and deletes the oldest files beyond
+ * the configured number. Intended to be run periodically on an asynchronous task.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class StatisticsDumpTask implements Runnable {
+    private final @NotNull Plugin plugin;
+    private final @NotNull SpawnStatistics statistics;
+    private final @NotNull StatisticsFormat format;
+    // The number of statistics files to keep.
+    private final int maxDumps;
+
+    /**
+     * Creates a new statistics dump task.
+     *
+     * @param plugin     The plugin.
+     * @param statistics The statistics to write.
+     * @param format     The file format.
+     * @param maxDumps   The number of statistics files to keep.
+     */
+    public StatisticsDumpTask(final @NotNull Plugin plugin, final @NotNull SpawnStatistics statistics, final @NotNull StatisticsFormat format, final int maxDumps) {
+        this.plugin = plugin;
+        this.statistics = statistics;
+        this.format = format;
+        this.maxDumps = Math.max(1, maxDumps);
+    }
+
+    @Override
+    public void run() {
+        final File folder = new File(this.plugin.getDataFolder(), "statistics");
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            this.plugin.getLogger().log(Level.WARNING, "Unable to create the statistics folder {0}.", folder);
+            return;
+        }
+        final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date());
+        final File file = new File(folder, "spawns-" + timestamp + "." + this.format.name().toLowerCase(Locale.ROOT));
+        try (final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            if (this.format == StatisticsFormat.JSON) {
+                this.statistics.writeJson(writer);
+            } else {
+                this.statistics.writeCsv(writer);
+            }
+        } catch (IOException ex) {
+            this.plugin.getLogger().log(Level.WARNING, "Unable to write spawn statistics to " + file, ex);
+        }
+        this.deleteOldDumps(folder);
+    }
+
+    // Deletes the oldest statistics files, in either format, keeping the newest ones up to the limit.
+    private void deleteOldDumps(final @NotNull File folder) {
+        final File[] files = folder.listFiles((dir, name) -> name.startsWith("spawns-") && (name.endsWith(".csv") || name.endsWith(".json")));
+        if (files == null || files.length <= this.maxDumps) {
+            return;
+        }
+        // Timestamped names sort in the order the files were written.
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (int i = 0; i < files.length - this.maxDumps; ++i) {
+            if (!files[i].delete()) {
+                this.plugin.getLogger().log(Level.WARNING, "Unable to delete old statistics file {0}.", files[i]);
+            }
+        }
+    }
+}
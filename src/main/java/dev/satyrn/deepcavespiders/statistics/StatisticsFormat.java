@@ -0,0 +1,18 @@
+package dev.satyrn.deepcavespiders.statistics;
+
+/**
+ * File formats for periodic statistics dumps.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public enum StatisticsFormat {
+    /**
+     * Comma separated values, one counter per row.
+     */
+    CSV,
+    /**
+     * A single JSON object.
+     */
+    JSON
+}
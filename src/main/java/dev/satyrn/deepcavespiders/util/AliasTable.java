@@ -0,0 +1,101 @@
+package dev.satyrn.deepcavespiders.util;
+
+/**
+ * Picks weighted indices in constant time with Vose's alias method.
+ * The table splits the weights into equal columns, each holding at most two outcomes, so a pick is one column lookup
+ * and one comparison no matter how many outcomes there are.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class AliasTable {
+    // The chance of keeping each column's own index, rather than its alias.
+    private final double[] probabilities;
+    // The alias of each column.
+    private final int[] aliases;
+
+    /**
+     * Builds an alias table.
+     *
+     * @param weights The weight of each index. Weights are relative and need not sum to one.
+     * @throws IllegalArgumentException Thrown if there are no weights, or a weight is negative, infinite or NaN, or
+     *                                  every weight is zero.
+     */
+    public AliasTable(final double[] weights) throws IllegalArgumentException {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("An alias table needs at least one weight");
+        }
+        double sum = 0D;
+        for (final double weight : weights) {
+            if (!(weight >= 0D) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            }
+            sum += weight;
+        }
+        if (sum <= 0D) {
+            throw new IllegalArgumentException("At least one weight must be above zero");
+        }
+        this.probabilities = new double[n];
+        this.aliases = new int[n];
+        // Scale the weights so that they average one, and sort the columns into under-full and over-full stacks.
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; ++i) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1D) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        // Fill each under-full column from an over-full one.
+        while (smallCount > 0 && largeCount > 0) {
+            final int less = small[--smallCount];
+            final int more = large[--largeCount];
+            this.probabilities[less] = scaled[less];
+            this.aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1D;
+            if (scaled[more] < 1D) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full, give or take rounding error.
+        while (largeCount > 0) {
+            final int index = large[--largeCount];
+            this.probabilities[index] = 1D;
+            this.aliases[index] = index;
+        }
+        while (smallCount > 0) {
+            final int index = small[--smallCount];
+            this.probabilities[index] = 1D;
+            this.aliases[index] = index;
+        }
+    }
+
+    /**
+     * Picks an index.
+     *
+     * @param roll A uniform random number between 0 (inclusive) and 1 (exclusive).
+     * @return The picked index.
+     */
+    public int pick(final double roll) {
+        final double scaled = roll * this.probabilities.length;
+        final int column = Math.min((int) scaled, this.probabilities.length - 1);
+        return scaled - column < this.probabilities[column] ? column : this.aliases[column];
+    }
+
+    /**
+     * Gets the number of indices.
+     *
+     * @return The number of indices.
+     */
+    public int size() {
+        return this.probabilities.length;
+    }
+}
@@ -0,0 +1,312 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches biome lookups per world and chunk section.
+ * Biomes are stored in 4x4x4 block cells, so each cached section holds the biome ordinals of its 64 cells as
+ * primitives, filled in as spawns hit them. Repeat spawns in the same cave then skip the chunk data lookup entirely.
+ * <p>
+ * Each world's cache is bounded and split into stripes by chunk, so that region threads rarely share a lock. When a
+ * stripe is full, the least recently used section is evicted with the clock algorithm. Sections are invalidated when
+ * their chunk unloads.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class BiomeCache {
+    // The number of section map stripes per world. Must be a power of two.
+    private static final int STRIPES = 16;
+    // The number of biome cells in a chunk section.
+    private static final int CELLS = 64;
+    // The biomes, indexed by ordinal.
+    private static final Biome[] BIOMES = Biome.values();
+
+    // Cached sections per world, split into stripes.
+    private final @NotNull Map<UUID, SectionMap[]> worlds = new ConcurrentHashMap<>();
+    // The number of lookups answered from the cache.
+    private final @NotNull LongAdder hits = new LongAdder();
+    // The number of lookups which had to read chunk data.
+    private final @NotNull LongAdder misses = new LongAdder();
+
+    /**
+     * Gets the biome at a location, reading it from the world only if its cell hasn't been cached yet.
+     *
+     * @param location The location.
+     * @param sections The maximum number of sections to cache per world. If zero, the cache is bypassed.
+     * @return The biome at the location.
+     */
+    public @NotNull Biome getBiome(final @NotNull Location location, final int sections) {
+        final World world = location.getWorld();
+        if (sections <= 0) {
+            return world.getBiome(location);
+        }
+        final int x = location.getBlockX();
+        final int y = location.getBlockY();
+        final int z = location.getBlockZ();
+        final SectionMap map = this.worlds.computeIfAbsent(world.getUID(), uid -> createStripes(sections))[stripe(x >> 4, z >> 4)];
+        final long key = sectionKey(x >> 4, y >> 4, z >> 4);
+        final int cell = ((y >> 2) & 3) << 4 | ((z >> 2) & 3) << 2 | ((x >> 2) & 3);
+        final int ordinal;
+        synchronized (map) {
+            ordinal = map.get(key, cell);
+        }
+        if (ordinal >= 0) {
+            this.hits.increment();
+            return BIOMES[ordinal];
+        }
+        this.misses.increment();
+        // Read the chunk data outside the lock. Two threads may both miss on the same cell, which is harmless.
+        final Biome biome = world.getBiome(location);
+        synchronized (map) {
+            map.put(key, cell, biome.ordinal());
+        }
+        return biome;
+    }
+
+    /**
+     * Discards the cached sections of a chunk.
+     *
+     * @param chunk The chunk.
+     */
+    public void invalidate(final @NotNull Chunk chunk) {
+        final World world = chunk.getWorld();
+        final SectionMap[] stripes = this.worlds.get(world.getUID());
+        if (stripes == null) {
+            return;
+        }
+        final SectionMap map = stripes[stripe(chunk.getX(), chunk.getZ())];
+        final int minSection = world.getMinHeight() >> 4;
+        final int maxSection = (world.getMaxHeight() - 1) >> 4;
+        synchronized (map) {
+            for (int section = minSection; section <= maxSection; ++section) {
+                map.remove(sectionKey(chunk.getX(), section, chunk.getZ()));
+            }
+        }
+    }
+
+    /**
+     * Discards the cached sections of a world.
+     *
+     * @param world The world.
+     */
+    public void clear(final @NotNull World world) {
+        this.worlds.remove(world.getUID());
+    }
+
+    /**
+     * Discards all cached sections. The next lookup in each world recreates its cache with the size it is given.
+     */
+    public void clear() {
+        this.worlds.clear();
+    }
+
+    /**
+     * Gets the number of cached sections across all worlds.
+     *
+     * @return The number of cached sections.
+     */
+    public int size() {
+        int size = 0;
+        for (final SectionMap[] stripes : this.worlds.values()) {
+            for (final SectionMap map : stripes) {
+                synchronized (map) {
+                    size += map.size;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups which had to read chunk data.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    // Creates the stripes for a world, sharing the section budget between them.
+    private static @NotNull SectionMap[] createStripes(final int sections) {
+        final SectionMap[] stripes = new SectionMap[STRIPES];
+        for (int i = 0; i < STRIPES; ++i) {
+            stripes[i] = new SectionMap(Math.max(1, sections / STRIPES));
+        }
+        return stripes;
+    }
+
+    // Gets the stripe for a chunk. All sections of a chunk share a stripe, so a chunk is invalidated under one lock.
+    private static int stripe(final int chunkX, final int chunkZ) {
+        final int h = chunkX * 31 + chunkZ;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // Packs section coordinates into a single long key: 22 bits each for X and Z, and 20 bits for Y.
+    private static long sectionKey(final int sectionX, final int sectionY, final int sectionZ) {
+        return ((long) (sectionX & 0x3FFFFF) << 42) | ((long) (sectionZ & 0x3FFFFF) << 20) | (sectionY & 0xFFFFF);
+    }
+
+    // Spreads the key bits so that neighbouring sections land in different index slots.
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // A fixed number of cached sections, looked up through an open-addressed index and evicted with the clock
+    // algorithm. Not thread-safe; callers synchronize on the map.
+    private static final class SectionMap {
+        // The section key held by each slot.
+        private final long[] keys;
+        // The biome ordinals of each slot's cells, 64 per slot, or -1 where a cell hasn't been looked up.
+        private final short[] cells;
+        // Whether each slot has been used since the clock hand last passed it.
+        private final boolean[] referenced;
+        // Maps key hashes to slot numbers plus one, or zero for an empty index entry.
+        private final int[] index;
+        // Slots which hold no section.
+        private final int[] free;
+        // The number of free slots.
+        private int freeCount;
+        // The number of cached sections.
+        private int size;
+        // The clock hand.
+        private int hand;
+
+        private SectionMap(final int capacity) {
+            this.keys = new long[capacity];
+            this.cells = new short[capacity * CELLS];
+            this.referenced = new boolean[capacity];
+            this.index = new int[Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1];
+            this.free = new int[capacity];
+            for (int i = 0; i < capacity; ++i) {
+                this.free[i] = capacity - 1 - i;
+            }
+            this.freeCount = capacity;
+        }
+
+        // Gets the biome ordinal of a cell, or -1 if it isn't cached.
+        private int get(final long key, final int cell) {
+            final int position = this.find(key);
+            if (position < 0) {
+                return -1;
+            }
+            final int slot = this.index[position] - 1;
+            this.referenced[slot] = true;
+            return this.cells[slot * CELLS + cell];
+        }
+
+        // Caches the biome ordinal of a cell, evicting a section if the map is full.
+        private void put(final long key, final int cell, final int ordinal) {
+            final int position = this.find(key);
+            final int slot;
+            if (position >= 0) {
+                slot = this.index[position] - 1;
+            } else {
+                slot = this.freeCount > 0 ? this.free[--this.freeCount] : this.evict();
+                this.keys[slot] = key;
+                Arrays.fill(this.cells, slot * CELLS, slot * CELLS + CELLS, (short) -1);
+                this.link(slot);
+                ++this.size;
+            }
+            this.referenced[slot] = true;
+            this.cells[slot * CELLS + cell] = (short) ordinal;
+        }
+
+        // Removes a section, if it is cached.
+        private void remove(final long key) {
+            final int position = this.find(key);
+            if (position >= 0) {
+                final int slot = this.index[position] - 1;
+                this.unlink(position);
+                this.referenced[slot] = false;
+                this.free[this.freeCount++] = slot;
+                --this.size;
+            }
+        }
+
+        // Advances the clock hand past recently used slots, and frees the first slot which wasn't.
+        private int evict() {
+            final int capacity = this.keys.length;
+            while (this.referenced[this.hand]) {
+                this.referenced[this.hand] = false;
+                this.hand = (this.hand + 1) % capacity;
+            }
+            final int slot = this.hand;
+            this.hand = (this.hand + 1) % capacity;
+            this.unlink(this.find(this.keys[slot]));
+            --this.size;
+            return slot;
+        }
+
+        // Finds the index position of a key, or -1 if the key isn't cached.
+        private int find(final long key) {
+            final int mask = this.index.length - 1;
+            int position = hash(key) & mask;
+            while (this.index[position] != 0) {
+                if (this.keys[this.index[position] - 1] == key) {
+                    return position;
+                }
+                position = (position + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Adds a slot to the index.
+        private void link(final int slot) {
+            final int mask = this.index.length - 1;
+            int position = hash(this.keys[slot]) & mask;
+            while (this.index[position] != 0) {
+                position = (position + 1) & mask;
+            }
+            this.index[position] = slot + 1;
+        }
+
+        // Removes an index entry, shifting later entries of the same probe run back so that lookups still find them.
+        private void unlink(int position) {
+            final int mask = this.index.length - 1;
+            int next = position;
+            while (true) {
+                next = (next + 1) & mask;
+                if (this.index[next] == 0) {
+                    break;
+                }
+                final int home = hash(this.keys[this.index[next] - 1]) & mask;
+                // Move the entry back unless its home position lies cyclically between the gap and itself.
+                final boolean between = position <= next ? position < home && home <= next : position < home || home <= next;
+                if (!between) {
+                    this.index[position] = this.index[next];
+                    position = next;
+                }
+            }
+            this.index[position] = 0;
+        }
+    }
+}
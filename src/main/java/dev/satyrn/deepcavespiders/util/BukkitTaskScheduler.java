@@ -0,0 +1,77 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Schedules tasks with the Bukkit scheduler, for servers with a single main thread.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+final class BukkitTaskScheduler implements TaskScheduler {
+    // The plugin which owns the scheduled tasks.
+    private final @NotNull Plugin plugin;
+    // The Bukkit scheduler.
+    private final @NotNull BukkitScheduler scheduler;
+
+    /**
+     * Creates a new Bukkit task scheduler.
+     *
+     * @param plugin The plugin which owns the scheduled tasks.
+     */
+    BukkitTaskScheduler(final @NotNull Plugin plugin) {
+        this.plugin = plugin;
+        this.scheduler = plugin.getServer().getScheduler();
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(final @NotNull Entity entity) {
+        return Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public @NotNull Task runGlobal(final @NotNull Runnable task) {
+        return this.scheduler.runTask(this.plugin, task)::cancel;
+    }
+
+    @Override
+    public @NotNull Task runGlobalTimer(final @NotNull Runnable task, final long delay, final long period) {
+        return this.scheduler.runTaskTimer(this.plugin, task, delay, period)::cancel;
+    }
+
+    @Override
+    public @NotNull Task runAsync(final @NotNull Runnable task) {
+        return this.scheduler.runTaskAsynchronously(this.plugin, task)::cancel;
+    }
+
+    @Override
+    public @NotNull Task runAsyncTimer(final @NotNull Runnable task, final long delay, final long period) {
+        return this.scheduler.runTaskTimerAsynchronously(this.plugin, task, delay, period)::cancel;
+    }
+
+    @Override
+    public void runAt(final @NotNull Location location, final @NotNull Runnable task) {
+        this.scheduler.runTask(this.plugin, task);
+    }
+
+    @Override
+    public void runFor(final @NotNull Entity entity, final @NotNull Runnable task, final @NotNull Runnable retired) {
+        this.scheduler.runTask(this.plugin, () -> {
+            if (entity.isValid()) {
+                task.run();
+            } else {
+                retired.run();
+            }
+        });
+    }
+}
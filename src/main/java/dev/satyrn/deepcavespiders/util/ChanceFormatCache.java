@@ -0,0 +1,51 @@
+package dev.satyrn.deepcavespiders.util;
+
+import dev.satyrn.papermc.api.util.v1.MathHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Formats spawn chances as percentages with up to two decimal places, caching each distinct string.
+ * Chances are rounded to hundredths of a percent, so there are only 10001 possible strings, and each is formatted
+ * once. Safe to use from several threads; two threads may format the same string at once, which is harmless.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class ChanceFormatCache {
+    /**
+     * The number of steps between a chance of zero and a chance of one.
+     */
+    public static final int STEPS = 10000;
+
+    // Formatted percentages, indexed by step.
+    private final @NotNull AtomicReferenceArray<String> values = new AtomicReferenceArray<>(STEPS + 1);
+
+    /**
+     * Rounds a chance to the nearest step.
+     *
+     * @param chance The chance, between zero and one.
+     * @return The step, between zero and {@link #STEPS}.
+     */
+    public static int step(final double chance) {
+        return (int) Math.round(MathHelper.clampd(chance, 0D, 1D) * STEPS);
+    }
+
+    /**
+     * Formats a chance as a percentage, such as {@code "12.5%"}.
+     *
+     * @param chance The chance, between zero and one.
+     * @return The formatted percentage.
+     */
+    public @NotNull String format(final double chance) {
+        final int step = step(chance);
+        String value = this.values.get(step);
+        if (value == null) {
+            value = new DecimalFormat("0.0#").format(step * 100D / STEPS) + "%";
+            this.values.set(step, value);
+        }
+        return value;
+    }
+}
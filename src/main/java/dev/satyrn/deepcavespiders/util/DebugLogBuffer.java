@@ -0,0 +1,91 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, lock-free buffer for debug log records.
+ * Any thread may offer records; a single background task drains them to the logger, so that console output never
+ * happens on the thread which produced the record. Records offered while the buffer is full are dropped and counted.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class DebugLogBuffer {
+    // The buffered records. Empty slots are null.
+    private final @NotNull AtomicReferenceArray<LogRecord> slots;
+    // Mask which maps a sequence number to a slot index.
+    private final int mask;
+    // The next sequence number to be claimed by a producer.
+    private final @NotNull AtomicLong head = new AtomicLong();
+    // The next sequence number to be drained.
+    private final @NotNull AtomicLong tail = new AtomicLong();
+    // The number of records dropped since the last drain.
+    private final @NotNull AtomicLong dropped = new AtomicLong();
+    // The logger which receives drained records.
+    private final @NotNull Logger logger;
+
+    /**
+     * Creates a new debug log buffer.
+     *
+     * @param logger   The logger which receives drained records.
+     * @param capacity The minimum number of records which may be buffered. Rounded up to a power of two.
+     */
+    public DebugLogBuffer(final @NotNull Logger logger, final int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.logger = logger;
+    }
+
+    /**
+     * Buffers a log record, or drops it if the buffer is full.
+     *
+     * @param level      The log level.
+     * @param message    The message pattern.
+     * @param parameters The message parameters.
+     */
+    public void offer(final @NotNull Level level, final @NotNull String message, final Object... parameters) {
+        while (true) {
+            final long sequence = this.head.get();
+            if (sequence - this.tail.get() > this.mask) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+            if (this.head.compareAndSet(sequence, sequence + 1)) {
+                final LogRecord record = new LogRecord(level, message);
+                record.setParameters(parameters);
+                record.setLoggerName(this.logger.getName());
+                this.slots.set((int) sequence & this.mask, record);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered records to the logger. Must only be called from one thread at a time.
+     */
+    public void drain() {
+        long sequence = this.tail.get();
+        while (true) {
+            final int index = (int) sequence & this.mask;
+            final LogRecord record = this.slots.get(index);
+            // Either the buffer is empty, or a producer has claimed the slot but not yet written it.
+            if (record == null) {
+                break;
+            }
+            this.slots.set(index, null);
+            this.tail.lazySet(++sequence);
+            this.logger.log(record);
+        }
+        final long dropped = this.dropped.getAndSet(0L);
+        if (dropped > 0L) {
+            this.logger.log(Level.WARNING, "[Debug] Dropped {0} debug messages because the log buffer was full.", dropped);
+        }
+    }
+}
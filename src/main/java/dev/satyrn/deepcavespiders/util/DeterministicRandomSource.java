@@ -0,0 +1,65 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Random source which derives each roll from the world seed, the chunk and block position, and the world time.
+ * The same spawn at the same tick always receives the same roll, which allows spawn decisions to be reproduced.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class DeterministicRandomSource implements RandomSource {
+    // Golden ratio increment used by SplitMix64.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // Scales a 53 bit integer into the unit interval.
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * The shared instance.
+     */
+    public static final @NotNull DeterministicRandomSource INSTANCE = new DeterministicRandomSource();
+
+    private DeterministicRandomSource() {
+    }
+
+    @Override
+    public double nextDouble(final @NotNull Location location, final int stream) {
+        final World world = location.getWorld();
+        final int x = location.getBlockX();
+        final int z = location.getBlockZ();
+        return nextDouble(world.getSeed(), x >> 4, z >> 4, x & 15, location.getBlockY(), z & 15, world.getFullTime(), stream);
+    }
+
+    /**
+     * Derives a roll from its inputs without touching any world state.
+     *
+     * @param seed   The world seed.
+     * @param chunkX The chunk X coordinate.
+     * @param chunkZ The chunk Z coordinate.
+     * @param localX The block X coordinate within the chunk.
+     * @param y      The block Y coordinate.
+     * @param localZ The block Z coordinate within the chunk.
+     * @param time   The world time.
+     * @param stream Distinguishes independent rolls made for the same spawn.
+     * @return A number between 0 (inclusive) and 1 (exclusive).
+     */
+    public static double nextDouble(final long seed, final int chunkX, final int chunkZ, final int localX, final int y, final int localZ, final long time, final int stream) {
+        long hash = mix(seed + GOLDEN_GAMMA);
+        hash = mix(hash ^ (((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL)));
+        hash = mix(hash ^ (((long) localX << 40) | ((long) localZ << 32) | (y & 0xFFFFFFFFL)));
+        hash = mix(hash ^ time);
+        hash = mix(hash ^ stream);
+        return (hash >>> 11) * DOUBLE_UNIT;
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,22 @@
+package dev.satyrn.deepcavespiders.util;
+
+/**
+ * A function which scales the configured spawn chance by height.
+ * Curves are only evaluated while the spawn chance tables are built, never while handling spawns.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+@FunctionalInterface
+public interface DistributionCurve {
+    /**
+     * Gets the factor by which the configured spawn chance is multiplied at a given height.
+     * The result is not clamped.
+     *
+     * @param y    The Y location of the spawn.
+     * @param minY The minimum Y value of the spawn range.
+     * @param maxY The maximum Y value of the spawn range.
+     * @return The unclamped spawn chance factor.
+     */
+    double scale(final double y, final int minY, final int maxY);
+}
@@ -0,0 +1,329 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A curve defined by an arithmetic expression over {@code y}, {@code minY} and {@code maxY}.
+ * The expression is parsed once into a tree of closures, with constant subexpressions folded, so evaluating it never
+ * touches the source text.
+ * <p>
+ * Supported syntax: numbers, the variables {@code y}, {@code minY} and {@code maxY}, the constants {@code pi} and
+ * {@code e}, the operators {@code + - * / % ^} with the usual precedence ({@code ^} is right-associative), parentheses,
+ * and the functions {@code abs, sqrt, exp, ln, log, floor, ceil, min, max, pow} and {@code clamp}. {@code log(x)} is
+ * the base 10 logarithm and {@code log(x, b)} is the base {@code b} logarithm.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class ExpressionCurve implements DistributionCurve {
+    // The source expression.
+    private final @NotNull String source;
+    // The compiled expression.
+    private final @NotNull Term term;
+
+    private ExpressionCurve(final @NotNull String source, final @NotNull Term term) {
+        this.source = source;
+        this.term = term;
+    }
+
+    /**
+     * Parses and compiles an expression.
+     *
+     * @param expression The expression, for example {@code "((maxY - y) / (maxY - minY)) ^ 3"}.
+     * @return The curve.
+     * @throws IllegalArgumentException Thrown if the expression is malformed.
+     */
+    public static @NotNull ExpressionCurve parse(final @NotNull String expression) throws IllegalArgumentException {
+        final Parser parser = new Parser(expression);
+        final Node node = parser.expression();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw parser.error("Unexpected \"" + parser.peek() + "\"");
+        }
+        return new ExpressionCurve(expression.trim(), node.term);
+    }
+
+    @Override
+    public double scale(final double y, final int minY, final int maxY) {
+        return this.term.apply(y, minY, maxY);
+    }
+
+    @Override
+    public String toString() {
+        return "expression(" + this.source + ")";
+    }
+
+    // A compiled expression.
+    @FunctionalInterface
+    private interface Term {
+        double apply(final double y, final double minY, final double maxY);
+    }
+
+    // A compiled subexpression, and whether it is constant.
+    private static final class Node {
+        private final @NotNull Term term;
+        private final boolean constant;
+
+        private Node(final @NotNull Term term, final boolean constant) {
+            this.term = term;
+            this.constant = constant;
+        }
+
+        private static @NotNull Node constant(final double value) {
+            return new Node((y, minY, maxY) -> value, true);
+        }
+
+        private static @NotNull Node variable(final @NotNull Term term) {
+            return new Node(term, false);
+        }
+
+        // Combines two subexpressions with a binary operator, folding the result if both are constant.
+        private static @NotNull Node binary(final @NotNull Node left, final @NotNull Node right, final @NotNull BinaryOperator operator) {
+            final Term a = left.term;
+            final Term b = right.term;
+            if (left.constant && right.constant) {
+                return constant(operator.apply(a.apply(0D, 0D, 0D), b.apply(0D, 0D, 0D)));
+            }
+            return variable((y, minY, maxY) -> operator.apply(a.apply(y, minY, maxY), b.apply(y, minY, maxY)));
+        }
+
+        // Applies a unary function to a subexpression, folding the result if it is constant.
+        private static @NotNull Node unary(final @NotNull Node operand, final @NotNull UnaryOperator operator) {
+            final Term a = operand.term;
+            if (operand.constant) {
+                return constant(operator.apply(a.apply(0D, 0D, 0D)));
+            }
+            return variable((y, minY, maxY) -> operator.apply(a.apply(y, minY, maxY)));
+        }
+    }
+
+    @FunctionalInterface
+    private interface UnaryOperator {
+        double apply(final double a);
+    }
+
+    @FunctionalInterface
+    private interface BinaryOperator {
+        double apply(final double a, final double b);
+    }
+
+    // A recursive descent parser for the expression grammar.
+    private static final class Parser {
+        private final @NotNull String source;
+        private int position;
+
+        private Parser(final @NotNull String source) {
+            this.source = source;
+        }
+
+        // expression := product (('+' | '-') product)*
+        private @NotNull Node expression() {
+            Node node = this.product();
+            while (true) {
+                if (this.accept('+')) {
+                    node = Node.binary(node, this.product(), Double::sum);
+                } else if (this.accept('-')) {
+                    node = Node.binary(node, this.product(), (a, b) -> a - b);
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        // product := unary (('*' | '/' | '%') unary)*
+        private @NotNull Node product() {
+            Node node = this.unary();
+            while (true) {
+                if (this.accept('*')) {
+                    node = Node.binary(node, this.unary(), (a, b) -> a * b);
+                } else if (this.accept('/')) {
+                    node = Node.binary(node, this.unary(), (a, b) -> a / b);
+                } else if (this.accept('%')) {
+                    node = Node.binary(node, this.unary(), (a, b) -> a % b);
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        // unary := ('-' | '+') unary | power
+        private @NotNull Node unary() {
+            if (this.accept('-')) {
+                return Node.unary(this.unary(), a -> -a);
+            } else if (this.accept('+')) {
+                return this.unary();
+            }
+            return this.power();
+        }
+
+        // power := primary ('^' unary)?
+        private @NotNull Node power() {
+            final Node base = this.primary();
+            if (this.accept('^')) {
+                return Node.binary(base, this.unary(), Math::pow);
+            }
+            return base;
+        }
+
+        // primary := number | name | name '(' arguments ')' | '(' expression ')'
+        private @NotNull Node primary() {
+            this.skipWhitespace();
+            if (this.accept('(')) {
+                final Node node = this.expression();
+                this.expect(')');
+                return node;
+            }
+            if (this.atEnd()) {
+                throw this.error("Unexpected end of expression");
+            }
+            final char c = this.peek();
+            if (Character.isDigit(c) || c == '.') {
+                return this.number();
+            } else if (Character.isLetter(c)) {
+                final String name = this.name();
+                if (this.accept('(')) {
+                    return this.function(name, this.arguments());
+                }
+                return this.variable(name);
+            }
+            throw this.error("Unexpected \"" + c + "\"");
+        }
+
+        private @NotNull Node number() {
+            final int start = this.position;
+            while (!this.atEnd() && (Character.isDigit(this.peek()) || this.peek() == '.')) {
+                ++this.position;
+            }
+            // Exponent notation, such as 1e-3 or 1e+3.
+            if (!this.atEnd() && (this.peek() == 'e' || this.peek() == 'E')) {
+                int exponent = this.position + 1;
+                if (exponent < this.source.length() && (this.source.charAt(exponent) == '+' || this.source.charAt(exponent) == '-')) {
+                    ++exponent;
+                }
+                if (exponent < this.source.length() && Character.isDigit(this.source.charAt(exponent))) {
+                    this.position = exponent;
+                    while (!this.atEnd() && Character.isDigit(this.peek())) {
+                        ++this.position;
+                    }
+                }
+            }
+            try {
+                return Node.constant(Double.parseDouble(this.source.substring(start, this.position)));
+            } catch (NumberFormatException ex) {
+                throw this.error("Malformed number \"" + this.source.substring(start, this.position) + "\"");
+            }
+        }
+
+        private @NotNull String name() {
+            final int start = this.position;
+            while (!this.atEnd() && Character.isLetterOrDigit(this.peek())) {
+                ++this.position;
+            }
+            return this.source.substring(start, this.position);
+        }
+
+        private @NotNull List<Node> arguments() {
+            final List<Node> arguments = new ArrayList<>();
+            if (this.accept(')')) {
+                return arguments;
+            }
+            do {
+                arguments.add(this.expression());
+            } while (this.accept(','));
+            this.expect(')');
+            return arguments;
+        }
+
+        private @NotNull Node variable(final @NotNull String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "y" -> Node.variable((y, minY, maxY) -> y);
+                case "miny" -> Node.variable((y, minY, maxY) -> minY);
+                case "maxy" -> Node.variable((y, minY, maxY) -> maxY);
+                case "pi" -> Node.constant(Math.PI);
+                case "e" -> Node.constant(Math.E);
+                default -> throw this.error("Unknown variable \"" + name + "\"");
+            };
+        }
+
+        private @NotNull Node function(final @NotNull String name, final @NotNull List<Node> arguments) {
+            final String key = name.toLowerCase(Locale.ROOT);
+            switch (key) {
+                case "abs", "sqrt", "exp", "ln", "floor", "ceil" -> {
+                    this.checkArity(name, arguments, 1);
+                    return Node.unary(arguments.get(0), switch (key) {
+                        case "abs" -> Math::abs;
+                        case "sqrt" -> Math::sqrt;
+                        case "exp" -> Math::exp;
+                        case "ln" -> Math::log;
+                        case "floor" -> Math::floor;
+                        default -> Math::ceil;
+                    });
+                }
+                case "log" -> {
+                    if (arguments.size() == 1) {
+                        return Node.unary(arguments.get(0), Math::log10);
+                    }
+                    this.checkArity(name, arguments, 2);
+                    return Node.binary(arguments.get(0), arguments.get(1), (a, b) -> Math.log(a) / Math.log(b));
+                }
+                case "min", "max", "pow" -> {
+                    this.checkArity(name, arguments, 2);
+                    return Node.binary(arguments.get(0), arguments.get(1), switch (key) {
+                        case "min" -> Math::min;
+                        case "max" -> Math::max;
+                        default -> Math::pow;
+                    });
+                }
+                case "clamp" -> {
+                    this.checkArity(name, arguments, 3);
+                    final Node bounded = Node.binary(arguments.get(0), arguments.get(1), Math::max);
+                    return Node.binary(bounded, arguments.get(2), Math::min);
+                }
+                default -> throw this.error("Unknown function \"" + name + "\"");
+            }
+        }
+
+        private void checkArity(final @NotNull String name, final @NotNull List<Node> arguments, final int arity) {
+            if (arguments.size() != arity) {
+                throw this.error(name + " takes " + arity + " argument" + (arity == 1 ? "" : "s") + " but was given " + arguments.size());
+            }
+        }
+
+        private boolean accept(final char c) {
+            this.skipWhitespace();
+            if (!this.atEnd() && this.peek() == c) {
+                ++this.position;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final char c) {
+            if (!this.accept(c)) {
+                throw this.error("Expected \"" + c + "\"");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (!this.atEnd() && Character.isWhitespace(this.peek())) {
+                ++this.position;
+            }
+        }
+
+        private boolean atEnd() {
+            return this.position >= this.source.length();
+        }
+
+        private char peek() {
+            return this.source.charAt(this.position);
+        }
+
+        private @NotNull IllegalArgumentException error(final @NotNull String message) {
+            return new IllegalArgumentException(message + " at position " + (this.position + 1) + " of \"" + this.source + "\"");
+        }
+    }
+}
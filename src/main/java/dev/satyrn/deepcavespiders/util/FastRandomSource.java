@@ -0,0 +1,28 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random source backed by the calling thread's {@link ThreadLocalRandom}.
+ * Unlike {@link Math#random()}, threads never contend on a shared generator.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class FastRandomSource implements RandomSource {
+    /**
+     * The shared instance.
+     */
+    public static final @NotNull FastRandomSource INSTANCE = new FastRandomSource();
+
+    private FastRandomSource() {
+    }
+
+    @Override
+    public double nextDouble(final @NotNull Location location, final int stream) {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+}
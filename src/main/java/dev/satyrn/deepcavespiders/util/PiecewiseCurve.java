@@ -0,0 +1,100 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A curve which interpolates linearly between a list of (y, factor) points.
+ * Heights below the lowest point use the lowest point's factor, and heights above the highest point use the highest
+ * point's factor.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class PiecewiseCurve implements DistributionCurve {
+    // The point heights, in ascending order.
+    private final double[] ys;
+    // The factor at each point.
+    private final double[] factors;
+
+    private PiecewiseCurve(final double[] ys, final double[] factors) {
+        this.ys = ys;
+        this.factors = factors;
+    }
+
+    /**
+     * Parses a list of points written as {@code y:factor}, separated by commas.
+     * Points may be given in any order.
+     *
+     * @param points The points, for example {@code "-64:1, -32:0.5, -8:0"}.
+     * @return The curve.
+     * @throws IllegalArgumentException Thrown if the list is empty, a point is malformed, or two points share a height.
+     */
+    public static @NotNull PiecewiseCurve parse(final @NotNull String points) throws IllegalArgumentException {
+        final String[] entries = points.split(",");
+        final double[][] parsed = new double[entries.length][];
+        int count = 0;
+        for (final String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            final int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected y:factor but found \"" + entry.trim() + "\"");
+            }
+            try {
+                parsed[count++] = new double[]{Double.parseDouble(entry.substring(0, separator).trim()), Double.parseDouble(entry.substring(separator + 1).trim())};
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Expected y:factor but found \"" + entry.trim() + "\"", ex);
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("A piecewise curve needs at least one point");
+        }
+        final double[][] sorted = Arrays.copyOf(parsed, count);
+        Arrays.sort(sorted, (a, b) -> Double.compare(a[0], b[0]));
+        final double[] ys = new double[count];
+        final double[] factors = new double[count];
+        for (int i = 0; i < count; ++i) {
+            if (i > 0 && sorted[i][0] == sorted[i - 1][0]) {
+                throw new IllegalArgumentException("Two points share the height " + sorted[i][0]);
+            }
+            ys[i] = sorted[i][0];
+            factors[i] = sorted[i][1];
+        }
+        return new PiecewiseCurve(ys, factors);
+    }
+
+    @Override
+    public double scale(final double y, final int minY, final int maxY) {
+        if (y <= this.ys[0]) {
+            return this.factors[0];
+        }
+        final int last = this.ys.length - 1;
+        if (y >= this.ys[last]) {
+            return this.factors[last];
+        }
+        int index = Arrays.binarySearch(this.ys, y);
+        if (index >= 0) {
+            return this.factors[index];
+        }
+        // The insertion point is the first point above y.
+        index = -index - 1;
+        final double t = (y - this.ys[index - 1]) / (this.ys[index] - this.ys[index - 1]);
+        return this.factors[index - 1] + t * (this.factors[index] - this.factors[index - 1]);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("piecewise(");
+        for (int i = 0; i < this.ys.length; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(Locale.ROOT, "%s:%s", this.ys[i], this.factors[i]));
+        }
+        return builder.append(')').toString();
+    }
+}
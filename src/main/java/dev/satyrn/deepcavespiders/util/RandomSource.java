@@ -0,0 +1,22 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Supplies the random rolls used to decide spawns.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+@FunctionalInterface
+public interface RandomSource {
+    /**
+     * Rolls a random number for a spawn.
+     *
+     * @param location The location of the spawn.
+     * @param stream   Distinguishes independent rolls made for the same spawn.
+     * @return A number between 0 (inclusive) and 1 (exclusive).
+     */
+    double nextDouble(final @NotNull Location location, final int stream);
+}
@@ -0,0 +1,200 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules tasks with the region, global region, entity and async schedulers of region-threaded servers.
+ * The plugin is compiled against an API without these schedulers, so they are looked up reflectively once, when the
+ * scheduler is created, and invoked through method handles afterwards.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+final class RegionizedTaskScheduler implements TaskScheduler {
+    // A class which only exists on region-threaded servers.
+    private static final String REGIONIZED_SERVER = "io.papermc.paper.threadedregions.RegionizedServer";
+    // The package holding the region-threaded scheduler interfaces.
+    private static final String SCHEDULER_PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+    // The number of milliseconds in a tick.
+    private static final long TICK_MILLIS = 50L;
+
+    // The plugin which owns the scheduled tasks.
+    private final @NotNull Plugin plugin;
+    // GlobalRegionScheduler#execute(Plugin, Runnable), bound to the global region scheduler.
+    private final @NotNull MethodHandle globalExecute;
+    // GlobalRegionScheduler#runAtFixedRate(Plugin, Consumer, long, long), bound to the global region scheduler.
+    private final @NotNull MethodHandle globalTimer;
+    // AsyncScheduler#runNow(Plugin, Consumer), bound to the async scheduler.
+    private final @NotNull MethodHandle asyncExecute;
+    // AsyncScheduler#runAtFixedRate(Plugin, Consumer, long, long, TimeUnit), bound to the async scheduler.
+    private final @NotNull MethodHandle asyncTimer;
+    // RegionScheduler#execute(Plugin, Location, Runnable), bound to the region scheduler.
+    private final @NotNull MethodHandle regionExecute;
+    // Entity#getScheduler().
+    private final @NotNull MethodHandle entityScheduler;
+    // EntityScheduler#execute(Plugin, Runnable, Runnable, long).
+    private final @NotNull MethodHandle entityExecute;
+    // Bukkit#isOwnedByCurrentRegion(Entity).
+    private final @NotNull MethodHandle ownsEntity;
+    // ScheduledTask#cancel().
+    private final @NotNull MethodHandle cancel;
+
+    /**
+     * Creates a new region-threaded task scheduler.
+     *
+     * @param plugin The plugin which owns the scheduled tasks.
+     * @throws IllegalStateException Thrown if the server's schedulers can't be found.
+     */
+    RegionizedTaskScheduler(final @NotNull Plugin plugin) {
+        this.plugin = plugin;
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            final Class<?> globalType = Class.forName(SCHEDULER_PACKAGE + "GlobalRegionScheduler");
+            final Class<?> asyncType = Class.forName(SCHEDULER_PACKAGE + "AsyncScheduler");
+            final Class<?> regionType = Class.forName(SCHEDULER_PACKAGE + "RegionScheduler");
+            final Class<?> entityType = Class.forName(SCHEDULER_PACKAGE + "EntityScheduler");
+            final Class<?> taskType = Class.forName(SCHEDULER_PACKAGE + "ScheduledTask");
+            final Object global = lookup.findStatic(Bukkit.class, "getGlobalRegionScheduler", MethodType.methodType(globalType)).invoke();
+            final Object async = lookup.findStatic(Bukkit.class, "getAsyncScheduler", MethodType.methodType(asyncType)).invoke();
+            final Object region = lookup.findStatic(Bukkit.class, "getRegionScheduler", MethodType.methodType(regionType)).invoke();
+            this.globalExecute = lookup.findVirtual(globalType, "execute", MethodType.methodType(void.class, Plugin.class, Runnable.class)).bindTo(global);
+            this.globalTimer = lookup.findVirtual(globalType, "runAtFixedRate", MethodType.methodType(taskType, Plugin.class, Consumer.class, long.class, long.class)).bindTo(global);
+            this.asyncExecute = lookup.findVirtual(asyncType, "runNow", MethodType.methodType(taskType, Plugin.class, Consumer.class)).bindTo(async);
+            this.asyncTimer = lookup.findVirtual(asyncType, "runAtFixedRate", MethodType.methodType(taskType, Plugin.class, Consumer.class, long.class, long.class, TimeUnit.class)).bindTo(async);
+            this.regionExecute = lookup.findVirtual(regionType, "execute", MethodType.methodType(void.class, Plugin.class, Location.class, Runnable.class)).bindTo(region);
+            this.entityScheduler = lookup.findVirtual(Entity.class, "getScheduler", MethodType.methodType(entityType));
+            this.entityExecute = lookup.findVirtual(entityType, "execute", MethodType.methodType(boolean.class, Plugin.class, Runnable.class, Runnable.class, long.class));
+            this.ownsEntity = lookup.findStatic(Bukkit.class, "isOwnedByCurrentRegion", MethodType.methodType(boolean.class, Entity.class));
+            this.cancel = lookup.findVirtual(taskType, "cancel", MethodType.methodType(Class.forName(SCHEDULER_PACKAGE + "ScheduledTask$CancelledState")));
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Unable to find the region-threaded schedulers", ex);
+        }
+    }
+
+    /**
+     * Checks whether the server is region-threaded.
+     *
+     * @return {@code true} if the server is region-threaded; otherwise, {@code false}.
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER);
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(final @NotNull Entity entity) {
+        try {
+            return (boolean) this.ownsEntity.invoke(entity);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public @NotNull Task runGlobal(final @NotNull Runnable task) {
+        try {
+            this.globalExecute.invoke(this.plugin, task);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+        // Global region tasks run on the next tick and can't be cancelled once submitted through execute.
+        return () -> {
+        };
+    }
+
+    @Override
+    public @NotNull Task runGlobalTimer(final @NotNull Runnable task, final long delay, final long period) {
+        try {
+            // The global region scheduler requires an initial delay of at least one tick.
+            return this.toTask(this.globalTimer.invoke(this.plugin, consumer(task), Math.max(1L, delay), period));
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public @NotNull Task runAsync(final @NotNull Runnable task) {
+        try {
+            return this.toTask(this.asyncExecute.invoke(this.plugin, consumer(task)));
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public @NotNull Task runAsyncTimer(final @NotNull Runnable task, final long delay, final long period) {
+        try {
+            return this.toTask(this.asyncTimer.invoke(this.plugin, consumer(task), Math.max(1L, delay) * TICK_MILLIS, period * TICK_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public void runAt(final @NotNull Location location, final @NotNull Runnable task) {
+        try {
+            this.regionExecute.invoke(this.plugin, location, task);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public void runFor(final @NotNull Entity entity, final @NotNull Runnable task, final @NotNull Runnable retired) {
+        final boolean scheduled;
+        try {
+            scheduled = (boolean) this.entityExecute.invoke(this.entityScheduler.invoke(entity), this.plugin, task, retired, 1L);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+        // The entity scheduler refuses tasks for entities which have already been removed.
+        if (!scheduled) {
+            retired.run();
+        }
+    }
+
+    // Wraps a scheduled task handle.
+    private @NotNull Task toTask(final Object handle) {
+        return () -> {
+            try {
+                this.cancel.invoke(handle);
+            } catch (Throwable ex) {
+                throw rethrow(ex);
+            }
+        };
+    }
+
+    // Adapts a runnable to the consumer the region-threaded schedulers expect. The task handle is ignored.
+    private static @NotNull Consumer<Object> consumer(final @NotNull Runnable task) {
+        return handle -> task.run();
+    }
+
+    // Rethrows unchecked exceptions as-is and wraps anything else.
+    private static @NotNull RuntimeException rethrow(final @NotNull Throwable ex) {
+        if (ex instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        } else if (ex instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(ex);
+    }
+}
@@ -1,8 +1,58 @@
 package dev.satyrn.deepcavespiders.util;
 
-public enum SpawnDistribution {
-    CONSTANT,
-    HYPERBOLIC,
-    LINEAR,
-    LOGARITHMIC
+import dev.satyrn.papermc.api.util.v1.MathHelper;
+
+/**
+ * Functions which scale the configured spawn chance by depth.
+ * These are the preset curves; custom curves can be configured with {@link PiecewiseCurve} and
+ * {@link ExpressionCurve}.
+ *
+ * @author Isabel Maskrey
+ * @since 1.0-SNAPSHOT
+ */
+public enum SpawnDistribution implements DistributionCurve {
+    /**
+     * The spawn chance is the same at every depth.
+     */
+    CONSTANT {
+        @Override
+        public double scale(final double y, final int minY, final int maxY) {
+            return 1D;
+        }
+    },
+    /**
+     * The spawn chance ramps up slowly below the maximum Y value and accelerates with depth.
+     */
+    HYPERBOLIC {
+        @Override
+        public double scale(final double y, final int minY, final int maxY) {
+            return Math.pow((-y + maxY) / (maxY - minY), 2);
+        }
+    },
+    /**
+     * The spawn chance ramps up at a constant rate with depth.
+     */
+    LINEAR {
+        @Override
+        public double scale(final double y, final int minY, final int maxY) {
+            return (-y + maxY) / (maxY - minY);
+        }
+    },
+    /**
+     * The spawn chance ramps up quickly below the maximum Y value and slows down with depth.
+     */
+    LOGARITHMIC {
+        @Override
+        public double scale(final double y, final int minY, final int maxY) {
+            return MathHelper.logb(-y + maxY, maxY - minY);
+        }
+    };
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.4.0
+     */
+    @Override
+    public abstract double scale(final double y, final int minY, final int maxY);
 }
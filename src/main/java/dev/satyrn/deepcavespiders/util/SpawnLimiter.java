@@ -0,0 +1,202 @@
+package dev.satyrn.deepcavespiders.util;
+
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.CaveSpider;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Enforces the optional per-chunk and per-world cave spider caps, and the per-chunk replacement rate limit.
+ * Safe to use from several region threads at once. State is kept per world, the world count is shared through atomics,
+ * and the token buckets are split into stripes by chunk area so that neighbouring regions rarely share a lock. On
+ * region-threaded servers the per-world cap is ignored, since a spawning thread may only list the entities it owns.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnLimiter {
+    // How long a world's cave spider count is reused before it is counted again, in nanoseconds.
+    private static final long WORLD_COUNT_TTL = 1_000_000_000L;
+    // The number of token bucket stripes per world. Must be a power of two.
+    private static final int STRIPES = 16;
+
+    // Limiter state per world.
+    private final @NotNull Map<UUID, WorldState> worlds = new ConcurrentHashMap<>();
+    private final @NotNull Logger logger;
+    // Whether the server is region-threaded, in which case the per-world cap is ignored.
+    private final boolean regionThreaded;
+
+    /**
+     * Creates a new spawn limiter.
+     *
+     * @param logger         The logger to which configuration warnings are written.
+     * @param regionThreaded Whether the server is region-threaded.
+     */
+    public SpawnLimiter(final @NotNull Logger logger, final boolean regionThreaded) {
+        this.logger = logger;
+        this.regionThreaded = regionThreaded;
+    }
+
+    /**
+     * Discards all limiter state, and warns about limits which can't be applied on this server. Called whenever new
+     * spawn rules are published, from the global thread.
+     *
+     * @param rules The spawn rules.
+     */
+    public void configure(final @NotNull SpawnRules rules) {
+        this.clear();
+        if (this.regionThreaded && rules.getMaxCaveSpidersPerWorld() > 0) {
+            // Entities may only be listed on the thread which owns them, so the world can't be counted while spawning.
+            this.logger.warning("The per-world cave spider cap is ignored on region-threaded servers.");
+        }
+    }
+
+    /**
+     * Checks whether a replacement may happen at a location, and takes a replacement token if so.
+     *
+     * @param location The spawn location.
+     * @param rules    The spawn rules.
+     * @param capped   Whether the cave spider caps apply, which is the case for cave spider replacements.
+     * @return {@code true} if the replacement may proceed; otherwise, {@code false}.
+     */
+    public boolean tryAcquire(final @NotNull Location location, final @NotNull SpawnRules rules, final boolean capped) {
+        if (!rules.isLimited()) {
+            return true;
+        }
+        final World world = location.getWorld();
+        final WorldState state = this.worlds.computeIfAbsent(world.getUID(), uid -> new WorldState());
+        final long now = System.nanoTime();
+        final boolean worldLimited = capped && !this.regionThreaded && rules.getMaxCaveSpidersPerWorld() > 0;
+        if (worldLimited) {
+            final long counted = state.counted.get();
+            // Only the thread which wins the update counts the world; the others keep using the previous count.
+            if ((counted == 0L || now - counted > WORLD_COUNT_TTL) && state.counted.compareAndSet(counted, now == 0L ? 1L : now)) {
+                state.count.set(world.getEntitiesByClass(CaveSpider.class).size());
+            }
+            if (state.count.get() >= rules.getMaxCaveSpidersPerWorld()) {
+                return false;
+            }
+        }
+        final int chunkX = location.getBlockX() >> 4;
+        final int chunkZ = location.getBlockZ() >> 4;
+        // Only loaded chunks are counted, so that the check never loads a chunk; the spawn's own chunk is always loaded.
+        if (capped && rules.getMaxCaveSpidersPerChunk() > 0 && world.isChunkLoaded(chunkX, chunkZ)
+                && countCaveSpiders(world.getChunkAt(chunkX, chunkZ)) >= rules.getMaxCaveSpidersPerChunk()) {
+            return false;
+        }
+        if (rules.getReplacementsPerChunkPerSecond() > 0D) {
+            final TokenBucketMap buckets = state.stripe(chunkX, chunkZ);
+            final boolean acquired;
+            synchronized (buckets) {
+                acquired = buckets.tryAcquire(chunkKey(chunkX, chunkZ), now, rules.getReplacementsPerChunkPerSecond(), rules.getReplacementBurst());
+            }
+            if (!acquired) {
+                return false;
+            }
+        }
+        if (worldLimited) {
+            // Account for the new cave spider until the world is counted again.
+            state.count.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Returns what {@link #tryAcquire} took for a replacement which didn't happen, such as one which didn't fit in the
+     * deferred spawn queue, so that it doesn't count against the rate limit or the world cap.
+     *
+     * @param location The spawn location.
+     * @param rules    The spawn rules.
+     * @param capped   Whether the cave spider caps applied.
+     */
+    public void release(final @NotNull Location location, final @NotNull SpawnRules rules, final boolean capped) {
+        if (!rules.isLimited()) {
+            return;
+        }
+        final WorldState state = this.worlds.get(location.getWorld().getUID());
+        if (state == null) {
+            return;
+        }
+        if (rules.getReplacementsPerChunkPerSecond() > 0D) {
+            final int chunkX = location.getBlockX() >> 4;
+            final int chunkZ = location.getBlockZ() >> 4;
+            final TokenBucketMap buckets = state.stripe(chunkX, chunkZ);
+            synchronized (buckets) {
+                buckets.release(chunkKey(chunkX, chunkZ), rules.getReplacementBurst());
+            }
+        }
+        if (capped && !this.regionThreaded && rules.getMaxCaveSpidersPerWorld() > 0) {
+            state.count.updateAndGet(count -> Math.max(0, count - 1));
+        }
+    }
+
+    /**
+     * Discards all rate limiter state and cached counts.
+     */
+    public void clear() {
+        this.worlds.clear();
+    }
+
+    /**
+     * Discards the state held for a world.
+     *
+     * @param world The world.
+     */
+    public void clear(final @NotNull World world) {
+        this.worlds.remove(world.getUID());
+    }
+
+    /**
+     * Packs chunk coordinates into a single long key.
+     *
+     * @param chunkX The chunk X coordinate.
+     * @param chunkZ The chunk Z coordinate.
+     * @return The chunk key.
+     */
+    public static long chunkKey(final int chunkX, final int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    // Counts the cave spiders in a chunk.
+    private static int countCaveSpiders(final @NotNull Chunk chunk) {
+        int count = 0;
+        for (final Entity entity : chunk.getEntities()) {
+            if (entity instanceof CaveSpider) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // Limiter state for a world.
+    private static final class WorldState {
+        // The number of cave spiders in the world.
+        private final @NotNull AtomicInteger count = new AtomicInteger();
+        // The time at which the world was last counted, in nanoseconds, or zero if it hasn't been counted yet.
+        private final @NotNull AtomicLong counted = new AtomicLong();
+        // Replacement token buckets, keyed by chunk key and striped by 8x8 chunk area.
+        private final @NotNull TokenBucketMap[] stripes = new TokenBucketMap[STRIPES];
+
+        private WorldState() {
+            for (int i = 0; i < STRIPES; ++i) {
+                this.stripes[i] = new TokenBucketMap(16);
+            }
+        }
+
+        // Gets the token bucket stripe for a chunk.
+        private @NotNull TokenBucketMap stripe(final int chunkX, final int chunkZ) {
+            final int area = (chunkX >> 3) * 31 + (chunkZ >> 3);
+            return this.stripes[(area ^ (area >>> 16)) & (STRIPES - 1)];
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded queue of deferred spawns.
+ * On servers with a single main thread, spawns are queued and drained a batch at a time within a per-tick time budget.
+ * On region-threaded servers, each spawn is handed straight to the region which owns it, and the queue only tracks how
+ * many spawns are in flight so that the capacity still applies.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnQueue {
+    // The queued spawns. Only used, and only accessed from the main thread, when the server is not region-threaded.
+    private final @NotNull Queue<Runnable> spawns = new ArrayDeque<>();
+    // Logger for spawns which fail.
+    private final @NotNull Logger logger;
+    // Schedules spawns on region-threaded servers.
+    private final @NotNull TaskScheduler scheduler;
+    // The number of spawns which are queued or in flight.
+    private final @NotNull AtomicInteger size = new AtomicInteger();
+    // The largest number of spawns queued at once since the last reset.
+    private final @NotNull AtomicInteger peakSize = new AtomicInteger();
+
+    /**
+     * Creates a new spawn queue.
+     *
+     * @param logger    Logger for spawns which fail.
+     * @param scheduler The task scheduler.
+     */
+    public SpawnQueue(final @NotNull Logger logger, final @NotNull TaskScheduler scheduler) {
+        this.logger = logger;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues a spawn at a location, unless the queue is full.
+     *
+     * @param location The spawn location.
+     * @param spawn    The spawn.
+     * @param capacity The maximum number of queued spawns.
+     * @return {@code true} if the spawn was queued; {@code false} if the queue was full.
+     */
+    public boolean offer(final @NotNull Location location, final @NotNull Runnable spawn, final int capacity) {
+        if (!this.reserve(capacity)) {
+            return false;
+        }
+        if (this.scheduler.isRegionThreaded()) {
+            this.scheduler.runAt(location, () -> this.run(spawn));
+        } else {
+            this.spawns.add(spawn);
+        }
+        return true;
+    }
+
+    /**
+     * Queues a spawn which depends on an entity, unless the queue is full.
+     *
+     * @param entity   The entity.
+     * @param spawn    The spawn.
+     * @param retired  Runs instead of the spawn if the entity is removed before the spawn runs.
+     * @param capacity The maximum number of queued spawns.
+     * @return {@code true} if the spawn was queued; {@code false} if the queue was full.
+     */
+    public boolean offer(final @NotNull Entity entity, final @NotNull Runnable spawn, final @NotNull Runnable retired, final int capacity) {
+        if (!this.reserve(capacity)) {
+            return false;
+        }
+        if (this.scheduler.isRegionThreaded()) {
+            this.scheduler.runFor(entity, () -> this.run(spawn), () -> this.run(retired));
+        } else {
+            this.spawns.add(() -> (entity.isValid() ? spawn : retired).run());
+        }
+        return true;
+    }
+
+    /**
+     * Runs queued spawns in order until the batch size or the time budget is exhausted, or the queue is empty.
+     * Must be called from the main thread. Does nothing on region-threaded servers, where spawns never wait in the
+     * queue.
+     *
+     * @param batchSize   The maximum number of spawns to run.
+     * @param budgetNanos The time budget, in nanoseconds.
+     * @return The number of spawns which were run.
+     */
+    public int drain(final int batchSize, final long budgetNanos) {
+        final long deadline = System.nanoTime() + budgetNanos;
+        int count = 0;
+        Runnable spawn;
+        while (count < batchSize && (count == 0 || System.nanoTime() < deadline) && (spawn = this.spawns.poll()) != null) {
+            this.run(spawn);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Discards all queued spawns. Spawns which have already been handed to a region are not affected.
+     * Must be called from the main thread.
+     */
+    public void clear() {
+        this.size.addAndGet(-this.spawns.size());
+        this.spawns.clear();
+    }
+
+    /**
+     * Gets the number of queued spawns.
+     *
+     * @return The number of queued spawns.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Gets the largest number of spawns queued at once since the last reset.
+     *
+     * @return The peak queue size.
+     */
+    public int getPeakSize() {
+        return this.peakSize.get();
+    }
+
+    /**
+     * Resets the peak queue size to the current queue size.
+     */
+    public void resetPeakSize() {
+        this.peakSize.set(this.size.get());
+    }
+
+    // Takes a queue slot, unless the queue is full.
+    private boolean reserve(final int capacity) {
+        int current;
+        do {
+            current = this.size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!this.size.compareAndSet(current, current + 1));
+        this.peakSize.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    // Runs a spawn and releases its queue slot.
+    private void run(final @NotNull Runnable spawn) {
+        try {
+            spawn.run();
+        } catch (RuntimeException ex) {
+            this.logger.log(Level.WARNING, "A deferred spawn failed.", ex);
+        } finally {
+            this.size.decrementAndGet();
+        }
+    }
+}
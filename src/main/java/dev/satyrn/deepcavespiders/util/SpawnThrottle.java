@@ -0,0 +1,195 @@
+package dev.satyrn.deepcavespiders.util;
+
+import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.papermc.api.util.v1.MathHelper;
+import org.bukkit.World;
+import org.bukkit.entity.CaveSpider;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.logging.Level;
+
+/**
+ * Scales replacement and jockey chances down while the server is under load, and back up once it recovers.
+ * A timer samples the average tick time and, optionally, the number of cave spiders. Each reading is mapped to a
+ * target multiplier, which is one below the reading's threshold, the minimum multiplier at or above its limit, and
+ * linear in between; the lower of the two targets wins. The multiplier then moves a fraction of the way towards the
+ * target on every sample, so that it changes smoothly rather than flapping with every slow tick.
+ * The spawn listener reads the multiplier from a volatile field, so throttling costs one multiplication per roll.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class SpawnThrottle {
+    private final @NotNull Plugin plugin;
+    // The task scheduler.
+    private final @NotNull TaskScheduler scheduler;
+    // The current multiplier, between the minimum multiplier and one.
+    private volatile double multiplier = 1D;
+    // The average tick time at the last sample, in milliseconds, or NaN if it hasn't been sampled.
+    private volatile double lastMspt = Double.NaN;
+    // The cave spider count at the last sample, or -1 if it hasn't been sampled.
+    private volatile int lastPopulation = -1;
+    // Whether the server reports its average tick time.
+    private boolean msptSupported = true;
+    // The options in effect, or null if throttling is disabled.
+    private volatile @Nullable Settings settings;
+    // The sampling task, or null if throttling is disabled.
+    private @Nullable TaskScheduler.Task task;
+
+    /**
+     * Creates a new spawn throttle. Throttling is disabled until it is configured.
+     *
+     * @param plugin    The plugin.
+     * @param scheduler The task scheduler.
+     */
+    public SpawnThrottle(final @NotNull Plugin plugin, final @NotNull TaskScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Applies the throttle options, rescheduling the sampling task. Must be called from the global thread.
+     * The multiplier is kept across reconfiguration, unless throttling is disabled, which resets it to one.
+     *
+     * @param container The throttle options.
+     */
+    public void configure(final @NotNull Configuration.ThrottleContainer container) {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        if (!container.enabled.value()) {
+            this.settings = null;
+            this.multiplier = 1D;
+            this.lastMspt = Double.NaN;
+            this.lastPopulation = -1;
+            return;
+        }
+        final Settings settings = new Settings(container);
+        if (settings.populationLimit > 0 && this.scheduler.isRegionThreaded()) {
+            // Entities may only be listed on the thread which owns them, so the population can't be counted here.
+            this.plugin.getLogger().warning("Cave spider population limits are ignored by the spawn throttle on region-threaded servers.");
+        }
+        this.settings = settings;
+        this.task = this.scheduler.runGlobalTimer(this::sample, settings.interval, settings.interval);
+    }
+
+    /**
+     * Stops sampling. Called when the plugin is disabled.
+     */
+    public void close() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        this.settings = null;
+        this.multiplier = 1D;
+    }
+
+    /**
+     * Checks whether throttling is enabled.
+     *
+     * @return {@code true} if the multiplier is being adjusted; otherwise, {@code false}.
+     */
+    public boolean isEnabled() {
+        return this.settings != null;
+    }
+
+    /**
+     * Gets the current multiplier, which is applied to replacement and jockey chances.
+     *
+     * @return The multiplier, between the configured minimum and one. Always one while throttling is disabled.
+     */
+    public double getMultiplier() {
+        return this.multiplier;
+    }
+
+    /**
+     * Gets the average tick time at the last sample.
+     *
+     * @return The average tick time, in milliseconds, or NaN if it hasn't been sampled.
+     */
+    public double getLastMspt() {
+        return this.lastMspt;
+    }
+
+    /**
+     * Gets the number of cave spiders at the last sample.
+     *
+     * @return The cave spider count, or -1 if it hasn't been counted.
+     */
+    public int getLastPopulation() {
+        return this.lastPopulation;
+    }
+
+    /**
+     * Computes the target multiplier for a reading.
+     *
+     * @param value         The reading.
+     * @param threshold     The reading above which throttling starts.
+     * @param limit         The reading at which the multiplier reaches its minimum.
+     * @param minMultiplier The minimum multiplier.
+     * @return The target multiplier.
+     */
+    public static double target(final double value, final double threshold, final double limit, final double minMultiplier) {
+        if (!(value > threshold)) {
+            return 1D;
+        }
+        if (value >= limit) {
+            return minMultiplier;
+        }
+        return 1D - (1D - minMultiplier) * (value - threshold) / (limit - threshold);
+    }
+
+    // Samples the server and moves the multiplier towards its target.
+    private void sample() {
+        final Settings settings = this.settings;
+        if (settings == null) {
+            return;
+        }
+        double target = 1D;
+        if (this.msptSupported) {
+            try {
+                final double mspt = this.plugin.getServer().getAverageTickTime();
+                this.lastMspt = mspt;
+                target = target(mspt, settings.msptThreshold, settings.msptLimit, settings.minMultiplier);
+            } catch (UnsupportedOperationException ex) {
+                this.msptSupported = false;
+                this.plugin.getLogger().log(Level.WARNING, "The server doesn't report its tick times; the spawn throttle will only follow the cave spider population.");
+            }
+        }
+        if (settings.populationLimit > 0 && !this.scheduler.isRegionThreaded()) {
+            int population = 0;
+            for (final World world : this.plugin.getServer().getWorlds()) {
+                population += world.getEntitiesByClass(CaveSpider.class).size();
+            }
+            this.lastPopulation = population;
+            target = Math.min(target, target(population, settings.populationThreshold, settings.populationLimit, settings.minMultiplier));
+        }
+        final double multiplier = this.multiplier;
+        this.multiplier = MathHelper.clampd(multiplier + (target - multiplier) * settings.smoothing, settings.minMultiplier, 1D);
+    }
+
+    // The throttle options, read once when the throttle is configured.
+    private static final class Settings {
+        private final long interval;
+        private final double msptThreshold;
+        private final double msptLimit;
+        private final int populationThreshold;
+        private final int populationLimit;
+        private final double minMultiplier;
+        private final double smoothing;
+
+        private Settings(final @NotNull Configuration.ThrottleContainer container) {
+            this.interval = container.interval.value();
+            this.msptThreshold = container.msptThreshold.value();
+            this.msptLimit = Math.max(this.msptThreshold, container.msptLimit.value());
+            this.populationLimit = container.populationLimit.value();
+            this.populationThreshold = Math.min(this.populationLimit, container.populationThreshold.value());
+            this.minMultiplier = container.minMultiplier.value();
+            this.smoothing = container.smoothing.value();
+        }
+    }
+}
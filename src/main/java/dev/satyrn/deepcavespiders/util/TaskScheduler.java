@@ -0,0 +1,109 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Schedules plugin tasks on the thread which owns the data they touch.
+ * On region-threaded servers, tasks run on the region owning a location or entity, global tasks run on the global
+ * region, and asynchronous tasks run on the server's async scheduler. On other servers, everything except asynchronous
+ * tasks runs on the main thread.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public interface TaskScheduler {
+    /**
+     * Creates a scheduler suited to the running server.
+     *
+     * @param plugin The plugin which owns the scheduled tasks.
+     * @return The region-threaded scheduler if the server is region-threaded; otherwise, the Bukkit scheduler.
+     */
+    static @NotNull TaskScheduler create(final @NotNull Plugin plugin) {
+        return RegionizedTaskScheduler.isSupported() ? new RegionizedTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * Gets whether tasks run on region threads rather than on a single main thread.
+     *
+     * @return {@code true} if the server is region-threaded; otherwise, {@code false}.
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Gets whether the current thread may access an entity.
+     *
+     * @param entity The entity.
+     * @return {@code true} if the current thread owns the entity; otherwise, {@code false}.
+     */
+    boolean isOwnedByCurrentThread(final @NotNull Entity entity);
+
+    /**
+     * Runs a task on the main thread, or on the global region.
+     *
+     * @param task The task.
+     * @return The scheduled task.
+     */
+    @NotNull Task runGlobal(final @NotNull Runnable task);
+
+    /**
+     * Runs a task repeatedly on the main thread, or on the global region.
+     *
+     * @param task   The task.
+     * @param delay  The delay before the first run, in ticks.
+     * @param period The period between runs, in ticks.
+     * @return The scheduled task.
+     */
+    @NotNull Task runGlobalTimer(final @NotNull Runnable task, final long delay, final long period);
+
+    /**
+     * Runs a task off the server threads.
+     *
+     * @param task The task.
+     * @return The scheduled task.
+     */
+    @NotNull Task runAsync(final @NotNull Runnable task);
+
+    /**
+     * Runs a task repeatedly off the server threads.
+     *
+     * @param task   The task.
+     * @param delay  The delay before the first run, in ticks.
+     * @param period The period between runs, in ticks.
+     * @return The scheduled task.
+     */
+    @NotNull Task runAsyncTimer(final @NotNull Runnable task, final long delay, final long period);
+
+    /**
+     * Runs a task on the next tick of the thread which owns a location.
+     *
+     * @param location The location.
+     * @param task     The task.
+     */
+    void runAt(final @NotNull Location location, final @NotNull Runnable task);
+
+    /**
+     * Runs a task on the next tick of the thread which owns an entity.
+     *
+     * @param entity  The entity.
+     * @param task    The task.
+     * @param retired Runs instead of the task if the entity is removed before the task runs.
+     */
+    void runFor(final @NotNull Entity entity, final @NotNull Runnable task, final @NotNull Runnable retired);
+
+    /**
+     * A scheduled task.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    @FunctionalInterface
+    interface Task {
+        /**
+         * Cancels the task, if it has not already run.
+         */
+        void cancel();
+    }
+}
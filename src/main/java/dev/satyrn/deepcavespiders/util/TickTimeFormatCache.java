@@ -0,0 +1,49 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Formats average tick times in milliseconds with one decimal place, caching each distinct string.
+ * Tick times are rounded to tenths of a millisecond, and the strings for times up to {@link #MAX_CACHED} milliseconds
+ * are each formatted once; longer times are rare enough to be formatted on every call. Safe to use from several
+ * threads; two threads may format the same string at once, which is harmless.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class TickTimeFormatCache {
+    /**
+     * The longest tick time whose string is cached, in milliseconds.
+     */
+    public static final int MAX_CACHED = 1000;
+    // The number of steps per millisecond.
+    private static final int STEPS_PER_MILLISECOND = 10;
+
+    // Formatted tick times, indexed by step.
+    private final @NotNull AtomicReferenceArray<String> values = new AtomicReferenceArray<>(MAX_CACHED * STEPS_PER_MILLISECOND + 1);
+
+    /**
+     * Formats a tick time, such as {@code "52.3"}.
+     *
+     * @param mspt The average tick time, in milliseconds, or NaN if it hasn't been sampled.
+     * @return The formatted tick time, or {@code "-"} if it hasn't been sampled.
+     */
+    public @NotNull String format(final double mspt) {
+        if (Double.isNaN(mspt)) {
+            return "-";
+        }
+        final long step = Math.round(Math.max(0D, mspt) * STEPS_PER_MILLISECOND);
+        if (step >= this.values.length()) {
+            return new DecimalFormat("0.0").format(step / (double) STEPS_PER_MILLISECOND);
+        }
+        String value = this.values.get((int) step);
+        if (value == null) {
+            value = new DecimalFormat("0.0").format(step / (double) STEPS_PER_MILLISECOND);
+            this.values.set((int) step, value);
+        }
+        return value;
+    }
+}
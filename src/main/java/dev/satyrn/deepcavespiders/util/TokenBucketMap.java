@@ -0,0 +1,154 @@
+package dev.satyrn.deepcavespiders.util;
+
+/**
+ * Token buckets keyed by primitive long keys, such as chunk keys.
+ * Buckets are stored in open-addressed primitive arrays, so looking up or refilling a bucket never allocates. Buckets
+ * which have been idle long enough to refill completely are evicted, since they behave exactly like a missing bucket.
+ * Not thread-safe; callers must synchronize access.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class TokenBucketMap {
+    // Bucket keys.
+    private long[] keys;
+    // Remaining tokens per bucket.
+    private double[] tokens;
+    // Last refill time per bucket, in nanoseconds.
+    private long[] updated;
+    // Whether a slot holds a bucket.
+    private boolean[] used;
+    // The number of buckets.
+    private int size;
+
+    /**
+     * Creates a new token bucket map.
+     *
+     * @param initialCapacity The initial number of slots. Rounded up to a power of two.
+     */
+    public TokenBucketMap(final int initialCapacity) {
+        this.allocate(Integer.highestOneBit(Math.max(8, initialCapacity - 1)) << 1);
+    }
+
+    /**
+     * Takes a token from a bucket, refilling it first according to the time elapsed since it was last used.
+     *
+     * @param key      The bucket key.
+     * @param now      The current time, in nanoseconds.
+     * @param rate     The number of tokens added per second.
+     * @param capacity The maximum number of tokens a bucket holds.
+     * @return {@code true} if a token was taken; {@code false} if the bucket was empty.
+     */
+    public boolean tryAcquire(final long key, final long now, final double rate, final double capacity) {
+        int index = this.indexOf(key);
+        if (index < 0) {
+            if ((this.size + 1) * 2 > this.keys.length) {
+                this.evict(now, (long) (capacity / rate * 1_000_000_000D));
+                if ((this.size + 1) * 2 > this.keys.length) {
+                    this.rehash(this.keys.length << 1);
+                }
+            }
+            index = this.insert(key, capacity, now);
+        }
+        final double available = Math.min(capacity, this.tokens[index] + (now - this.updated[index]) / 1_000_000_000D * rate);
+        this.updated[index] = now;
+        if (available < 1D) {
+            this.tokens[index] = available;
+            return false;
+        }
+        this.tokens[index] = available - 1D;
+        return true;
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire} which went unused. Does nothing if the bucket has been evicted.
+     *
+     * @param key      The bucket key.
+     * @param capacity The maximum number of tokens a bucket holds.
+     */
+    public void release(final long key, final double capacity) {
+        final int index = this.indexOf(key);
+        if (index >= 0) {
+            this.tokens[index] = Math.min(capacity, this.tokens[index] + 1D);
+        }
+    }
+
+    /**
+     * Removes all buckets which have not been used for a given amount of time.
+     *
+     * @param now     The current time, in nanoseconds.
+     * @param maxIdle The maximum idle time, in nanoseconds.
+     */
+    public void evict(final long now, final long maxIdle) {
+        this.rehash(this.keys.length, now, maxIdle);
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return The number of buckets.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    // Finds the slot holding a key, or -1 if the key has no bucket.
+    private int indexOf(final long key) {
+        final int mask = this.keys.length - 1;
+        int index = hash(key) & mask;
+        while (this.used[index]) {
+            if (this.keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Inserts a key which is known to be absent, returning its slot.
+    private int insert(final long key, final double tokens, final long now) {
+        final int mask = this.keys.length - 1;
+        int index = hash(key) & mask;
+        while (this.used[index]) {
+            index = (index + 1) & mask;
+        }
+        this.used[index] = true;
+        this.keys[index] = key;
+        this.tokens[index] = tokens;
+        this.updated[index] = now;
+        ++this.size;
+        return index;
+    }
+
+    private void rehash(final int capacity) {
+        this.rehash(capacity, 0L, Long.MAX_VALUE);
+    }
+
+    // Moves all buckets which are not idle into new arrays.
+    private void rehash(final int capacity, final long now, final long maxIdle) {
+        final long[] keys = this.keys;
+        final double[] tokens = this.tokens;
+        final long[] updated = this.updated;
+        final boolean[] used = this.used;
+        this.allocate(capacity);
+        for (int i = 0; i < keys.length; ++i) {
+            if (used[i] && now - updated[i] < maxIdle) {
+                this.insert(keys[i], tokens[i], updated[i]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.tokens = new double[capacity];
+        this.updated = new long[capacity];
+        this.used = new boolean[capacity];
+        this.size = 0;
+    }
+
+    // Spreads the key bits so that neighbouring chunks land in different slots.
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
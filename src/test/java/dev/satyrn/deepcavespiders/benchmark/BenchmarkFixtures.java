@@ -0,0 +1,366 @@
+package dev.satyrn.deepcavespiders.benchmark;
+
+import dev.satyrn.deepcavespiders.configuration.Configuration;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.util.TaskScheduler;
+import org.bukkit.Chunk;
+import org.bukkit.Difficulty;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.CaveSpider;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Zombie;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Stand-ins for the Bukkit objects the spawn listener touches, so that it can be driven without a server.
+ * Kept with the unit tests, which also drive the listener, and shared with the benchmarks when they are built.
+ * Every object is a dynamic proxy which answers the handful of methods the listener calls and returns default values
+ * for everything else.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public final class BenchmarkFixtures {
+    // The source of entity IDs. Sequential, since random IDs would draw on a shared secure random generator.
+    private static final AtomicLong ENTITY_IDS = new AtomicLong();
+    // The biomes, cached so that biome lookups don't copy them on every call.
+    private static final Biome[] BIOMES = Biome.values();
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Loads the bundled default configuration file.
+     *
+     * @return The default configuration.
+     */
+    public static @NotNull YamlConfiguration defaultConfig() {
+        try (final InputStream stream = BenchmarkFixtures.class.getClassLoader().getResourceAsStream("config.yml")) {
+            if (stream == null) {
+                throw new IllegalStateException("config.yml is not on the class path");
+            }
+            final YamlConfiguration config = new YamlConfiguration();
+            config.loadFromString(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            return config;
+        } catch (IOException | InvalidConfigurationException ex) {
+            throw new IllegalStateException("Unable to load config.yml", ex);
+        }
+    }
+
+    /**
+     * Creates a plugin stand-in which serves a given configuration.
+     *
+     * @param config The configuration.
+     * @return The plugin.
+     */
+    public static @NotNull Plugin plugin(final @NotNull YamlConfiguration config) {
+        final Logger logger = Logger.getLogger("DeepCaveSpiders");
+        final File dataFolder = new File(System.getProperty("java.io.tmpdir"), "DeepCaveSpiders");
+        return proxy(Plugin.class, (name, args) -> switch (name) {
+            case "getConfig" -> config;
+            case "getLogger" -> logger;
+            case "getDataFolder" -> dataFolder;
+            case "getName" -> "DeepCaveSpiders";
+            case "isEnabled" -> true;
+            default -> null;
+        });
+    }
+
+    /**
+     * Compiles spawn rules from a configuration.
+     *
+     * @param config The configuration.
+     * @return The compiled spawn rules.
+     */
+    public static @NotNull SpawnRules rules(final @NotNull YamlConfiguration config) {
+        return SpawnRules.compile(new Configuration(plugin(config)));
+    }
+
+    /**
+     * Creates a task scheduler stand-in which runs every task immediately on the calling thread.
+     *
+     * @return The task scheduler.
+     */
+    public static @NotNull TaskScheduler scheduler() {
+        return new TaskScheduler() {
+            @Override
+            public boolean isRegionThreaded() {
+                return true;
+            }
+
+            @Override
+            public boolean isOwnedByCurrentThread(final @NotNull Entity entity) {
+                return true;
+            }
+
+            @Override
+            public @NotNull Task runGlobal(final @NotNull Runnable task) {
+                task.run();
+                return () -> {
+                };
+            }
+
+            @Override
+            public @NotNull Task runGlobalTimer(final @NotNull Runnable task, final long delay, final long period) {
+                return () -> {
+                };
+            }
+
+            @Override
+            public @NotNull Task runAsync(final @NotNull Runnable task) {
+                task.run();
+                return () -> {
+                };
+            }
+
+            @Override
+            public @NotNull Task runAsyncTimer(final @NotNull Runnable task, final long delay, final long period) {
+                return () -> {
+                };
+            }
+
+            @Override
+            public void runAt(final @NotNull Location location, final @NotNull Runnable task) {
+                task.run();
+            }
+
+            @Override
+            public void runFor(final @NotNull Entity entity, final @NotNull Runnable task, final @NotNull Runnable retired) {
+                (entity.isValid() ? task : retired).run();
+            }
+        };
+    }
+
+    /**
+     * Creates a world stand-in.
+     *
+     * @param difficulty  The world difficulty.
+     * @param environment The world environment.
+     * @return The world.
+     */
+    public static @NotNull World world(final @NotNull Difficulty difficulty, final @NotNull World.Environment environment) {
+        return world(difficulty, environment, SpawnHooks.NONE);
+    }
+
+    /**
+     * Creates a world stand-in which reports the entities it spawns.
+     *
+     * @param difficulty  The world difficulty.
+     * @param environment The world environment.
+     * @param hooks       Observes spawned entities and the passengers mounted on them.
+     * @return The world.
+     */
+    public static @NotNull World world(final @NotNull Difficulty difficulty, final @NotNull World.Environment environment, final @NotNull SpawnHooks hooks) {
+        final UUID uid = UUID.randomUUID();
+        final Block block = proxy(Block.class, (name, args) -> null);
+        final Chunk chunk = proxy(Chunk.class, (name, args) -> "getEntities".equals(name) ? new Entity[0] : null);
+        return proxy(World.class, (name, args) -> switch (name) {
+            case "getName" -> "world";
+            case "getUID" -> uid;
+            case "getDifficulty" -> difficulty;
+            case "getEnvironment" -> environment;
+            case "getSeed" -> 8675309L;
+            case "getFullTime", "getGameTime" -> 0L;
+            // Biomes are encoded in the X coordinate of the location by spawnEvent.
+            case "getBiome" -> BIOMES[((Location) args[0]).getBlockX() >> 4];
+            case "getBlockAt" -> block;
+            case "getChunkAt" -> chunk;
+            case "getEntitiesByClass", "getEntities", "getPlayers" -> Collections.emptyList();
+            case "isChunkLoaded" -> true;
+            case "spawnEntity" -> {
+                final Entity entity = entity((Location) args[0], (EntityType) args[1], hooks);
+                hooks.spawned(entity, args.length > 2 ? (CreatureSpawnEvent.SpawnReason) args[2] : CreatureSpawnEvent.SpawnReason.CUSTOM);
+                yield entity;
+            }
+            default -> null;
+        });
+    }
+
+    /**
+     * Creates a spawn event.
+     * The biome is encoded in the X coordinate of the location, which the world stand-in decodes.
+     *
+     * @param world  The world.
+     * @param type   The entity type.
+     * @param reason The spawn reason.
+     * @param biome  The biome.
+     * @param y      The Y coordinate.
+     * @return The event.
+     */
+    public static @NotNull CreatureSpawnEvent spawnEvent(final @NotNull World world, final @NotNull EntityType type, final @NotNull CreatureSpawnEvent.SpawnReason reason, final @NotNull Biome biome, final int y) {
+        return spawnEvent(world, type, reason, biome, y, SpawnHooks.NONE);
+    }
+
+    /**
+     * Creates a spawn event whose entity reports the passengers mounted on it.
+     * The biome is encoded in the X coordinate of the location, which the world stand-in decodes.
+     *
+     * @param world  The world.
+     * @param type   The entity type.
+     * @param reason The spawn reason.
+     * @param biome  The biome.
+     * @param y      The Y coordinate.
+     * @param hooks  Observes the passengers mounted on the entity.
+     * @return The event.
+     */
+    public static @NotNull CreatureSpawnEvent spawnEvent(final @NotNull World world, final @NotNull EntityType type, final @NotNull CreatureSpawnEvent.SpawnReason reason, final @NotNull Biome biome, final int y, final @NotNull SpawnHooks hooks) {
+        final Location location = new Location(world, (biome.ordinal() << 4) + 8.5D, y, 8.5D);
+        return new CreatureSpawnEvent((LivingEntity) entity(location, type, hooks), reason);
+    }
+
+    /**
+     * Creates an entity stand-in.
+     *
+     * @param location The entity location.
+     * @param type     The entity type.
+     * @return The entity.
+     */
+    public static @NotNull Entity entity(final @NotNull Location location, final @NotNull EntityType type) {
+        return entity(location, type, SpawnHooks.NONE);
+    }
+
+    /**
+     * Creates an entity stand-in which reports the passengers mounted on it.
+     * Each entity has its own unique ID and persistent data, which only remembers whether any key has been set.
+     *
+     * @param location The entity location.
+     * @param type     The entity type.
+     * @param hooks    Observes the passengers mounted on the entity.
+     * @return The entity.
+     */
+    public static @NotNull Entity entity(final @NotNull Location location, final @NotNull EntityType type, final @NotNull SpawnHooks hooks) {
+        final UUID id = new UUID(0L, ENTITY_IDS.incrementAndGet());
+        final boolean[] marked = new boolean[1];
+        final PersistentDataContainer data = proxy(PersistentDataContainer.class, (name, args) -> switch (name) {
+            case "set" -> {
+                marked[0] = true;
+                yield null;
+            }
+            case "remove" -> {
+                marked[0] = false;
+                yield null;
+            }
+            case "has" -> marked[0];
+            default -> null;
+        });
+        final Entity[] self = new Entity[1];
+        final Class<? extends Entity> entityClass = switch (type) {
+            case CAVE_SPIDER -> CaveSpider.class;
+            case ZOMBIE, HUSK, DROWNED, ZOMBIFIED_PIGLIN -> Zombie.class;
+            default -> LivingEntity.class;
+        };
+        self[0] = proxy(entityClass, (name, args) -> switch (name) {
+            case "getType" -> type;
+            case "getLocation" -> location.clone();
+            case "getWorld" -> location.getWorld();
+            case "getUniqueId" -> id;
+            case "getPersistentDataContainer" -> data;
+            case "getPassengers" -> Collections.emptyList();
+            case "isValid" -> true;
+            case "addPassenger" -> {
+                hooks.mounted(self[0], (Entity) args[0]);
+                yield true;
+            }
+            default -> null;
+        });
+        return self[0];
+    }
+
+    // Creates a proxy which delegates to a handler and returns default values for anything the handler leaves null.
+    private static <T> @NotNull T proxy(final @NotNull Class<T> type, final @NotNull Handler handler) {
+        final Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                default:
+                    break;
+            }
+            final Object result = handler.handle(method.getName(), args);
+            if (result != null || !method.getReturnType().isPrimitive()) {
+                return result;
+            }
+            final Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            } else if (returnType == void.class) {
+                return null;
+            } else if (returnType == double.class) {
+                return 0D;
+            } else if (returnType == float.class) {
+                return 0F;
+            } else if (returnType == long.class) {
+                return 0L;
+            } else if (returnType == char.class) {
+                return '\0';
+            } else if (returnType == byte.class) {
+                return (byte) 0;
+            } else if (returnType == short.class) {
+                return (short) 0;
+            }
+            return 0;
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Observes what the stand-ins are asked to do. Both methods do nothing by default.
+     *
+     * @author Isabel Maskrey
+     * @since 1.4.0
+     */
+    public interface SpawnHooks {
+        /**
+         * Hooks which observe nothing.
+         */
+        SpawnHooks NONE = new SpawnHooks() {
+        };
+
+        /**
+         * Called when a world stand-in spawns an entity.
+         *
+         * @param entity The spawned entity.
+         * @param reason The spawn reason.
+         */
+        default void spawned(final @NotNull Entity entity, final @NotNull CreatureSpawnEvent.SpawnReason reason) {
+        }
+
+        /**
+         * Called when a passenger is mounted on an entity stand-in.
+         *
+         * @param vehicle   The entity.
+         * @param passenger The passenger.
+         */
+        default void mounted(final @NotNull Entity vehicle, final @NotNull Entity passenger) {
+        }
+    }
+
+    // Answers a proxied method call by name.
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(final @NotNull String name, final Object[] args);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.satyrn.deepcavespiders.configuration;
+
+import dev.satyrn.deepcavespiders.util.SpawnDistribution;
+import dev.satyrn.papermc.api.util.v1.MathHelper;
+import org.bukkit.Difficulty;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the precomputed spawn chance tables.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public class SpawnProfileTest {
+    // The spawn chances, indexed by difficulty ordinal.
+    private static final double[] CHANCES = {0D, 0.05D, 0.1D, 0.5D};
+    // The spawn ranges which are checked: the minimum Y value, the maximum Y value, and whether spawns may occur below
+    // the minimum Y value.
+    private static final int[][] RANGES = {{-64, -8, 0}, {-40, 100, 1}, {0, 320, 0}, {16, 16, 1}};
+    // How far below the table the chances are checked.
+    private static final int BELOW_TABLE = 128;
+
+    /**
+     * Checks that every table entry matches the original distribution formulas inside the spawn range, and is zero
+     * outside it.
+     */
+    @Test
+    public void tableMatchesDistribution() {
+        for (final int[] range : RANGES) {
+            final int minY = range[0];
+            final int maxY = range[1];
+            final boolean allowSpawnsBelowMinY = range[2] != 0;
+            for (final SpawnDistribution distribution : SpawnDistribution.values()) {
+                final SpawnProfile profile = new SpawnProfile(true, minY, maxY, allowSpawnsBelowMinY, distribution, CHANCES.clone());
+                for (final Difficulty difficulty : Difficulty.values()) {
+                    for (int y = SpawnRules.TABLE_MIN_Y; y <= SpawnRules.TABLE_MAX_Y; ++y) {
+                        final boolean inRange = y <= maxY && (y >= minY || allowSpawnsBelowMinY);
+                        final double expected = inRange ? expected(distribution, CHANCES[difficulty.ordinal()], y, minY, maxY) : 0D;
+                        assertEquals(expected, profile.getSpawnChance(difficulty, y),
+                                distribution + " " + difficulty + " at y " + y + " in range " + minY + ".." + maxY);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that spawns below the minimum Y value, including those below the table, follow the original formulas
+     * when they are allowed, and are never replaced otherwise.
+     */
+    @Test
+    public void spawnsBelowMinY() {
+        final int minY = -40;
+        final int maxY = 100;
+        for (final SpawnDistribution distribution : SpawnDistribution.values()) {
+            final SpawnProfile allowed = new SpawnProfile(true, minY, maxY, true, distribution, CHANCES.clone());
+            final SpawnProfile denied = new SpawnProfile(true, minY, maxY, false, distribution, CHANCES.clone());
+            for (final Difficulty difficulty : Difficulty.values()) {
+                final double chance = CHANCES[difficulty.ordinal()];
+                for (int y = SpawnRules.TABLE_MIN_Y - BELOW_TABLE; y < minY; ++y) {
+                    final String message = distribution + " " + difficulty + " at y " + y;
+                    final double expected = expected(distribution, chance, y, minY, maxY);
+                    // Below the spawn range every preset is clamped to the configured chance.
+                    assertEquals(chance, expected, message);
+                    assertEquals(expected, allowed.getSpawnChance(difficulty, y), message);
+                    assertEquals(0D, denied.getSpawnChance(difficulty, y), message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a disabled profile never spawns.
+     */
+    @Test
+    public void disabledProfileIsZero() {
+        for (final SpawnDistribution distribution : SpawnDistribution.values()) {
+            final SpawnProfile profile = new SpawnProfile(false, -64, -8, true, distribution, CHANCES.clone());
+            for (final Difficulty difficulty : Difficulty.values()) {
+                for (int y = SpawnRules.TABLE_MIN_Y; y <= SpawnRules.TABLE_MAX_Y; ++y) {
+                    assertEquals(0D, profile.getSpawnChance(difficulty, y), distribution + " " + difficulty + " at y " + y);
+                }
+            }
+        }
+    }
+
+    // Computes a spawn chance with the original closed-form distribution formulas, clamped to the configured chance.
+    // Formulas which are undefined at a height, such as in an empty range, give no chance.
+    private static double expected(final @NotNull SpawnDistribution distribution, final double chance, final double y, final int minY, final int maxY) {
+        final double scale = switch (distribution) {
+            case CONSTANT -> 1D;
+            case LINEAR -> (-y + maxY) / (maxY - minY);
+            case HYPERBOLIC -> Math.pow((-y + maxY) / (maxY - minY), 2);
+            case LOGARITHMIC -> MathHelper.logb(-y + maxY, maxY - minY);
+        };
+        final double spawnChance = chance * scale;
+        return Double.isNaN(spawnChance) ? 0D : MathHelper.clampd(spawnChance, 0D, Math.max(0D, chance));
+    }
+}
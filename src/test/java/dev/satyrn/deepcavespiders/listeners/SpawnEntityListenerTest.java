@@ -0,0 +1,130 @@
+package dev.satyrn.deepcavespiders.listeners;
+
+import dev.satyrn.deepcavespiders.benchmark.BenchmarkFixtures;
+import dev.satyrn.deepcavespiders.configuration.SpawnRules;
+import dev.satyrn.deepcavespiders.statistics.SpawnStatistics;
+import dev.satyrn.deepcavespiders.util.DebugLogBuffer;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the spawn listener makes each spawn decision with a single set of rules while a reload publishes new ones.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public class SpawnEntityListenerTest {
+    // The number of threads which fire spawn events, as on a region-threaded server.
+    private static final int SPAWNERS = 4;
+    // The number of spawn events each thread fires.
+    private static final int EVENTS = 50_000;
+    // The height of every spawn, inside the default spawn range.
+    private static final int Y = -32;
+
+    /**
+     * Fires spawn events from several threads while another thread keeps swapping between two rule sets. The replacing
+     * rules always replace and never record statistics; the rejecting rules never replace and always do. A decision
+     * which read options from both would replace a spawn and record it, or reject a spawn without recording it, so
+     * the statistics must count exactly the spawns which weren't replaced.
+     *
+     * @throws Exception Thrown if the test is interrupted.
+     */
+    @Test
+    public void spawnDecisionsUseOneSnapshot() throws Exception {
+        final SpawnRules replacing = rules(1D, false);
+        final SpawnRules rejecting = rules(0D, true);
+        final Plugin plugin = BenchmarkFixtures.plugin(new YamlConfiguration());
+        final SpawnStatistics statistics = new SpawnStatistics();
+        final SpawnEntityListener listener = new SpawnEntityListener(plugin, replacing, new DebugLogBuffer(plugin.getLogger(), 16), statistics, BenchmarkFixtures.scheduler());
+
+        final AtomicBoolean spawning = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong replaced = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        // Holds the spawners back until the publisher has started.
+        final CountDownLatch started = new CountDownLatch(1);
+        final Thread publisher = new Thread(() -> {
+            for (long i = 0; spawning.get(); ++i) {
+                listener.setRules((i & 1L) == 0L ? rejecting : replacing);
+            }
+        }, "rules-publisher");
+        publisher.start();
+        final Thread[] spawners = new Thread[SPAWNERS];
+        for (int t = 0; t < SPAWNERS; ++t) {
+            spawners[t] = new Thread(() -> {
+                // The world stand-in spawns on the calling thread, so each thread counts its own replacements.
+                final int[] spawned = new int[1];
+                final World world = BenchmarkFixtures.world(Difficulty.HARD, World.Environment.NORMAL, new BenchmarkFixtures.SpawnHooks() {
+                    @Override
+                    public void spawned(final @NotNull Entity entity, final @NotNull CreatureSpawnEvent.SpawnReason reason) {
+                        if (entity.getType() == EntityType.CAVE_SPIDER) {
+                            ++spawned[0];
+                        }
+                    }
+                });
+                try {
+                    assertTrue(started.await(10, TimeUnit.SECONDS), "the publisher did not start");
+                    for (int i = 0; i < EVENTS; ++i) {
+                        final CreatureSpawnEvent event = BenchmarkFixtures.spawnEvent(world, EntityType.SPIDER, CreatureSpawnEvent.SpawnReason.NATURAL, Biome.PLAINS, Y);
+                        spawned[0] = 0;
+                        listener.onCreatureSpawn(event);
+                        if (event.isCancelled()) {
+                            assertEquals(1, spawned[0], "replaced spawn " + i + " did not spawn one cave spider");
+                            replaced.incrementAndGet();
+                        } else {
+                            assertEquals(0, spawned[0], "rejected spawn " + i + " spawned a cave spider");
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }, "spawner-" + t);
+            spawners[t].start();
+        }
+        started.countDown();
+        for (final Thread spawner : spawners) {
+            spawner.join(TimeUnit.MINUTES.toMillis(2));
+        }
+        spawning.set(false);
+        publisher.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertNull(failure.get(), "inconsistent decision: " + failure.get());
+        assertEquals((long) SPAWNERS * EVENTS, replaced.get() + rejected.get(), "not every spawn was decided");
+        assertTrue(replaced.get() > 0L && rejected.get() > 0L, "the rules were not swapped while spawning");
+        long filtered = 0L;
+        for (final SpawnStatistics.Guard guard : SpawnStatistics.Guard.values()) {
+            filtered += statistics.getFiltered(guard);
+        }
+        assertEquals(0L, statistics.getReplacements(), "replacements were recorded with the rejecting rules");
+        assertEquals(rejected.get(), statistics.getEvents(), "events recorded");
+        assertEquals(rejected.get(), statistics.getCandidates(), "candidates recorded");
+        assertEquals(rejected.get(), filtered, "rejections recorded");
+    }
+
+    // Compiles a rule set from the default configuration, with the given chance on hard difficulty.
+    private static @NotNull SpawnRules rules(final double hardChance, final boolean statistics) {
+        final YamlConfiguration config = BenchmarkFixtures.defaultConfig();
+        config.set("spawnOptions.chances.hard", hardChance);
+        config.set("statistics.enabled", statistics);
+        return BenchmarkFixtures.rules(config);
+    }
+}
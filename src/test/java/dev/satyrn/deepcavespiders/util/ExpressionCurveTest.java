@@ -0,0 +1,146 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the expression curve parser.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public class ExpressionCurveTest {
+    // The tolerance for floating point results.
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Checks that multiplication binds tighter than addition, that both are left-associative, and that parentheses
+     * override precedence.
+     */
+    @Test
+    public void precedence() {
+        assertValue(7D, "1 + 2 * 3");
+        assertValue(9D, "(1 + 2) * 3");
+        assertValue(3D, "10 - 4 - 3");
+        assertValue(1D, "8 / 4 / 2");
+        assertValue(6D, "7 % 4 * 2");
+        assertValue(18D, "2 * 3 ^ 2");
+        assertValue(11D, "2 + 3 ^ 2");
+    }
+
+    /**
+     * Checks that {@code ^} is right-associative.
+     */
+    @Test
+    public void powerIsRightAssociative() {
+        assertValue(512D, "2 ^ 3 ^ 2");
+        assertValue(64D, "(2 ^ 3) ^ 2");
+    }
+
+    /**
+     * Checks that unary minus applies to the whole power on its right, and may start an exponent.
+     */
+    @Test
+    public void unaryMinusWithPower() {
+        assertValue(-4D, "-2 ^ 2");
+        assertValue(4D, "(-2) ^ 2");
+        assertValue(0.5D, "2 ^ -1");
+        assertValue(0.5D, "2 ^ -1 ^ 2");
+        assertValue(-8D, "--2 ^ 3 * -1");
+    }
+
+    /**
+     * Checks numbers in exponent notation, with and without a sign.
+     */
+    @Test
+    public void exponentNotation() {
+        assertValue(1000D, "1e3");
+        assertValue(1000D, "1e+3");
+        assertValue(0.001D, "1e-3");
+        assertValue(250D, "2.5E2");
+        assertValue(1001D, "1e+3 + 1");
+    }
+
+    /**
+     * Checks that variables are read at evaluation time, and that names are case-insensitive.
+     */
+    @Test
+    public void variables() {
+        final ExpressionCurve curve = ExpressionCurve.parse("(maxY - y) / (MAXY - miny)");
+        assertEquals(0.5D, curve.scale(-32D, -64, 0), EPSILON, "halfway down the range");
+        assertEquals(1D, curve.scale(-64D, -64, 0), EPSILON, "at the bottom of the range");
+        assertEquals(0D, curve.scale(0D, -64, 0), EPSILON, "at the top of the range");
+    }
+
+    /**
+     * Checks that constant subexpressions, including constants and functions, are folded to the right value, and
+     * that folding stops at variables.
+     */
+    @Test
+    public void constantFolding() {
+        final ExpressionCurve constant = ExpressionCurve.parse("2 ^ 10 + pi - pi + ln(e) + max(1, sqrt(16))");
+        assertEquals(1029D, constant.scale(-64D, -64, 0), EPSILON, "at the bottom of the range");
+        assertEquals(1029D, constant.scale(100D, 0, 320), EPSILON, "in another range");
+        final ExpressionCurve partial = ExpressionCurve.parse("(1 + 2) * y - pow(2, 2)");
+        assertEquals(-4D, partial.scale(0D, -64, 0), EPSILON, "at y 0");
+        assertEquals(26D, partial.scale(10D, -64, 0), EPSILON, "at y 10");
+    }
+
+    /**
+     * Checks the functions, including both forms of {@code log}.
+     */
+    @Test
+    public void functions() {
+        assertValue(2D, "log(100)");
+        assertValue(3D, "log(8, 2)");
+        assertValue(3D, "abs(-3)");
+        assertValue(-2D, "floor(-1.5)");
+        assertValue(-1D, "ceil(-1.5)");
+        assertValue(1D, "clamp(5, 0, 1)");
+        assertValue(0D, "clamp(-5, 0, 1)");
+        assertValue(0.25D, "clamp(0.25, 0, 1)");
+    }
+
+    /**
+     * Checks that functions reject the wrong number of arguments.
+     */
+    @Test
+    public void functionArity() {
+        assertRejected("sqrt(1, 2)");
+        assertRejected("abs()");
+        assertRejected("min(1)");
+        assertRejected("pow(1, 2, 3)");
+        assertRejected("clamp(1, 2)");
+        assertRejected("log()");
+        assertRejected("log(1, 2, 3)");
+    }
+
+    /**
+     * Checks that malformed expressions are rejected.
+     */
+    @Test
+    public void malformedExpressions() {
+        assertRejected("");
+        assertRejected("1 +");
+        assertRejected("(1 + 2");
+        assertRejected("1 + 2)");
+        assertRejected("z");
+        assertRejected("foo(1)");
+        assertRejected("1e+");
+        assertRejected("1..2");
+        assertRejected("2 y");
+    }
+
+    // Checks the value of a constant expression.
+    private static void assertValue(final double expected, final @NotNull String expression) {
+        assertEquals(expected, ExpressionCurve.parse(expression).scale(0D, -64, -8), EPSILON, expression);
+    }
+
+    // Checks that an expression is rejected.
+    private static void assertRejected(final @NotNull String expression) {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionCurve.parse(expression), expression);
+    }
+}
@@ -0,0 +1,81 @@
+package dev.satyrn.deepcavespiders.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the piecewise curve parser and interpolation.
+ *
+ * @author Isabel Maskrey
+ * @since 1.4.0
+ */
+public class PiecewiseCurveTest {
+    // The tolerance for floating point results.
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Checks that the curve passes through every point, interpolates linearly between them, and holds the end factors
+     * beyond the first and last points.
+     */
+    @Test
+    public void interpolatesBetweenPoints() {
+        final PiecewiseCurve curve = PiecewiseCurve.parse("-64:1, -32:0.5, -8:0");
+        assertScale(1D, curve, -64D);
+        assertScale(0.5D, curve, -32D);
+        assertScale(0D, curve, -8D);
+        assertScale(0.75D, curve, -48D);
+        assertScale(0.25D, curve, -20D);
+        assertScale(1D - 0.5D / 32D, curve, -63D);
+        assertScale(0.5D / 24D, curve, -9D);
+        assertScale(1D, curve, -200D);
+        assertScale(0D, curve, 100D);
+    }
+
+    /**
+     * Checks that points may be given in any order.
+     */
+    @Test
+    public void pointsMayBeUnordered() {
+        final PiecewiseCurve curve = PiecewiseCurve.parse("-8:0,-64:1 , -32:0.5");
+        assertScale(1D, curve, -64D);
+        assertScale(0.75D, curve, -48D);
+        assertScale(0.25D, curve, -20D);
+    }
+
+    /**
+     * Checks that a single point is a constant curve.
+     */
+    @Test
+    public void singlePointIsConstant() {
+        final PiecewiseCurve curve = PiecewiseCurve.parse("0:0.3");
+        assertScale(0.3D, curve, -64D);
+        assertScale(0.3D, curve, 0D);
+        assertScale(0.3D, curve, 320D);
+    }
+
+    /**
+     * Checks that malformed point lists are rejected.
+     */
+    @Test
+    public void malformedPoints() {
+        assertRejected("");
+        assertRejected(" , ");
+        assertRejected("1");
+        assertRejected("a:0.5");
+        assertRejected("1:b");
+        assertRejected("-32:0.5, -32:1");
+    }
+
+    // Checks the factor of a curve at a height.
+    private static void assertScale(final double expected, final @NotNull PiecewiseCurve curve, final double y) {
+        assertEquals(expected, curve.scale(y, -64, -8), EPSILON, curve + " at y " + y);
+    }
+
+    // Checks that a point list is rejected.
+    private static void assertRejected(final @NotNull String points) {
+        assertThrows(IllegalArgumentException.class, () -> PiecewiseCurve.parse(points), "\"" + points + "\"");
+    }
+}